@@ -0,0 +1,120 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.cluster;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.Diff;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.discovery.zen.publish.PublishClusterStateAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of serializing and compressing a synthetic cluster state with a configurable number of indices
+ * the way {@link PublishClusterStateAction} does before publishing it, both as a full state and as a diff against
+ * the previous state with a single index added.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PublishClusterStateBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int numIndices;
+
+    @Param({"10", "100"})
+    public int numNodes;
+
+    private ClusterState clusterState;
+    private Diff<ClusterState> diff;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.put(new DiscoveryNode("node_" + i, DummyTransportAddress.INSTANCE, Version.CURRENT));
+        }
+        nodes.localNodeId("node_0").masterNodeId("node_0");
+
+        final MetaData.Builder metaData = MetaData.builder();
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        for (int i = 0; i < numIndices; i++) {
+            final IndexMetaData indexMetaData = indexMetaData("index_" + i);
+            metaData.put(indexMetaData, false);
+            routingTable.addAsNew(indexMetaData);
+        }
+        final ClusterState previousState = ClusterState.builder(ClusterName.DEFAULT)
+                .nodes(nodes)
+                .metaData(metaData)
+                .routingTable(routingTable.build())
+                .build();
+
+        final IndexMetaData newIndex = indexMetaData("index_" + numIndices);
+        clusterState = ClusterState.builder(previousState)
+                .metaData(MetaData.builder(previousState.metaData()).put(newIndex, false))
+                .routingTable(RoutingTable.builder(previousState.routingTable()).addAsNew(newIndex).build())
+                .incrementVersion()
+                .build();
+        diff = clusterState.diff(previousState);
+    }
+
+    private static IndexMetaData indexMetaData(String name) {
+        return IndexMetaData.builder(name)
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .numberOfShards(5)
+                .numberOfReplicas(1)
+                .build();
+    }
+
+    @Benchmark
+    public BytesReference serializeFullClusterState() throws IOException {
+        return PublishClusterStateAction.serializeFullClusterState(clusterState, Version.CURRENT);
+    }
+
+    @Benchmark
+    public BytesReference serializeDiffClusterState() throws IOException {
+        return PublishClusterStateAction.serializeDiffClusterState(diff, Version.CURRENT);
+    }
+}
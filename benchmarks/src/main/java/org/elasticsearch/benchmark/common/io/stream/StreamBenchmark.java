@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization round-trips through {@link BytesStreamOutput} and {@link StreamInput} with the mix of
+ * variable length numbers, strings and byte arrays that dominates transport messages.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StreamBenchmark {
+
+    /**
+     * The number of entries, each consisting of a vInt, a vLong, a string and a byte array.
+     */
+    @Param({"100", "10000"})
+    public int numEntries;
+
+    private int[] ints;
+    private long[] longs;
+    private String[] strings;
+    private byte[][] bytes;
+    private BytesReference serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Random random = new Random(0);
+        ints = new int[numEntries];
+        longs = new long[numEntries];
+        strings = new String[numEntries];
+        bytes = new byte[numEntries][];
+        for (int i = 0; i < numEntries; i++) {
+            ints[i] = random.nextInt(1 << (1 + random.nextInt(30)));
+            longs[i] = random.nextLong() >>> (1 + random.nextInt(63));
+            strings[i] = "field_" + Integer.toString(random.nextInt(), Character.MAX_RADIX);
+            bytes[i] = new byte[random.nextInt(64)];
+            random.nextBytes(bytes[i]);
+        }
+        serialized = write();
+    }
+
+    @Benchmark
+    public BytesReference write() throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        for (int i = 0; i < numEntries; i++) {
+            out.writeVInt(ints[i]);
+            out.writeVLong(longs[i]);
+            out.writeString(strings[i]);
+            out.writeByteArray(bytes[i]);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        final StreamInput in = StreamInput.wrap(serialized);
+        long checksum = 0;
+        for (int i = 0; i < numEntries; i++) {
+            checksum += in.readVInt();
+            checksum += in.readVLong();
+            checksum += in.readString().length();
+            checksum += in.readByteArray().length;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the building blocks of bucket collection in aggregations: growing a {@link LongArray} page by page and
+ * adding keys to {@link LongHash} and {@link BytesRefHash}, with a realistic mix of new and already seen keys.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BigArraysBenchmark {
+
+    /**
+     * The number of keys added per invocation.
+     */
+    @Param({"1000000"})
+    public int numValues;
+
+    /**
+     * The number of distinct keys among them.
+     */
+    @Param({"100", "10000", "1000000"})
+    public int cardinality;
+
+    @Param({"true", "false"})
+    public boolean recycling;
+
+    private ThreadPool threadPool;
+    private BigArrays bigArrays;
+    private long[] longKeys;
+    private BytesRef[] bytesRefKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        threadPool = new ThreadPool("big-arrays-benchmark");
+        bigArrays = recycling ? new BigArrays(new PageCacheRecycler(Settings.EMPTY, threadPool), null) : BigArrays.NON_RECYCLING_INSTANCE;
+        final Random random = new Random(0);
+        final long[] distinct = new long[cardinality];
+        for (int i = 0; i < distinct.length; i++) {
+            distinct[i] = random.nextLong();
+        }
+        longKeys = new long[numValues];
+        bytesRefKeys = new BytesRef[numValues];
+        for (int i = 0; i < numValues; i++) {
+            longKeys[i] = distinct[random.nextInt(cardinality)];
+            bytesRefKeys[i] = new BytesRef(Long.toHexString(longKeys[i]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public long longArrayGrowAndIncrement() {
+        LongArray counts = bigArrays.newLongArray(1, true);
+        try {
+            for (int i = 0; i < numValues; i++) {
+                counts = bigArrays.grow(counts, i + 1);
+                counts.increment(i, 1);
+            }
+            return counts.get(numValues - 1);
+        } finally {
+            counts.close();
+        }
+    }
+
+    @Benchmark
+    public long longHashAdd() {
+        try (LongHash hash = new LongHash(1, bigArrays)) {
+            for (long key : longKeys) {
+                hash.add(key);
+            }
+            return hash.size();
+        }
+    }
+
+    @Benchmark
+    public long bytesRefHashAdd() {
+        try (BytesRefHash hash = new BytesRefHash(1, bigArrays)) {
+            for (BytesRef key : bytesRefKeys) {
+                hash.add(key);
+            }
+            return hash.size();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.index.engine;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.KeepOnlyLastCommitDeletionPolicy;
+import org.apache.lucene.index.SnapshotDeletionPolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TieredMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.EngineConfig;
+import org.elasticsearch.index.engine.InternalEngine;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.TranslogRecoveryPerformer;
+import org.elasticsearch.index.store.DirectoryService;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.test.DummyShardLock;
+import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link InternalEngine#index(Engine.Index)} and {@link InternalEngine#delete(Engine.Delete)}
+ * including the live version map bookkeeping and the translog append, on a real file system directory.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class InternalEngineBenchmark {
+
+    private static final ESLogger logger = Loggers.getLogger(InternalEngineBenchmark.class);
+    private static final String TYPE = "test";
+
+    /**
+     * The number of distinct ids that are indexed. Once all ids were used, further index operations are updates.
+     */
+    @Param({"10000", "1000000"})
+    public int numIds;
+
+    @Param({"256", "4096"})
+    public int sourceSize;
+
+    private ThreadPool threadPool;
+    private Path dataPath;
+    private Store store;
+    private InternalEngine engine;
+    private BytesReference source;
+    private int nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        threadPool = new ThreadPool("engine-benchmark");
+        dataPath = Files.createTempDirectory("engine-benchmark");
+        final ShardId shardId = new ShardId(new Index("index", "_na_"), 0);
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("index", Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .build());
+        final Directory directory = FSDirectory.open(dataPath.resolve("index"));
+        store = new Store(shardId, indexSettings, new DirectoryService(shardId, indexSettings) {
+            @Override
+            public Directory newDirectory() throws IOException {
+                return directory;
+            }
+
+            @Override
+            public long throttleTimeInNanos() {
+                return 0;
+            }
+        }, new DummyShardLock(shardId));
+        final TranslogConfig translogConfig = new TranslogConfig(shardId, dataPath.resolve("translog"), indexSettings,
+            BigArrays.NON_RECYCLING_INSTANCE);
+        final EngineConfig config = new EngineConfig(shardId, threadPool, indexSettings, null, store,
+            new SnapshotDeletionPolicy(new KeepOnlyLastCommitDeletionPolicy()), new TieredMergePolicy(),
+            new StandardAnalyzer(), new BM25Similarity(), new CodecService(null, logger), new Engine.EventListener() {
+                @Override
+                public void onFailedEngine(String reason, @Nullable Throwable t) {
+                    // the benchmark fails on the next operation anyway
+                }
+            }, new TranslogRecoveryPerformer(shardId, null, logger) {
+                // there is nothing to recover in a freshly created index
+            }, IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), translogConfig,
+            TimeValue.timeValueMinutes(5));
+        config.setCreate(true);
+        engine = new InternalEngine(config, false);
+        final byte[] bytes = new byte[sourceSize];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + (i % 26));
+        }
+        source = new BytesArray(bytes);
+        nextId = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IOUtils.close(engine, store);
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        IOUtils.rm(dataPath);
+    }
+
+    @Benchmark
+    public Engine.Index index() throws IOException {
+        final String id = Integer.toString(nextId++ % numIds);
+        final Engine.Index index = new Engine.Index(newUid(id), newParsedDocument(id));
+        engine.index(index);
+        return index;
+    }
+
+    @Benchmark
+    public Engine.Delete indexAndDelete() throws IOException {
+        final String id = Integer.toString(nextId++ % numIds);
+        engine.index(new Engine.Index(newUid(id), newParsedDocument(id)));
+        final Engine.Delete delete = new Engine.Delete(TYPE, id, newUid(id));
+        engine.delete(delete);
+        return delete;
+    }
+
+    private static Term newUid(String id) {
+        return new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(TYPE, id));
+    }
+
+    private ParsedDocument newParsedDocument(String id) {
+        final Document document = new Document();
+        final Field uidField = new Field(UidFieldMapper.NAME, Uid.createUid(TYPE, id), UidFieldMapper.Defaults.FIELD_TYPE);
+        final Field versionField = new NumericDocValuesField("_version", 0);
+        document.add(uidField);
+        document.add(versionField);
+        document.add(new TextField("body", "the quick brown fox jumps over the lazy dog", Field.Store.NO));
+        return new ParsedDocument(uidField, versionField, id, TYPE, null, -1, -1, Collections.singletonList(document), source, null);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.index.translog;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.test.IndexSettingsModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Translog#add(Translog.Operation)} with and without a subsequent fsync, single threaded and with
+ * concurrent writers which is what a shard sees when several bulk requests are executed on it at the same time.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TranslogBenchmark {
+
+    @Param({"128", "1024", "16384"})
+    public int sourceSize;
+
+    private Path translogPath;
+    private Translog translog;
+    private byte[] source;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        translogPath = Files.createTempDirectory("translog-benchmark");
+        final ShardId shardId = new ShardId(new Index("index", "_na_"), 0);
+        final IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("index", Settings.builder()
+            .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .build());
+        translog = new Translog(new TranslogConfig(shardId, translogPath, indexSettings, BigArrays.NON_RECYCLING_INSTANCE));
+        source = new byte[sourceSize];
+        for (int i = 0; i < source.length; i++) {
+            source[i] = (byte) ('a' + (i % 26));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IOUtils.close(translog);
+        IOUtils.rm(translogPath);
+    }
+
+    @Setup(Level.Iteration)
+    public void rollGeneration() throws IOException {
+        // keep the translog from growing without bounds across iterations
+        translog.prepareCommit();
+        translog.commit();
+    }
+
+    @Benchmark
+    public Translog.Location add() throws IOException {
+        return translog.add(new Translog.Index("test", "1", source));
+    }
+
+    @Benchmark
+    public Translog.Location addAndSync() throws IOException {
+        final Translog.Location location = translog.add(new Translog.Index("test", "1", source));
+        translog.ensureSynced(location);
+        return location;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Translog.Location addAndSyncConcurrently() throws IOException {
+        final Translog.Location location = translog.add(new Translog.Index("test", "1", source));
+        translog.ensureSynced(location);
+        return location;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.InternalOrder;
+import org.elasticsearch.search.aggregations.bucket.terms.InternalTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InternalAggregations#reduce(List, InternalAggregation.ReduceContext)} of a terms aggregation on the
+ * coordinating node, where every shard returns its top {@code shardSize} buckets out of a shared key space.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class InternalAggregationsReduceBenchmark {
+
+    @Param({"5", "100", "2000"})
+    public int numShards;
+
+    @Param({"10", "1000"})
+    public int shardSize;
+
+    private List<InternalAggregations> shardAggregations;
+    private InternalAggregation.ReduceContext reduceContext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(0);
+        shardAggregations = new ArrayList<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            final List<InternalTerms.Bucket> buckets = new ArrayList<>(shardSize);
+            for (int i = 0; i < shardSize; i++) {
+                final BytesRef term = new BytesRef("term_" + random.nextInt(shardSize * 4));
+                buckets.add(new StringTerms.Bucket(term, 1 + random.nextInt(1000), InternalAggregations.EMPTY, false, 0));
+            }
+            final StringTerms terms = new StringTerms("terms", InternalOrder.COUNT_DESC, 10, shardSize, 1, buckets, false, 0, 0,
+                Collections.emptyList(), null);
+            shardAggregations.add(new InternalAggregations(Collections.singletonList(terms)));
+        }
+        reduceContext = new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null);
+    }
+
+    @Benchmark
+    public InternalAggregations reduce() {
+        return InternalAggregations.reduce(shardAggregations, reduceContext);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collection of a {@code terms} aggregation on a keyword field with the {@code global_ordinals} and
+ * {@code map} execution hints. A single shard index is built on an embedded local node so that the numbers include the
+ * real per segment ordinal mapping done by the {@code GlobalOrdinalsStringTermsAggregator}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TermsAggregationBenchmark {
+
+    private static final String INDEX = "index";
+    private static final String TYPE = "type";
+
+    @Param({"1000000"})
+    public int numDocs;
+
+    @Param({"100", "100000"})
+    public int cardinality;
+
+    @Param({"global_ordinals", "global_ordinals_low_cardinality", "map"})
+    public String executionHint;
+
+    private Path home;
+    private Node node;
+    private Client client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        home = Files.createTempDirectory("terms-aggregation-benchmark");
+        node = new Node(Settings.builder()
+            .put(ClusterName.CLUSTER_NAME_SETTING.getKey(), "terms-aggregation-benchmark")
+            .put(Environment.PATH_HOME_SETTING.getKey(), home.toString())
+            .put(Node.NODE_LOCAL_SETTING.getKey(), true)
+            .put("http.enabled", false)
+            .build());
+        node.start();
+        client = node.client();
+        client.admin().indices().prepareCreate(INDEX)
+            .setSettings(Settings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+            .addMapping(TYPE, "keyword", "type=keyword")
+            .get();
+        client.admin().cluster().prepareHealth(INDEX).setWaitForGreenStatus().get();
+        final Random random = new Random(0);
+        BulkRequestBuilder bulk = client.prepareBulk();
+        for (int i = 0; i < numDocs; i++) {
+            bulk.add(client.prepareIndex(INDEX, TYPE).setSource("keyword", "term_" + random.nextInt(cardinality)));
+            if (bulk.numberOfActions() == 10000) {
+                bulk.get();
+                bulk = client.prepareBulk();
+            }
+        }
+        if (bulk.numberOfActions() > 0) {
+            bulk.get();
+        }
+        // a handful of segments, like a shard that is still being merged
+        client.admin().indices().prepareForceMerge(INDEX).setMaxNumSegments(5).get();
+        client.admin().indices().prepareRefresh(INDEX).get();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        IOUtils.close(node);
+        IOUtils.rm(home);
+    }
+
+    @Benchmark
+    public SearchResponse termsAggregation() {
+        return client.prepareSearch(INDEX)
+            .setSize(0)
+            .addAggregation(AggregationBuilders.terms("terms").field("keyword").executionHint(executionHint).size(10))
+            .get();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.controller;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SearchPhaseController#sortDocs(boolean, AtomicArray)}, the merge of the per shard top docs on the
+ * coordinating node, for varying numbers of shards and page sizes.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SortDocsBenchmark {
+
+    @Param({"5", "100", "2000"})
+    public int numShards;
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private SearchPhaseController controller;
+    private AtomicArray<QuerySearchResult> results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = new SearchPhaseController(Settings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null);
+        final Random random = new Random(0);
+        final Index index = new Index("index", "_na_");
+        results = new AtomicArray<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            final ScoreDoc[] scoreDocs = new ScoreDoc[size];
+            for (int i = 0; i < size; i++) {
+                scoreDocs[i] = new ScoreDoc(random.nextInt(1 << 20), random.nextFloat());
+            }
+            Arrays.sort(scoreDocs, Collections.reverseOrder((a, b) -> Float.compare(a.score, b.score)));
+            final QuerySearchResult result = new QuerySearchResult(shard, new SearchShardTarget("node", index, shard));
+            result.topDocs(new TopDocs(size * 10, scoreDocs, scoreDocs[0].score));
+            result.from(0);
+            result.size(size);
+            results.set(shard, result);
+        }
+    }
+
+    @Benchmark
+    public ScoreDoc[] sortDocs() throws IOException {
+        return controller.sortDocs(false, results);
+    }
+}
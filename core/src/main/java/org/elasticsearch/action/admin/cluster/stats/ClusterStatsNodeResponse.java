@@ -25,6 +25,7 @@ import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.allocation.AllocationStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -37,16 +38,19 @@ public class ClusterStatsNodeResponse extends BaseNodeResponse {
     private NodeStats nodeStats;
     private ShardStats[] shardsStats;
     private ClusterHealthStatus clusterStatus;
+    private AllocationStats allocationStats;
 
     ClusterStatsNodeResponse() {
     }
 
-    public ClusterStatsNodeResponse(DiscoveryNode node, @Nullable ClusterHealthStatus clusterStatus, NodeInfo nodeInfo, NodeStats nodeStats, ShardStats[] shardsStats) {
+    public ClusterStatsNodeResponse(DiscoveryNode node, @Nullable ClusterHealthStatus clusterStatus, @Nullable AllocationStats allocationStats,
+                                    NodeInfo nodeInfo, NodeStats nodeStats, ShardStats[] shardsStats) {
         super(node);
         this.nodeInfo = nodeInfo;
         this.nodeStats = nodeStats;
         this.shardsStats = shardsStats;
         this.clusterStatus = clusterStatus;
+        this.allocationStats = allocationStats;
     }
 
     public NodeInfo nodeInfo() {
@@ -65,6 +69,14 @@ public class ClusterStatsNodeResponse extends BaseNodeResponse {
         return clusterStatus;
     }
 
+    /**
+     * Shard allocation statistics, only populated on master nodes.
+     */
+    @Nullable
+    public AllocationStats allocationStats() {
+        return allocationStats;
+    }
+
     public ShardStats[] shardsStats() {
         return this.shardsStats;
     }
@@ -82,6 +94,7 @@ public class ClusterStatsNodeResponse extends BaseNodeResponse {
         if (in.readBoolean()) {
             clusterStatus = ClusterHealthStatus.fromValue(in.readByte());
         }
+        allocationStats = in.readOptionalStreamable(AllocationStats::new);
         this.nodeInfo = NodeInfo.readNodeInfo(in);
         this.nodeStats = NodeStats.readNodeStats(in);
         int size = in.readVInt();
@@ -100,6 +113,7 @@ public class ClusterStatsNodeResponse extends BaseNodeResponse {
             out.writeBoolean(true);
             out.writeByte(clusterStatus.value());
         }
+        out.writeOptionalStreamable(allocationStats);
         nodeInfo.writeTo(out);
         nodeStats.writeTo(out);
         out.writeVInt(shardsStats.length);
@@ -22,6 +22,7 @@ package org.elasticsearch.action.admin.cluster.stats;
 import org.elasticsearch.action.support.nodes.BaseNodesResponse;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.cluster.routing.allocation.AllocationStats;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -43,6 +44,7 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
     ClusterStatsIndices indicesStats;
     String clusterUUID;
     ClusterHealthStatus status;
+    AllocationStats allocationStats;
     long timestamp;
 
 
@@ -59,6 +61,7 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
             // only the master node populates the status
             if (response.clusterStatus() != null) {
                 status = response.clusterStatus();
+                allocationStats = response.allocationStats();
                 break;
             }
         }
@@ -72,6 +75,13 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
         return this.status;
     }
 
+    /**
+     * Shard allocation statistics of the elected master, may be <code>null</code> if the master changed while the stats were collected.
+     */
+    public AllocationStats getAllocationStats() {
+        return this.allocationStats;
+    }
+
     public ClusterStatsNodes getNodesStats() {
         return nodesStats;
     }
@@ -109,6 +119,7 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
             // it may be that the master switched on us while doing the operation. In this case the status may be null.
             status = ClusterHealthStatus.fromValue(in.readByte());
         }
+        allocationStats = in.readOptionalStreamable(AllocationStats::new);
         clusterUUID = in.readString();
         nodesStats = ClusterStatsNodes.readNodeStats(in);
         indicesStats = ClusterStatsIndices.readIndicesStats(in);
@@ -124,6 +135,7 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
             out.writeBoolean(true);
             out.writeByte(status.value());
         }
+        out.writeOptionalStreamable(allocationStats);
         out.writeString(clusterUUID);
         nodesStats.writeTo(out);
         indicesStats.writeTo(out);
@@ -153,6 +165,9 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
         builder.startObject(Fields.NODES);
         nodesStats.toXContent(builder, params);
         builder.endObject();
+        if (allocationStats != null) {
+            allocationStats.toXContent(builder, params);
+        }
         return builder;
     }
 
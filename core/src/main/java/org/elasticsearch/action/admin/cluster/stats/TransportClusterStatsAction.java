@@ -32,6 +32,8 @@ import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
 import org.elasticsearch.cluster.health.ClusterStateHealth;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.AllocationStats;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -60,17 +62,18 @@ public class TransportClusterStatsAction extends TransportNodesAction<ClusterSta
 
     private final NodeService nodeService;
     private final IndicesService indicesService;
-
+    private final AllocationService allocationService;
 
     @Inject
     public TransportClusterStatsAction(Settings settings, ClusterName clusterName, ThreadPool threadPool,
                                        ClusterService clusterService, TransportService transportService,
-                                       NodeService nodeService, IndicesService indicesService,
+                                       NodeService nodeService, IndicesService indicesService, AllocationService allocationService,
                                        ActionFilters actionFilters, IndexNameExpressionResolver indexNameExpressionResolver) {
         super(settings, ClusterStatsAction.NAME, clusterName, threadPool, clusterService, transportService, actionFilters,
                 indexNameExpressionResolver, ClusterStatsRequest::new, ClusterStatsNodeRequest::new, ThreadPool.Names.MANAGEMENT);
         this.nodeService = nodeService;
         this.indicesService = indicesService;
+        this.allocationService = allocationService;
     }
 
     @Override
@@ -111,11 +114,14 @@ public class TransportClusterStatsAction extends TransportNodesAction<ClusterSta
         }
 
         ClusterHealthStatus clusterStatus = null;
+        AllocationStats allocationStats = null;
         if (clusterService.state().nodes().localNodeMaster()) {
             clusterStatus = new ClusterStateHealth(clusterService.state()).getStatus();
+            allocationStats = allocationService.stats();
         }
 
-        return new ClusterStatsNodeResponse(nodeInfo.getNode(), clusterStatus, nodeInfo, nodeStats, shardsStats.toArray(new ShardStats[shardsStats.size()]));
+        return new ClusterStatsNodeResponse(nodeInfo.getNode(), clusterStatus, allocationStats, nodeInfo, nodeStats,
+                shardsStats.toArray(new ShardStats[shardsStats.size()]));
 
     }
 
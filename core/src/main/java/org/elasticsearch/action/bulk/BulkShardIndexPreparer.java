@@ -0,0 +1,224 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.TransportIndexAction;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parses the documents of the index requests of a shard-level bulk request on helper threads, ahead of the thread that
+ * applies the items to the shard in order. Helpers claim items in order, and the applying thread claims the items that
+ * no helper got to yet and parses them itself, so it only ever waits for items that a running helper is parsing. Helpers
+ * stay at most {@link #MAX_ITEMS_AHEAD} items ahead of the applying thread, so that the parsed documents of a large
+ * bulk request are not all held in memory at once.
+ *
+ * Only operations that parsed without a dynamic mappings update are handed out: those remain valid whatever the items
+ * that come before them do to the mappings. Everything else, including parse failures, is left to the regular path.
+ */
+final class BulkShardIndexPreparer implements Runnable {
+
+    /**
+     * The minimum number of index requests each thread should parse for parsing in parallel to be worth it.
+     */
+    static final int MIN_ITEMS_PER_THREAD = 64;
+
+    /**
+     * How many items helpers may parse ahead of the item the applying thread is at.
+     */
+    static final int MAX_ITEMS_AHEAD = 1024;
+
+    private static final int FREE = 0;
+    private static final int CLAIMED = 1;
+    private static final int DONE = 2;
+
+    private final BulkItemRequest[] items;
+    private final IndexShard indexShard;
+    private final AtomicIntegerArray states;
+    private final Engine.Index[] operations;
+    private final AtomicInteger nextItem = new AtomicInteger();
+    private final int maxItemsAhead;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** signalled when a helper is done with an item */
+    private final Condition itemDone = lock.newCondition();
+    /** signalled when the applying thread moves on to the next item, or when the preparer is closed */
+    private final Condition applied = lock.newCondition();
+    private volatile int applyingItem;
+    private volatile boolean closed;
+
+    BulkShardIndexPreparer(BulkItemRequest[] items, IndexShard indexShard) {
+        this(items, indexShard, MAX_ITEMS_AHEAD);
+    }
+
+    BulkShardIndexPreparer(BulkItemRequest[] items, IndexShard indexShard, int maxItemsAhead) {
+        // items of update requests get replaced in the original array once they are translated
+        this.items = items.clone();
+        this.indexShard = indexShard;
+        this.maxItemsAhead = maxItemsAhead;
+        this.states = new AtomicIntegerArray(items.length);
+        this.operations = new Engine.Index[items.length];
+    }
+
+    /**
+     * Starts parsing the index requests of the given items on the given executor if there are enough of them and idle
+     * threads to parse them. Returns <code>null</code> if the items should just be parsed by the calling thread.
+     */
+    static BulkShardIndexPreparer start(BulkItemRequest[] items, IndexShard indexShard, Executor executor, int parallelism) {
+        int numIndexRequests = 0;
+        for (BulkItemRequest item : items) {
+            if (item.request() instanceof IndexRequest) {
+                numIndexRequests++;
+            }
+        }
+        int helpers = Math.min(parallelism, numIndexRequests / MIN_ITEMS_PER_THREAD) - 1;
+        if (executor instanceof ThreadPoolExecutor) {
+            // don't queue helpers behind other bulk requests, they would only take their slots
+            ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+            if (threadPoolExecutor.getQueue().isEmpty() == false) {
+                return null;
+            }
+            helpers = Math.min(helpers, threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount());
+        }
+        if (helpers <= 0) {
+            return null;
+        }
+        BulkShardIndexPreparer preparer = new BulkShardIndexPreparer(items, indexShard);
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(preparer);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread parses what the helpers don't
+                break;
+            }
+        }
+        return preparer;
+    }
+
+    @Override
+    public void run() {
+        for (int i = nextItem.getAndIncrement(); i < items.length && closed == false; i = nextItem.getAndIncrement()) {
+            if (awaitApplyingThread(i) == false) {
+                return;
+            }
+            if (states.compareAndSet(i, FREE, CLAIMED)) {
+                try {
+                    operations[i] = prepare(items[i]);
+                } finally {
+                    states.set(i, DONE);
+                    lock.lock();
+                    try {
+                        itemDone.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the applying thread is close enough to the given item for helpers to parse it. Returns
+     * <code>false</code> if the helper should stop instead.
+     */
+    private boolean awaitApplyingThread(int itemIndex) {
+        if (itemIndex < applyingItem + maxItemsAhead) {
+            return true;
+        }
+        lock.lock();
+        try {
+            while (itemIndex >= applyingItem + maxItemsAhead && closed == false) {
+                applied.await();
+            }
+            return closed == false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Engine.Index prepare(BulkItemRequest item) {
+        if (item.request() instanceof IndexRequest == false) {
+            return null;
+        }
+        try {
+            Engine.Index operation = TransportIndexAction.prepareIndexOperationOnPrimary((IndexRequest) item.request(), indexShard);
+            return operation.parsedDoc().dynamicMappingsUpdate() == null ? operation : null;
+        } catch (Throwable t) {
+            // the applying thread parses the document again and handles the failure
+            return null;
+        }
+    }
+
+    /**
+     * Returns the operation that was prepared for the item at the given index, waiting for it if a helper is parsing it,
+     * or <code>null</code> if the caller needs to prepare it.
+     */
+    Engine.Index operation(int itemIndex) {
+        applyingItem = itemIndex;
+        signalApplied();
+        if (states.compareAndSet(itemIndex, FREE, CLAIMED)) {
+            return null;
+        }
+        if (states.get(itemIndex) != DONE) {
+            lock.lock();
+            try {
+                while (states.get(itemIndex) != DONE) {
+                    itemDone.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+        Engine.Index operation = operations[itemIndex];
+        operations[itemIndex] = null;
+        return operation;
+    }
+
+    /**
+     * Stops the helpers from parsing any further items.
+     */
+    void close() {
+        closed = true;
+        signalApplied();
+    }
+
+    private void signalApplied() {
+        lock.lock();
+        try {
+            applied.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -40,9 +40,11 @@ import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -71,8 +73,16 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
 
     public static final String ACTION_NAME = BulkAction.NAME + "[s]";
 
+    /**
+     * The maximum number of threads, including the one applying the items, that parse the documents of a shard-level bulk
+     * request. Helper threads are only taken from idle bulk threads.
+     */
+    public static final Setting<Integer> PARSE_PARALLELISM_SETTING =
+        Setting.intSetting("action.bulk.shard.parse_parallelism", 4, 1, false, Setting.Scope.CLUSTER);
+
     private final UpdateHelper updateHelper;
     private final boolean allowIdGeneration;
+    private final int parseParallelism;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
@@ -84,6 +94,7 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
                 BulkShardRequest::new, BulkShardRequest::new, ThreadPool.Names.BULK);
         this.updateHelper = updateHelper;
         this.allowIdGeneration = settings.getAsBoolean("action.allow_id_generation", true);
+        this.parseParallelism = PARSE_PARALLELISM_SETTING.get(settings);
     }
 
     @Override
@@ -109,187 +120,197 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
         long[] preVersions = new long[request.items().length];
         VersionType[] preVersionTypes = new VersionType[request.items().length];
         Translog.Location location = null;
-        for (int requestIndex = 0; requestIndex < request.items().length; requestIndex++) {
-            BulkItemRequest item = request.items()[requestIndex];
-            if (item.request() instanceof IndexRequest) {
-                IndexRequest indexRequest = (IndexRequest) item.request();
-                preVersions[requestIndex] = indexRequest.version();
-                preVersionTypes[requestIndex] = indexRequest.versionType();
-                try {
-                    WriteResult<IndexResponse> result = shardIndexOperation(request, indexRequest, metaData, indexShard, true);
-                    location = locationToSync(location, result.location);
-                    // add the response
-                    IndexResponse indexResponse = result.response();
-                    setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(), indexResponse));
-                } catch (Throwable e) {
-                    // rethrow the failure if we are going to retry on primary and let parent failure to handle it
-                    if (retryPrimaryException(e)) {
-                        // restore updated versions...
-                        for (int j = 0; j < requestIndex; j++) {
-                            applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
+        // documents are parsed ahead on idle bulk threads, only applying them to the shard happens serially and in order
+        final BulkShardIndexPreparer preparer = BulkShardIndexPreparer.start(request.items(), indexShard,
+                threadPool.executor(ThreadPool.Names.BULK), parseParallelism);
+        try {
+            for (int requestIndex = 0; requestIndex < request.items().length; requestIndex++) {
+                BulkItemRequest item = request.items()[requestIndex];
+                if (item.request() instanceof IndexRequest) {
+                    IndexRequest indexRequest = (IndexRequest) item.request();
+                    preVersions[requestIndex] = indexRequest.version();
+                    preVersionTypes[requestIndex] = indexRequest.versionType();
+                    try {
+                        Engine.Index operation = preparer == null ? null : preparer.operation(requestIndex);
+                        WriteResult<IndexResponse> result = shardIndexOperation(request, indexRequest, operation, metaData, indexShard, true);
+                        location = locationToSync(location, result.location);
+                        // add the response
+                        IndexResponse indexResponse = result.response();
+                        setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(), indexResponse));
+                    } catch (Throwable e) {
+                        // rethrow the failure if we are going to retry on primary and let parent failure to handle it
+                        if (retryPrimaryException(e)) {
+                            // restore updated versions...
+                            for (int j = 0; j < requestIndex; j++) {
+                                applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
+                            }
+                            throw (ElasticsearchException) e;
                         }
-                        throw (ElasticsearchException) e;
-                    }
-                    if (ExceptionsHelper.status(e) == RestStatus.CONFLICT) {
-                        logger.trace("{} failed to execute bulk item (index) {}", e, request.shardId(), indexRequest);
-                    } else {
-                        logger.debug("{} failed to execute bulk item (index) {}", e, request.shardId(), indexRequest);
-                    }
-                    // if its a conflict failure, and we already executed the request on a primary (and we execute it
-                    // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
-                    // then just use the response we got from the successful execution
-                    if (item.getPrimaryResponse() != null && isConflictException(e)) {
-                        setResponse(item, item.getPrimaryResponse());
-                    } else {
-                        setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(),
-                                new BulkItemResponse.Failure(request.index(), indexRequest.type(), indexRequest.id(), e)));
-                    }
-                }
-            } else if (item.request() instanceof DeleteRequest) {
-                DeleteRequest deleteRequest = (DeleteRequest) item.request();
-                preVersions[requestIndex] = deleteRequest.version();
-                preVersionTypes[requestIndex] = deleteRequest.versionType();
-
-                try {
-                    // add the response
-                    final WriteResult<DeleteResponse> writeResult = TransportDeleteAction.executeDeleteRequestOnPrimary(deleteRequest, indexShard);
-                    DeleteResponse deleteResponse = writeResult.response();
-                    location = locationToSync(location, writeResult.location);
-                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE, deleteResponse));
-                } catch (Throwable e) {
-                    // rethrow the failure if we are going to retry on primary and let parent failure to handle it
-                    if (retryPrimaryException(e)) {
-                        // restore updated versions...
-                        for (int j = 0; j < requestIndex; j++) {
-                            applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
+                        if (ExceptionsHelper.status(e) == RestStatus.CONFLICT) {
+                            logger.trace("{} failed to execute bulk item (index) {}", e, request.shardId(), indexRequest);
+                        } else {
+                            logger.debug("{} failed to execute bulk item (index) {}", e, request.shardId(), indexRequest);
+                        }
+                        // if its a conflict failure, and we already executed the request on a primary (and we execute it
+                        // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
+                        // then just use the response we got from the successful execution
+                        if (item.getPrimaryResponse() != null && isConflictException(e)) {
+                            setResponse(item, item.getPrimaryResponse());
+                        } else {
+                            setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(),
+                                    new BulkItemResponse.Failure(request.index(), indexRequest.type(), indexRequest.id(), e)));
                         }
-                        throw (ElasticsearchException) e;
-                    }
-                    if (ExceptionsHelper.status(e) == RestStatus.CONFLICT) {
-                        logger.trace("{} failed to execute bulk item (delete) {}", e, request.shardId(), deleteRequest);
-                    } else {
-                        logger.debug("{} failed to execute bulk item (delete) {}", e, request.shardId(), deleteRequest);
-                    }
-                    // if its a conflict failure, and we already executed the request on a primary (and we execute it
-                    // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
-                    // then just use the response we got from the successful execution
-                    if (item.getPrimaryResponse() != null && isConflictException(e)) {
-                        setResponse(item, item.getPrimaryResponse());
-                    } else {
-                        setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE,
-                                new BulkItemResponse.Failure(request.index(), deleteRequest.type(), deleteRequest.id(), e)));
                     }
-                }
-            } else if (item.request() instanceof UpdateRequest) {
-                UpdateRequest updateRequest = (UpdateRequest) item.request();
-                preVersions[requestIndex] = updateRequest.version();
-                preVersionTypes[requestIndex] = updateRequest.versionType();
-                //  We need to do the requested retries plus the initial attempt. We don't do < 1+retry_on_conflict because retry_on_conflict may be Integer.MAX_VALUE
-                for (int updateAttemptsCount = 0; updateAttemptsCount <= updateRequest.retryOnConflict(); updateAttemptsCount++) {
-                    UpdateResult updateResult;
+                } else if (item.request() instanceof DeleteRequest) {
+                    DeleteRequest deleteRequest = (DeleteRequest) item.request();
+                    preVersions[requestIndex] = deleteRequest.version();
+                    preVersionTypes[requestIndex] = deleteRequest.versionType();
+
                     try {
-                        updateResult = shardUpdateOperation(metaData, request, updateRequest, indexShard);
-                    } catch (Throwable t) {
-                        updateResult = new UpdateResult(null, null, false, t, null);
-                    }
-                    if (updateResult.success()) {
-                        if (updateResult.writeResult != null) {
-                            location = locationToSync(location, updateResult.writeResult.location);
+                        // add the response
+                        final WriteResult<DeleteResponse> writeResult = TransportDeleteAction.executeDeleteRequestOnPrimary(deleteRequest, indexShard);
+                        DeleteResponse deleteResponse = writeResult.response();
+                        location = locationToSync(location, writeResult.location);
+                        setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE, deleteResponse));
+                    } catch (Throwable e) {
+                        // rethrow the failure if we are going to retry on primary and let parent failure to handle it
+                        if (retryPrimaryException(e)) {
+                            // restore updated versions...
+                            for (int j = 0; j < requestIndex; j++) {
+                                applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
+                            }
+                            throw (ElasticsearchException) e;
                         }
-                        switch (updateResult.result.operation()) {
-                            case UPSERT:
-                            case INDEX:
-                                WriteResult<IndexResponse> result = updateResult.writeResult;
-                                IndexRequest indexRequest = updateResult.request();
-                                BytesReference indexSourceAsBytes = indexRequest.source();
-                                // add the response
-                                IndexResponse indexResponse = result.response();
-                                UpdateResponse updateResponse = new UpdateResponse(indexResponse.getShardInfo(), indexResponse.getShardId(), indexResponse.getType(), indexResponse.getId(), indexResponse.getVersion(), indexResponse.isCreated());
-                                if (updateRequest.fields() != null && updateRequest.fields().length > 0) {
-                                    Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(indexSourceAsBytes, true);
-                                    updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, request.index(), indexResponse.getVersion(), sourceAndContent.v2(), sourceAndContent.v1(), indexSourceAsBytes));
-                                }
-                                item = request.items()[requestIndex] = new BulkItemRequest(request.items()[requestIndex].id(), indexRequest);
-                                setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResponse));
-                                break;
-                            case DELETE:
-                                WriteResult<DeleteResponse> writeResult = updateResult.writeResult;
-                                DeleteResponse response = writeResult.response();
-                                DeleteRequest deleteRequest = updateResult.request();
-                                updateResponse = new UpdateResponse(response.getShardInfo(), response.getShardId(), response.getType(), response.getId(), response.getVersion(), false);
-                                updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, request.index(), response.getVersion(), updateResult.result.updatedSourceAsMap(), updateResult.result.updateSourceContentType(), null));
-                                // Replace the update request to the translated delete request to execute on the replica.
-                                item = request.items()[requestIndex] = new BulkItemRequest(request.items()[requestIndex].id(), deleteRequest);
-                                setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResponse));
-                                break;
-                            case NONE:
-                                setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResult.noopResult));
-                                item.setIgnoreOnReplica(); // no need to go to the replica
-                                break;
+                        if (ExceptionsHelper.status(e) == RestStatus.CONFLICT) {
+                            logger.trace("{} failed to execute bulk item (delete) {}", e, request.shardId(), deleteRequest);
+                        } else {
+                            logger.debug("{} failed to execute bulk item (delete) {}", e, request.shardId(), deleteRequest);
                         }
-                        // NOTE: Breaking out of the retry_on_conflict loop!
-                        break;
-                    } else if (updateResult.failure()) {
-                        Throwable t = updateResult.error;
-                        if (updateResult.retry) {
-                            // updateAttemptCount is 0 based and marks current attempt, if it's equal to retryOnConflict we are going out of the iteration
-                            if (updateAttemptsCount >= updateRequest.retryOnConflict()) {
-                                setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE,
-                                        new BulkItemResponse.Failure(request.index(), updateRequest.type(), updateRequest.id(), t)));
-                            }
+                        // if its a conflict failure, and we already executed the request on a primary (and we execute it
+                        // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
+                        // then just use the response we got from the successful execution
+                        if (item.getPrimaryResponse() != null && isConflictException(e)) {
+                            setResponse(item, item.getPrimaryResponse());
                         } else {
-                            // rethrow the failure if we are going to retry on primary and let parent failure to handle it
-                            if (retryPrimaryException(t)) {
-                                // restore updated versions...
-                                for (int j = 0; j < requestIndex; j++) {
-                                    applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
-                                }
-                                throw (ElasticsearchException) t;
+                            setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE,
+                                    new BulkItemResponse.Failure(request.index(), deleteRequest.type(), deleteRequest.id(), e)));
+                        }
+                    }
+                } else if (item.request() instanceof UpdateRequest) {
+                    UpdateRequest updateRequest = (UpdateRequest) item.request();
+                    preVersions[requestIndex] = updateRequest.version();
+                    preVersionTypes[requestIndex] = updateRequest.versionType();
+                    //  We need to do the requested retries plus the initial attempt. We don't do < 1+retry_on_conflict because retry_on_conflict may be Integer.MAX_VALUE
+                    for (int updateAttemptsCount = 0; updateAttemptsCount <= updateRequest.retryOnConflict(); updateAttemptsCount++) {
+                        UpdateResult updateResult;
+                        try {
+                            updateResult = shardUpdateOperation(metaData, request, updateRequest, indexShard);
+                        } catch (Throwable t) {
+                            updateResult = new UpdateResult(null, null, false, t, null);
+                        }
+                        if (updateResult.success()) {
+                            if (updateResult.writeResult != null) {
+                                location = locationToSync(location, updateResult.writeResult.location);
                             }
-                            // if its a conflict failure, and we already executed the request on a primary (and we execute it
-                            // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
-                            // then just use the response we got from the successful execution
-                            if (item.getPrimaryResponse() != null && isConflictException(t)) {
-                                setResponse(item, item.getPrimaryResponse());
-                            } else if (updateResult.result == null) {
-                                setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, new BulkItemResponse.Failure(request.index(), updateRequest.type(), updateRequest.id(), t)));
-                            } else {
-                                switch (updateResult.result.operation()) {
-                                    case UPSERT:
-                                    case INDEX:
-                                        IndexRequest indexRequest = updateResult.request();
-                                        if (ExceptionsHelper.status(t) == RestStatus.CONFLICT) {
-                                            logger.trace("{} failed to execute bulk item (index) {}", t, request.shardId(), indexRequest);
-                                        } else {
-                                            logger.debug("{} failed to execute bulk item (index) {}", t, request.shardId(), indexRequest);
-                                        }
-                                        setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE,
-                                                new BulkItemResponse.Failure(request.index(), indexRequest.type(), indexRequest.id(), t)));
-                                        break;
-                                    case DELETE:
-                                        DeleteRequest deleteRequest = updateResult.request();
-                                        if (ExceptionsHelper.status(t) == RestStatus.CONFLICT) {
-                                            logger.trace("{} failed to execute bulk item (delete) {}", t, request.shardId(), deleteRequest);
-                                        } else {
-                                            logger.debug("{} failed to execute bulk item (delete) {}", t, request.shardId(), deleteRequest);
-                                        }
-                                        setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE,
-                                                new BulkItemResponse.Failure(request.index(), deleteRequest.type(), deleteRequest.id(), t)));
-                                        break;
-                                }
+                            switch (updateResult.result.operation()) {
+                                case UPSERT:
+                                case INDEX:
+                                    WriteResult<IndexResponse> result = updateResult.writeResult;
+                                    IndexRequest indexRequest = updateResult.request();
+                                    BytesReference indexSourceAsBytes = indexRequest.source();
+                                    // add the response
+                                    IndexResponse indexResponse = result.response();
+                                    UpdateResponse updateResponse = new UpdateResponse(indexResponse.getShardInfo(), indexResponse.getShardId(), indexResponse.getType(), indexResponse.getId(), indexResponse.getVersion(), indexResponse.isCreated());
+                                    if (updateRequest.fields() != null && updateRequest.fields().length > 0) {
+                                        Tuple<XContentType, Map<String, Object>> sourceAndContent = XContentHelper.convertToMap(indexSourceAsBytes, true);
+                                        updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, request.index(), indexResponse.getVersion(), sourceAndContent.v2(), sourceAndContent.v1(), indexSourceAsBytes));
+                                    }
+                                    item = request.items()[requestIndex] = new BulkItemRequest(request.items()[requestIndex].id(), indexRequest);
+                                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResponse));
+                                    break;
+                                case DELETE:
+                                    WriteResult<DeleteResponse> writeResult = updateResult.writeResult;
+                                    DeleteResponse response = writeResult.response();
+                                    DeleteRequest deleteRequest = updateResult.request();
+                                    updateResponse = new UpdateResponse(response.getShardInfo(), response.getShardId(), response.getType(), response.getId(), response.getVersion(), false);
+                                    updateResponse.setGetResult(updateHelper.extractGetResult(updateRequest, request.index(), response.getVersion(), updateResult.result.updatedSourceAsMap(), updateResult.result.updateSourceContentType(), null));
+                                    // Replace the update request to the translated delete request to execute on the replica.
+                                    item = request.items()[requestIndex] = new BulkItemRequest(request.items()[requestIndex].id(), deleteRequest);
+                                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResponse));
+                                    break;
+                                case NONE:
+                                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResult.noopResult));
+                                    item.setIgnoreOnReplica(); // no need to go to the replica
+                                    break;
                             }
                             // NOTE: Breaking out of the retry_on_conflict loop!
                             break;
-                        }
+                        } else if (updateResult.failure()) {
+                            Throwable t = updateResult.error;
+                            if (updateResult.retry) {
+                                // updateAttemptCount is 0 based and marks current attempt, if it's equal to retryOnConflict we are going out of the iteration
+                                if (updateAttemptsCount >= updateRequest.retryOnConflict()) {
+                                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE,
+                                            new BulkItemResponse.Failure(request.index(), updateRequest.type(), updateRequest.id(), t)));
+                                }
+                            } else {
+                                // rethrow the failure if we are going to retry on primary and let parent failure to handle it
+                                if (retryPrimaryException(t)) {
+                                    // restore updated versions...
+                                    for (int j = 0; j < requestIndex; j++) {
+                                        applyVersion(request.items()[j], preVersions[j], preVersionTypes[j]);
+                                    }
+                                    throw (ElasticsearchException) t;
+                                }
+                                // if its a conflict failure, and we already executed the request on a primary (and we execute it
+                                // again, due to primary relocation and only processing up to N bulk items when the shard gets closed)
+                                // then just use the response we got from the successful execution
+                                if (item.getPrimaryResponse() != null && isConflictException(t)) {
+                                    setResponse(item, item.getPrimaryResponse());
+                                } else if (updateResult.result == null) {
+                                    setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, new BulkItemResponse.Failure(request.index(), updateRequest.type(), updateRequest.id(), t)));
+                                } else {
+                                    switch (updateResult.result.operation()) {
+                                        case UPSERT:
+                                        case INDEX:
+                                            IndexRequest indexRequest = updateResult.request();
+                                            if (ExceptionsHelper.status(t) == RestStatus.CONFLICT) {
+                                                logger.trace("{} failed to execute bulk item (index) {}", t, request.shardId(), indexRequest);
+                                            } else {
+                                                logger.debug("{} failed to execute bulk item (index) {}", t, request.shardId(), indexRequest);
+                                            }
+                                            setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE,
+                                                    new BulkItemResponse.Failure(request.index(), indexRequest.type(), indexRequest.id(), t)));
+                                            break;
+                                        case DELETE:
+                                            DeleteRequest deleteRequest = updateResult.request();
+                                            if (ExceptionsHelper.status(t) == RestStatus.CONFLICT) {
+                                                logger.trace("{} failed to execute bulk item (delete) {}", t, request.shardId(), deleteRequest);
+                                            } else {
+                                                logger.debug("{} failed to execute bulk item (delete) {}", t, request.shardId(), deleteRequest);
+                                            }
+                                            setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE,
+                                                    new BulkItemResponse.Failure(request.index(), deleteRequest.type(), deleteRequest.id(), t)));
+                                            break;
+                                    }
+                                }
+                                // NOTE: Breaking out of the retry_on_conflict loop!
+                                break;
+                            }
 
+                        }
                     }
+                } else {
+                    throw new IllegalStateException("Unexpected index operation: " + item.request());
                 }
-            } else {
-                throw new IllegalStateException("Unexpected index operation: " + item.request());
-            }
 
-            assert item.getPrimaryResponse() != null;
-            assert preVersionTypes[requestIndex] != null;
+                assert item.getPrimaryResponse() != null;
+                assert preVersionTypes[requestIndex] != null;
+            }
+        } finally {
+            if (preparer != null) {
+                preparer.close();
+            }
         }
 
         processAfterWrite(request.refresh(), indexShard, location);
@@ -308,8 +329,8 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
         }
     }
 
-    private WriteResult shardIndexOperation(BulkShardRequest request, IndexRequest indexRequest, MetaData metaData,
-                                            IndexShard indexShard, boolean processed) throws Throwable {
+    private WriteResult shardIndexOperation(BulkShardRequest request, IndexRequest indexRequest, @Nullable Engine.Index operation,
+                                            MetaData metaData, IndexShard indexShard, boolean processed) throws Throwable {
 
         // validate, if routing is required, that we got routing
         MappingMetaData mappingMd = metaData.index(request.index()).mappingOrDefault(indexRequest.type());
@@ -322,6 +343,9 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
         if (!processed) {
             indexRequest.process(metaData, mappingMd, allowIdGeneration, request.index());
         }
+        if (operation != null) {
+            return TransportIndexAction.executeIndexRequestOnPrimary(indexRequest, operation, indexShard, mappingUpdatedAction);
+        }
         return TransportIndexAction.executeIndexRequestOnPrimary(indexRequest, indexShard, mappingUpdatedAction);
     }
 
@@ -385,7 +409,7 @@ public class TransportShardBulkAction extends TransportReplicationAction<BulkSha
             case INDEX:
                 IndexRequest indexRequest = translate.action();
                 try {
-                    WriteResult result = shardIndexOperation(bulkShardRequest, indexRequest, metaData, indexShard, false);
+                    WriteResult result = shardIndexOperation(bulkShardRequest, indexRequest, null, metaData, indexShard, false);
                     return new UpdateResult(translate, indexRequest, result);
                 } catch (Throwable t) {
                     t = ExceptionsHelper.unwrapCause(t);
@@ -201,7 +201,15 @@ public class TransportIndexAction extends TransportReplicationAction<IndexReques
      * {@link RetryOnPrimaryException} if the operation needs to be re-tried.
      */
     public static WriteResult<IndexResponse> executeIndexRequestOnPrimary(IndexRequest request, IndexShard indexShard, MappingUpdatedAction mappingUpdatedAction) throws Exception {
-        Engine.Index operation = prepareIndexOperationOnPrimary(request, indexShard);
+        return executeIndexRequestOnPrimary(request, prepareIndexOperationOnPrimary(request, indexShard), indexShard, mappingUpdatedAction);
+    }
+
+    /**
+     * Same as {@link #executeIndexRequestOnPrimary(IndexRequest, IndexShard, MappingUpdatedAction)} but with an operation that
+     * was already prepared with {@link #prepareIndexOperationOnPrimary(IndexRequest, IndexShard)}.
+     */
+    public static WriteResult<IndexResponse> executeIndexRequestOnPrimary(IndexRequest request, Engine.Index operation, IndexShard indexShard,
+                                                                          MappingUpdatedAction mappingUpdatedAction) throws Exception {
         Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
         final ShardId shardId = indexShard.shardId();
         if (update != null) {
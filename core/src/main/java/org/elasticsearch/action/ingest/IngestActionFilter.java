@@ -102,9 +102,10 @@ public final class IngestActionFilter extends AbstractComponent implements Actio
 
     void processBulkIndexRequest(Task task, BulkRequest original, String action, ActionFilterChain chain, ActionListener<BulkResponse> listener) {
         BulkRequestModifier bulkRequestModifier = new BulkRequestModifier(original);
-        executionService.executeBulkRequest(() -> bulkRequestModifier, (indexRequest, throwable) -> {
+        executionService.executeBulkRequest(() -> bulkRequestModifier, (slot, throwable) -> {
+            IndexRequest indexRequest = (IndexRequest) original.requests().get(slot);
             logger.debug("failed to execute pipeline [{}] for document [{}/{}/{}]", throwable, indexRequest.getPipeline(), indexRequest.index(), indexRequest.type(), indexRequest.id());
-            bulkRequestModifier.markCurrentItemAsFailed(throwable);
+            bulkRequestModifier.markItemAsFailed(slot, throwable);
         }, (throwable) -> {
             if (throwable != null) {
                 logger.error("failed to execute pipeline for a bulk request", throwable);
@@ -184,15 +185,18 @@ public final class IngestActionFilter extends AbstractComponent implements Actio
             }
         }
 
-        void markCurrentItemAsFailed(Throwable e) {
-            IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(currentSlot);
+        /**
+         * Marks the request in the given slot as failed. Failures must be marked in slot order.
+         */
+        void markItemAsFailed(int slot, Throwable e) {
+            IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(slot);
             // We hit a error during preprocessing a request, so we:
             // 1) Remember the request item slot from the bulk, so that we're done processing all requests we know what failed
             // 2) Add a bulk item failure for this request
             // 3) Continue with the next request in the bulk.
-            failedSlots.add(currentSlot);
+            failedSlots.add(slot);
             BulkItemResponse.Failure failure = new BulkItemResponse.Failure(indexRequest.index(), indexRequest.type(), indexRequest.id(), e);
-            itemResponses.add(new BulkItemResponse(currentSlot, indexRequest.opType().lowercase(), failure));
+            itemResponses.add(new BulkItemResponse(slot, indexRequest.opType().lowercase(), failure));
         }
 
     }
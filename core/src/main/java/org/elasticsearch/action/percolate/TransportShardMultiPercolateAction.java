@@ -86,23 +86,28 @@ public class TransportShardMultiPercolateAction extends TransportSingleShardActi
 
     @Override
     protected Response shardOperation(Request request, ShardId shardId) {
-        // TODO: Look into combining the shard req's docs into one in memory index.
+        List<PercolateShardRequest> requests = new ArrayList<>(request.items.size());
+        for (Request.Item item : request.items) {
+            requests.add(item.request);
+        }
+        // the documents of all items are percolated together where possible
+        PercolateShardResponse[] responses = new PercolateShardResponse[requests.size()];
+        Throwable[] failures = new Throwable[requests.size()];
+        percolatorService.percolate(requests, responses, failures);
+
         Response response = new Response();
         response.items = new ArrayList<>(request.items.size());
-        for (Request.Item item : request.items) {
-            Response.Item responseItem;
-            int slot = item.slot;
-            try {
-                responseItem = new Response.Item(slot, percolatorService.percolate(item.request));
-            } catch (Throwable t) {
-                if (TransportActions.isShardNotAvailableException(t)) {
-                    throw (ElasticsearchException) t;
-                } else {
-                    logger.debug("{} failed to multi percolate", t, request.shardId());
-                    responseItem = new Response.Item(slot, t);
-                }
+        for (int i = 0; i < request.items.size(); i++) {
+            int slot = request.items.get(i).slot;
+            Throwable t = failures[i];
+            if (t == null) {
+                response.items.add(new Response.Item(slot, responses[i]));
+            } else if (TransportActions.isShardNotAvailableException(t)) {
+                throw (ElasticsearchException) t;
+            } else {
+                logger.debug("{} failed to multi percolate", t, request.shardId());
+                response.items.add(new Response.Item(slot, t));
             }
-            response.items.add(responseItem);
         }
         return response;
     }
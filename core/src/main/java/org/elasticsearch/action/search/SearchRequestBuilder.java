@@ -362,6 +362,15 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Controls if the total number of hits must be counted accurately. When set to <tt>false</tt>, requests that
+     * sort in index order stop collecting once enough hits have been found. Defaults to <tt>true</tt>.
+     */
+    public SearchRequestBuilder setTrackTotalHits(boolean trackTotalHits) {
+        sourceBuilder().trackTotalHits(trackTotalHits);
+        return this;
+    }
+
     /**
      * Sets the fields to load and return as part of the search request. If none
      * are specified, the source of the document will be returned.
@@ -72,12 +72,14 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
         final AtomicArray<QuerySearchResult> queryResults;
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final SearchPhaseController.QueryResultConsumer queryResultConsumer;
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
             queryResults = new AtomicArray<>(firstResults.length());
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            queryResultConsumer = searchPhaseController.newQueryResultConsumer(firstResults.length());
         }
 
         @Override
@@ -107,6 +109,9 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
                 @Override
                 public void onResponse(QuerySearchResult result) {
                     result.shardTarget(dfsResult.shardTarget());
+                    if (queryResultConsumer != null) {
+                        queryResultConsumer.consume(result);
+                    }
                     queryResults.set(shardIndex, result);
                     if (counter.decrementAndGet() == 0) {
                         executeFetchPhase();
@@ -211,7 +216,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
                 @Override
                 public void doRun() throws IOException {
                     final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults,
-                            fetchResults);
+                            fetchResults, queryResultConsumer);
                     String scrollId = null;
                     if (request.scroll() != null) {
                         scrollId = TransportSearchHelper.buildScrollId(request.searchType(), firstResults, null);
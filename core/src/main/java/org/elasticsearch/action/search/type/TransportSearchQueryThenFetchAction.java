@@ -67,11 +67,13 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final SearchPhaseController.QueryResultConsumer queryResultConsumer;
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            queryResultConsumer = searchPhaseController.newQueryResultConsumer(firstResults.length());
         }
 
         @Override
@@ -81,7 +83,22 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
         @Override
         protected void sendExecuteFirstPhase(DiscoveryNode node, ShardSearchTransportRequest request, ActionListener<QuerySearchResultProvider> listener) {
-            searchService.sendExecuteQuery(node, request, listener);
+            if (queryResultConsumer == null) {
+                searchService.sendExecuteQuery(node, request, listener);
+            } else {
+                searchService.sendExecuteQuery(node, request, new ActionListener<QuerySearchResultProvider>() {
+                    @Override
+                    public void onResponse(QuerySearchResultProvider result) {
+                        queryResultConsumer.consume(result.queryResult());
+                        listener.onResponse(result);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        listener.onFailure(t);
+                    }
+                });
+            }
         }
 
         @Override
@@ -146,7 +163,7 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
                 @Override
                 public void doRun() throws IOException {
                     final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, firstResults,
-                            fetchResults);
+                            fetchResults, queryResultConsumer);
                     String scrollId = null;
                     if (request.scroll() != null) {
                         scrollId = TransportSearchHelper.buildScrollId(request.searchType(), firstResults, null);
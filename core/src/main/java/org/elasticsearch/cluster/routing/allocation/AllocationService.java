@@ -42,6 +42,8 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 
 import java.util.ArrayList;
@@ -50,6 +52,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -66,6 +69,11 @@ public class AllocationService extends AbstractComponent {
     private final ClusterInfoService clusterInfoService;
     private final ShardsAllocators shardsAllocators;
 
+    private final MeanMetric rerouteMetric = new MeanMetric();
+    private final CounterMetric allocateUnassignedTime = new CounterMetric();
+    private final CounterMetric moveTime = new CounterMetric();
+    private final CounterMetric rebalanceTime = new CounterMetric();
+
     @Inject
     public AllocationService(Settings settings, AllocationDeciders allocationDeciders, ShardsAllocators shardsAllocators, ClusterInfoService clusterInfoService) {
         super(settings);
@@ -291,6 +299,7 @@ public class AllocationService extends AbstractComponent {
     }
 
     private boolean reroute(RoutingAllocation allocation) {
+        final long startTime = System.nanoTime();
         boolean changed = false;
         // first, clear from the shards any node id they used to belong to that is now dead
         changed |= deassociateDeadNodes(allocation);
@@ -306,18 +315,35 @@ public class AllocationService extends AbstractComponent {
         if (allocation.routingNodes().unassigned().size() > 0) {
             updateLeftDelayOfUnassignedShards(allocation, settings);
 
+            final long allocateStartTime = System.nanoTime();
             changed |= shardsAllocators.allocateUnassigned(allocation);
+            allocateUnassignedTime.inc(System.nanoTime() - allocateStartTime);
         }
 
         // move shards that no longer can be allocated
+        final long moveStartTime = System.nanoTime();
         changed |= moveShards(allocation);
+        moveTime.inc(System.nanoTime() - moveStartTime);
 
         // rebalance
+        final long rebalanceStartTime = System.nanoTime();
         changed |= shardsAllocators.rebalance(allocation);
+        rebalanceTime.inc(System.nanoTime() - rebalanceStartTime);
         assert RoutingNodes.assertShardStats(allocation.routingNodes());
+        rerouteMetric.inc(System.nanoTime() - startTime);
         return changed;
     }
 
+    /**
+     * Returns statistics about the allocation rounds executed by this service. Only the elected master executes
+     * allocation rounds, so these are only meaningful on master nodes.
+     */
+    public AllocationStats stats() {
+        return new AllocationStats(rerouteMetric.count(), TimeUnit.NANOSECONDS.toMillis(rerouteMetric.sum()),
+                TimeUnit.NANOSECONDS.toMillis(allocateUnassignedTime.count()), TimeUnit.NANOSECONDS.toMillis(moveTime.count()),
+                TimeUnit.NANOSECONDS.toMillis(rebalanceTime.count()));
+    }
+
     // public for testing
     public static void updateLeftDelayOfUnassignedShards(RoutingAllocation allocation, Settings settings) {
         for (ShardRouting shardRouting : allocation.routingNodes().unassigned()) {
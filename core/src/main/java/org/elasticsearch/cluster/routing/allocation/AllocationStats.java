@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the allocation rounds (reroutes) executed by the {@link AllocationService} of the elected master,
+ * broken down into the time spent allocating unassigned shards, moving shards that can no longer remain on their
+ * node and rebalancing the cluster.
+ */
+public class AllocationStats implements Streamable, ToXContent {
+
+    private long total;
+    private long totalTimeInMillis;
+    private long allocateUnassignedTimeInMillis;
+    private long moveTimeInMillis;
+    private long rebalanceTimeInMillis;
+
+    public AllocationStats() {
+    }
+
+    public AllocationStats(long total, long totalTimeInMillis, long allocateUnassignedTimeInMillis, long moveTimeInMillis,
+                           long rebalanceTimeInMillis) {
+        this.total = total;
+        this.totalTimeInMillis = totalTimeInMillis;
+        this.allocateUnassignedTimeInMillis = allocateUnassignedTimeInMillis;
+        this.moveTimeInMillis = moveTimeInMillis;
+        this.rebalanceTimeInMillis = rebalanceTimeInMillis;
+    }
+
+    /**
+     * The total number of allocation rounds executed.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * The total time spent in allocation rounds.
+     */
+    public TimeValue getTotalTime() {
+        return new TimeValue(totalTimeInMillis);
+    }
+
+    /**
+     * The total time spent allocating unassigned shards.
+     */
+    public TimeValue getAllocateUnassignedTime() {
+        return new TimeValue(allocateUnassignedTimeInMillis);
+    }
+
+    /**
+     * The total time spent moving shards away from nodes they can no longer remain on.
+     */
+    public TimeValue getMoveTime() {
+        return new TimeValue(moveTimeInMillis);
+    }
+
+    /**
+     * The total time spent rebalancing shards.
+     */
+    public TimeValue getRebalanceTime() {
+        return new TimeValue(rebalanceTimeInMillis);
+    }
+
+    public static AllocationStats readAllocationStats(StreamInput in) throws IOException {
+        AllocationStats stats = new AllocationStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        total = in.readVLong();
+        totalTimeInMillis = in.readVLong();
+        allocateUnassignedTimeInMillis = in.readVLong();
+        moveTimeInMillis = in.readVLong();
+        rebalanceTimeInMillis = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(total);
+        out.writeVLong(totalTimeInMillis);
+        out.writeVLong(allocateUnassignedTimeInMillis);
+        out.writeVLong(moveTimeInMillis);
+        out.writeVLong(rebalanceTimeInMillis);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.ALLOCATION);
+        builder.field(Fields.TOTAL, total);
+        builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, totalTimeInMillis);
+        builder.timeValueField(Fields.ALLOCATE_UNASSIGNED_TIME_IN_MILLIS, Fields.ALLOCATE_UNASSIGNED_TIME, allocateUnassignedTimeInMillis);
+        builder.timeValueField(Fields.MOVE_TIME_IN_MILLIS, Fields.MOVE_TIME, moveTimeInMillis);
+        builder.timeValueField(Fields.REBALANCE_TIME_IN_MILLIS, Fields.REBALANCE_TIME, rebalanceTimeInMillis);
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ALLOCATION = new XContentBuilderString("allocation");
+        static final XContentBuilderString TOTAL = new XContentBuilderString("total");
+        static final XContentBuilderString TOTAL_TIME = new XContentBuilderString("total_time");
+        static final XContentBuilderString TOTAL_TIME_IN_MILLIS = new XContentBuilderString("total_time_in_millis");
+        static final XContentBuilderString ALLOCATE_UNASSIGNED_TIME = new XContentBuilderString("allocate_unassigned_time");
+        static final XContentBuilderString ALLOCATE_UNASSIGNED_TIME_IN_MILLIS =
+                new XContentBuilderString("allocate_unassigned_time_in_millis");
+        static final XContentBuilderString MOVE_TIME = new XContentBuilderString("move_time");
+        static final XContentBuilderString MOVE_TIME_IN_MILLIS = new XContentBuilderString("move_time_in_millis");
+        static final XContentBuilderString REBALANCE_TIME = new XContentBuilderString("rebalance_time");
+        static final XContentBuilderString REBALANCE_TIME_IN_MILLIS = new XContentBuilderString("rebalance_time_in_millis");
+    }
+}
@@ -201,8 +201,16 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         }
 
         private float weight(Balancer balancer, ModelNode node, String index, int numAdditionalShards) {
-            final float weightShard = (node.numShards() + numAdditionalShards - balancer.avgShardsPerNode());
-            final float weightIndex = (node.numShards(index) + numAdditionalShards - balancer.avgShardsPerNode(index));
+            return weight(balancer.avgShardsPerNode(), balancer.avgShardsPerNode(index), node, index, numAdditionalShards);
+        }
+
+        /**
+         * Calculates the weight based on pre-computed averages, this avoids looking up the index
+         * metadata for every node when the weights of many nodes are calculated for the same index.
+         */
+        float weight(float avgShardsPerNode, float avgShardsPerNodeForIndex, ModelNode node, String index, int numAdditionalShards) {
+            final float weightShard = (node.numShards() + numAdditionalShards - avgShardsPerNode);
+            final float weightIndex = (node.numShards(index) + numAdditionalShards - avgShardsPerNodeForIndex);
             return theta0 * weightShard + theta1 * weightIndex;
         }
 
@@ -398,14 +406,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                                 /* pass the delta to the replication function to prevent relocations that only swap the weights of the two nodes.
                                  * a relocation must bring us closer to the balance if we only achieve the same delta the relocation is useless */
                                 if (tryRelocateShard(minNode, maxNode, index, delta)) {
-                                    /*
-                                     * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                                     * we could just find the place to insert linearly but the win might be minor
-                                     * compared to the added complexity
-                                     */
-                                    weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
-                                    weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                                    sorter.sort(0, relevantNodes);
+                                    /* only the weights of the two nodes involved in the relocation changed, the
+                                     * rest of the nodes are still sorted so we just move these two into place
+                                     * instead of recomputing the weights and sorting all relevant nodes again */
+                                    sorter.update(lowIdx, highIdx, 0, relevantNodes);
                                     lowIdx = 0;
                                     highIdx = relevantNodes - 1;
                                     changed = true;
@@ -452,8 +456,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             final String[] indices = this.indices.toArray(new String[this.indices.size()]);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -951,6 +954,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private String index;
         private final Balancer balancer;
         private float pivotWeight;
+        private float avgShardsPerNodeForIndex;
 
         public NodeSorter(ModelNode[] modelNodes, WeightFunction function, Balancer balancer) {
             this.function = function;
@@ -964,7 +968,7 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
          * nodes by weight, with minimal weight first.
          */
         public void reset(String index, int from, int to) {
-            this.index = index;
+            setIndex(index);
             for (int i = from; i < to; i++) {
                 weights[i] = weight(modelNodes[i]);
             }
@@ -975,8 +979,43 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             reset(index, 0, modelNodes.length);
         }
 
+        private void setIndex(String index) {
+            this.index = index;
+            this.avgShardsPerNodeForIndex = balancer.avgShardsPerNode(index);
+        }
+
         public float weight(ModelNode node) {
-            return function.weight(balancer, node, index);
+            return function.weight(balancer.avgShardsPerNode(), avgShardsPerNodeForIndex, node, index, 0);
+        }
+
+        /**
+         * Recalculates the weights of the nodes at the given positions after a shard has been relocated between them
+         * and moves both nodes to their place within the already sorted range <code>[from, to)</code>. This is linear in
+         * the size of the range rather than re-sorting it entirely.
+         */
+        public void update(int first, int second, int from, int to) {
+            weights[first] = weight(modelNodes[first]);
+            final int newFirst = siftIntoPlace(first, from, to);
+            // moving the first node shifts all nodes it passed by one position
+            if (first < second && second <= newFirst) {
+                second--;
+            } else if (newFirst <= second && second < first) {
+                second++;
+            }
+            weights[second] = weight(modelNodes[second]);
+            siftIntoPlace(second, from, to);
+        }
+
+        private int siftIntoPlace(int i, int from, int to) {
+            while (i > from && weights[i] < weights[i - 1]) {
+                swap(i, i - 1);
+                i--;
+            }
+            while (i < to - 1 && weights[i] > weights[i + 1]) {
+                swap(i, i + 1);
+                i++;
+            }
+            return i;
         }
 
         @Override
@@ -1007,5 +1046,22 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         public float delta() {
             return weights[weights.length - 1] - weights[0];
         }
+
+        /**
+         * Returns the delta between the highest and the lowest weight of all nodes with respect to the given index.
+         * Unlike {@link #reset(String)} followed by {@link #delta()} this doesn't need to sort the nodes.
+         */
+        public float delta(String index) {
+            setIndex(index);
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < modelNodes.length; i++) {
+                final float weight = weight(modelNodes[i]);
+                weights[i] = weight;
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            return max - min;
+        }
     }
 }
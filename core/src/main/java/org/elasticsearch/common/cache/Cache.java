@@ -29,11 +29,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.ToLongBiFunction;
 
 /**
@@ -61,6 +64,13 @@ import java.util.function.ToLongBiFunction;
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
+ * <p>
+ * Caches that are read from by many threads at once can opt into buffered promotions (see
+ * {@link CacheBuilder#setBufferedPromotions(boolean)}). Cache hits then record the entry in one of several striped,
+ * bounded read buffers instead of taking the LRU lock, and the buffers are drained into the LRU list by whichever
+ * thread next holds the lock (a writer, {@link #refresh()}, or a reader that finds the lock free once its buffer fills
+ * up). Hits never block on the LRU lock, at the price of an approximate LRU order: promotions are applied late, and
+ * dropped when a buffer is full. Access times used for expiration are still updated on every hit.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -94,6 +104,9 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // true if promotions of cache hits are buffered rather than applied to the LRU list under the LRU lock
+    private boolean bufferedPromotions = false;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -131,6 +144,10 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setBufferedPromotions(boolean bufferedPromotions) {
+        this.bufferedPromotions = bufferedPromotions;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -310,6 +327,79 @@ public class Cache<K, V> {
     // lock protecting mutations to the LRU list
     private ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    /**
+     * A bounded, lossy buffer of entries that were hit and are waiting to be promoted in the LRU list.
+     * <p>
+     * Any number of threads can offer entries to the buffer, but it is only drained while holding the LRU lock.
+     * Offers are dropped once the buffer is full.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    static final class ReadBuffer<K, V> {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+        // the number of pending promotions at which a reader tries to drain the buffers
+        static final int DRAIN_THRESHOLD = SIZE / 2;
+
+        private final AtomicReferenceArray<Entry<K, V>> buffer = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        // only written while holding the LRU lock
+        private volatile long readCounter = 0;
+
+        /**
+         * Offer an entry for promotion.
+         *
+         * @param entry the entry that was hit
+         * @return true if enough promotions are pending that the buffers should be drained
+         */
+        boolean offer(Entry<K, V> entry) {
+            final long read = readCounter;
+            final long write = writeCounter.get();
+            final long pending = write - read;
+            if (pending >= SIZE) {
+                // the buffer is full, drop this promotion
+                return true;
+            }
+            if (writeCounter.compareAndSet(write, write + 1)) {
+                buffer.lazySet((int) (write & MASK), entry);
+            }
+            return pending + 1 >= DRAIN_THRESHOLD;
+        }
+
+        /**
+         * Drain all published entries of the buffer.
+         *
+         * @param consumer the consumer of the buffered entries
+         */
+        void drain(Consumer<Entry<K, V>> consumer) {
+            long read = readCounter;
+            final long write = writeCounter.get();
+            for (; read < write; read++) {
+                final int index = (int) (read & MASK);
+                final Entry<K, V> entry = buffer.get(index);
+                if (entry == null) {
+                    // the offering thread has not published its entry yet, it will be picked up by the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(entry);
+            }
+            readCounter = read;
+        }
+    }
+
+    private static final int NUMBER_OF_READ_BUFFERS =
+        Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    @SuppressWarnings("unchecked") private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -325,12 +415,58 @@ public class Cache<K, V> {
         Entry<K, V> entry = segment.get(key, now);
         if (entry == null || isExpired(entry, now)) {
             return null;
+        } else if (bufferedPromotions) {
+            bufferPromotion(entry, now);
+            return entry.value;
         } else {
             promote(entry, now);
             return entry.value;
         }
     }
 
+    private void bufferPromotion(Entry<K, V> entry, long now) {
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (NUMBER_OF_READ_BUFFERS - 1)];
+        if (buffer.offer(entry)) {
+            // never wait for the LRU lock on a cache hit; if another thread holds it, it will drain the buffers
+            ReleasableLock lock = lruLock.tryAcquire();
+            if (lock != null) {
+                try {
+                    drainReadBuffers();
+                    evict(now);
+                } finally {
+                    lock.close();
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        if (bufferedPromotions) {
+            for (ReadBuffer<K, V> buffer : readBuffers) {
+                buffer.drain(this::applyPromotion);
+            }
+        }
+    }
+
+    private boolean applyPromotion(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        switch (entry.state) {
+            case DELETED:
+                return false;
+            case EXISTING:
+                relinkAtHead(entry);
+                return true;
+            case NEW:
+                linkAtHead(entry);
+                return true;
+            default:
+                throw new IllegalStateException("unexpected entry state [" + entry.state + "]");
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -466,6 +602,8 @@ public class Cache<K, V> {
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
+                // release the references held by pending promotions, these entries are all deleted below
+                drainReadBuffers();
                 h = head;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
                 Entry<K, V> current = head;
@@ -496,6 +634,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             evict(now);
         }
     }
@@ -646,19 +785,11 @@ public class Cache<K, V> {
     }
 
     private boolean promote(Entry<K, V> entry, long now) {
-        boolean promoted = true;
+        boolean promoted;
         try (ReleasableLock ignored = lruLock.acquire()) {
-            switch (entry.state) {
-                case DELETED:
-                    promoted = false;
-                    break;
-                case EXISTING:
-                    relinkAtHead(entry);
-                    break;
-                case NEW:
-                    linkAtHead(entry);
-                    break;
-            }
+            // apply pending promotions first so that they do not reorder this entry behind older hits
+            drainReadBuffers();
+            promoted = applyPromotion(entry);
             if (promoted) {
                 evict(now);
             }
@@ -28,6 +28,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWrite = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean bufferedPromotions = false;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -72,6 +73,15 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Buffer the LRU promotions of cache hits instead of applying them under the global LRU lock. This removes lock
+     * contention from the read path of caches with many concurrent readers, at the price of an approximate LRU order.
+     */
+    public CacheBuilder<K, V> setBufferedPromotions(boolean bufferedPromotions) {
+        this.bufferedPromotions = bufferedPromotions;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache();
         if (maximumWeight != -1) {
@@ -89,6 +99,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (bufferedPromotions) {
+            cache.setBufferedPromotions(true);
+        }
         return cache;
     }
 }
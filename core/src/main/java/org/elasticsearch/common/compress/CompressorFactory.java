@@ -23,6 +23,7 @@ import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.deflate.DeflateCompressor;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -31,17 +32,22 @@ import org.elasticsearch.common.xcontent.XContentType;
 import org.jboss.netty.buffer.ChannelBuffer;
 
 import java.io.IOException;
+import java.util.Locale;
 
 /**
  */
 public class CompressorFactory {
 
+    private static final Compressor DEFLATE = new DeflateCompressor();
+    private static final Compressor LZ4 = new LZ4Compressor();
+
     private static final Compressor[] compressors;
     private static volatile Compressor defaultCompressor;
 
     static {
         compressors = new Compressor[] {
-                new DeflateCompressor()
+                DEFLATE,
+                LZ4
         };
         defaultCompressor = new DeflateCompressor();
     }
@@ -54,6 +60,20 @@ public class CompressorFactory {
         return defaultCompressor;
     }
 
+    /**
+     * Returns the compressor registered under the given type, either <code>deflate</code> or <code>lz4</code>.
+     */
+    public static Compressor compressorForType(String type) {
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "deflate":
+                return DEFLATE;
+            case "lz4":
+                return LZ4;
+            default:
+                throw new IllegalArgumentException("unknown compression type [" + type + "], must be one of [deflate, lz4]");
+        }
+    }
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
@@ -0,0 +1,269 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedIndexInput;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm. It trades compression ratio for
+ * speed and is meant for transport traffic where deflate costs too much CPU.
+ * <p>
+ * The stream is a sequence of blocks of at most {@link #BLOCK_SIZE} uncompressed bytes, each prefixed with its
+ * uncompressed length as a vint, and terminated by a block length of 0. Blocks are compressed with the LZ4
+ * implementation of Lucene's {@link CompressionMode#FAST}.
+ */
+public class LZ4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams
+    // It needs to be different from other compressors and to not be specific
+    // enough so that no stream starting with these bytes could be detected as
+    // a XContent
+    private static final byte[] HEADER = new byte[] { 'L', 'Z', '4', '\0' };
+    static final int BLOCK_SIZE = 1 << 16;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isCompressed(ChannelBuffer buffer) {
+        if (buffer.readableBytes() < HEADER.length) {
+            return false;
+        }
+        final int offset = buffer.readerIndex();
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (buffer.getByte(offset + i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new LZ4InputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new LZ4OutputStream(out));
+    }
+
+    @Override
+    public boolean isCompressed(IndexInput in) throws IOException {
+        return false;
+    }
+
+    @Override
+    public CompressedIndexInput indexInput(IndexInput in) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    private static final class LZ4OutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final org.apache.lucene.codecs.compressing.Compressor compressor = CompressionMode.FAST.newCompressor();
+        private final DataOutput dataOutput;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private int position;
+        private boolean closed;
+
+        LZ4OutputStream(StreamOutput out) {
+            this.out = out;
+            this.dataOutput = new DataOutput() {
+                @Override
+                public void writeByte(byte b) throws IOException {
+                    out.writeByte(b);
+                }
+
+                @Override
+                public void writeBytes(byte[] b, int offset, int length) throws IOException {
+                    out.writeBytes(b, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position == buffer.length) {
+                writeBlock();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (position == buffer.length) {
+                    writeBlock();
+                }
+                final int chunk = Math.min(len, buffer.length - position);
+                System.arraycopy(b, off, buffer, position, chunk);
+                position += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (position > 0) {
+                out.writeVInt(position);
+                compressor.compress(buffer, 0, position, dataOutput);
+                position = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    writeBlock();
+                    out.writeVInt(0);
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+
+    private static final class LZ4InputStream extends InputStream {
+
+        private final StreamInput in;
+        private final Decompressor decompressor = CompressionMode.FAST.newDecompressor();
+        private final DataInput dataInput;
+        private final BytesRef block = new BytesRef();
+        private int position;
+        private boolean eof;
+
+        LZ4InputStream(StreamInput in) {
+            this.in = in;
+            this.dataInput = new DataInput() {
+                @Override
+                public byte readByte() throws IOException {
+                    return in.readByte();
+                }
+
+                @Override
+                public void readBytes(byte[] b, int offset, int len) throws IOException {
+                    in.readBytes(b, offset, len);
+                }
+            };
+        }
+
+        /**
+         * Decompresses the next block, returns <code>false</code> once the end of the stream was reached.
+         */
+        private boolean readBlock() throws IOException {
+            if (eof) {
+                return false;
+            }
+            final int length = in.readVInt();
+            if (length == 0) {
+                eof = true;
+                return false;
+            }
+            if (length > BLOCK_SIZE) {
+                throw new IllegalStateException("LZ4 block of [" + length + "] bytes exceeds the maximum block size [" + BLOCK_SIZE + "]");
+            }
+            decompressor.decompress(dataInput, length, 0, length, block);
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == block.length && readBlock() == false) {
+                return -1;
+            }
+            return block.bytes[block.offset + position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == block.length && readBlock() == false) {
+                return -1;
+            }
+            final int read = Math.min(len, block.length - position);
+            System.arraycopy(block.bytes, block.offset + position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return block.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets with exponentially growing bounds: the first bucket holds the durations under a
+ * millisecond and each following bucket the durations under twice the upper bound of the previous one. The last
+ * bucket also holds all longer durations.
+ */
+public class HistogramMetric implements Metric {
+
+    public static final int NUM_BUCKETS = 32;
+
+    private final LongAdder[] counts = new LongAdder[NUM_BUCKETS];
+
+    public HistogramMetric() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void inc(long nanos) {
+        counts[bucket(nanos)].increment();
+    }
+
+    /**
+     * @return the number of durations per bucket
+     */
+    public long[] counts() {
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+    }
+
+    static int bucket(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis <= 0) {
+            return 0;
+        }
+        // a duration of [2^(n-1), 2^n) milliseconds goes into bucket n
+        return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * @return the exclusive upper bound in milliseconds of the durations in the given bucket
+     */
+    public static long upperBoundInMillis(int bucket) {
+        return 1L << bucket;
+    }
+}
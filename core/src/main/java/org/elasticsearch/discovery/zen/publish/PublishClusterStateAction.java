@@ -37,6 +37,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.discovery.AckClusterStatePublishResponseHandler;
 import org.elasticsearch.discovery.BlockingClusterStatePublishResponseHandler;
 import org.elasticsearch.discovery.Discovery;
@@ -55,11 +56,14 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -81,16 +85,18 @@ public class PublishClusterStateAction extends AbstractComponent {
     }
 
     private final TransportService transportService;
+    private final ThreadPool threadPool;
     private final DiscoveryNodesProvider nodesProvider;
     private final NewPendingClusterStateListener newPendingClusterStatelistener;
     private final DiscoverySettings discoverySettings;
     private final ClusterName clusterName;
     private final PendingClusterStatesQueue pendingStatesQueue;
 
-    public PublishClusterStateAction(Settings settings, TransportService transportService, DiscoveryNodesProvider nodesProvider,
+    public PublishClusterStateAction(Settings settings, TransportService transportService, ThreadPool threadPool, DiscoveryNodesProvider nodesProvider,
                                      NewPendingClusterStateListener listener, DiscoverySettings discoverySettings, ClusterName clusterName) {
         super(settings);
         this.transportService = transportService;
+        this.threadPool = threadPool;
         this.nodesProvider = nodesProvider;
         this.newPendingClusterStatelistener = listener;
         this.discoverySettings = discoverySettings;
@@ -120,8 +126,8 @@ public class PublishClusterStateAction extends AbstractComponent {
         final DiscoveryNodes nodes;
         final SendingController sendingController;
         final Set<DiscoveryNode> nodesToPublishTo;
-        final Map<Version, BytesReference> serializedStates;
-        final Map<Version, BytesReference> serializedDiffs;
+        final ConcurrentMap<Version, BytesReference> serializedStates;
+        final ConcurrentMap<Version, BytesReference> serializedDiffs;
         final boolean sendFullVersion;
         try {
             nodes = clusterChangedEvent.state().nodes();
@@ -134,8 +140,9 @@ public class PublishClusterStateAction extends AbstractComponent {
                 }
             }
             sendFullVersion = !discoverySettings.getPublishDiff() || clusterChangedEvent.previousState() == null;
-            serializedStates = new HashMap<>();
-            serializedDiffs = new HashMap<>();
+            // the serialized states are shared with the transport threads that resend a full state if a diff can't be applied
+            serializedStates = new ConcurrentHashMap<>();
+            serializedDiffs = new ConcurrentHashMap<>();
 
             // we build these early as a best effort not to commit in the case of error.
             // sadly this is not water tight as it may that a failed diff based publishing to a node
@@ -167,7 +174,7 @@ public class PublishClusterStateAction extends AbstractComponent {
 
     private void innerPublish(final ClusterChangedEvent clusterChangedEvent, final Set<DiscoveryNode> nodesToPublishTo,
                               final SendingController sendingController, final boolean sendFullVersion,
-                              final Map<Version, BytesReference> serializedStates, final Map<Version, BytesReference> serializedDiffs) {
+                              final ConcurrentMap<Version, BytesReference> serializedStates, final Map<Version, BytesReference> serializedDiffs) {
 
         final ClusterState clusterState = clusterChangedEvent.state();
         final ClusterState previousState = clusterChangedEvent.previousState();
@@ -207,36 +214,68 @@ public class PublishClusterStateAction extends AbstractComponent {
 
     private void buildDiffAndSerializeStates(ClusterState clusterState, ClusterState previousState, Set<DiscoveryNode> nodesToPublishTo,
                                              boolean sendFullVersion, Map<Version, BytesReference> serializedStates, Map<Version, BytesReference> serializedDiffs) {
-        Diff<ClusterState> diff = null;
+        final Set<Version> fullVersions = new HashSet<>();
+        final Set<Version> diffVersions = new HashSet<>();
         for (final DiscoveryNode node : nodesToPublishTo) {
+            if (sendFullVersion || !previousState.nodes().nodeExists(node.id())) {
+                // will send a full reference
+                fullVersions.add(node.version());
+            } else {
+                // will send a diff
+                diffVersions.add(node.version());
+            }
+        }
+        final Diff<ClusterState> diff = diffVersions.isEmpty() ? null : clusterState.diff(previousState);
+        final List<SerializeTask> tasks = new ArrayList<>(fullVersions.size() + diffVersions.size());
+        for (Version version : fullVersions) {
+            tasks.add(new SerializeTask(version, () -> serializeFullClusterState(clusterState, version)));
+        }
+        for (Version version : diffVersions) {
+            tasks.add(new SerializeTask(version, () -> serializeDiffClusterState(diff, version)));
+        }
+        serialize(tasks);
+        for (int i = 0; i < tasks.size(); i++) {
+            final SerializeTask task = tasks.get(i);
+            (i < fullVersions.size() ? serializedStates : serializedDiffs).put(task.version, task.bytes);
+        }
+    }
+
+    /**
+     * Serializes and compresses the given tasks. If nodes of several versions (or nodes that need a full state and
+     * nodes that can apply a diff) are part of the cluster, every serialization but the first is forked to the generic
+     * thread pool so that they are compressed in parallel. The calling thread executes the first serialization and any
+     * forked serialization that didn't start yet, so it never waits on an idle or saturated thread pool.
+     */
+    private void serialize(List<SerializeTask> tasks) {
+        for (int i = 1; i < tasks.size(); i++) {
             try {
-                if (sendFullVersion || !previousState.nodes().nodeExists(node.id())) {
-                    // will send a full reference
-                    if (serializedStates.containsKey(node.version()) == false) {
-                        serializedStates.put(node.version(), serializeFullClusterState(clusterState, node.version()));
-                    }
-                } else {
-                    // will send a diff
-                    if (diff == null) {
-                        diff = clusterState.diff(previousState);
-                    }
-                    if (serializedDiffs.containsKey(node.version()) == false) {
-                        serializedDiffs.put(node.version(), serializeDiffClusterState(diff, node.version()));
-                    }
-                }
-            } catch (IOException e) {
-                throw new ElasticsearchException("failed to serialize cluster_state for publishing to node {}", e, node);
+                threadPool.generic().execute(tasks.get(i));
+            } catch (EsRejectedExecutionException e) {
+                // the task is executed by the calling thread below
             }
         }
+        for (SerializeTask task : tasks) {
+            task.run();
+        }
+        for (SerializeTask task : tasks) {
+            task.awaitCompletion();
+        }
     }
 
-    private void sendFullClusterState(ClusterState clusterState, Map<Version, BytesReference> serializedStates,
+    private void sendFullClusterState(ClusterState clusterState, ConcurrentMap<Version, BytesReference> serializedStates,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
         BytesReference bytes = serializedStates.get(node.version());
         if (bytes == null) {
             try {
-                bytes = serializeFullClusterState(clusterState, node.version());
-                serializedStates.put(node.version(), bytes);
+                // several nodes may fail to apply the diff concurrently, the first one serializes the full state for their
+                // version while the others wait for it, so they are all sent the same bytes
+                bytes = serializedStates.computeIfAbsent(node.version(), version -> {
+                    try {
+                        return serializeFullClusterState(clusterState, version);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
             } catch (Throwable e) {
                 logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
                 sendingController.onNodeSendFailed(node, e);
@@ -247,7 +286,7 @@ public class PublishClusterStateAction extends AbstractComponent {
     }
 
     private void sendClusterStateDiff(ClusterState clusterState,
-                                      Map<Version, BytesReference> serializedDiffs, Map<Version, BytesReference> serializedStates,
+                                      Map<Version, BytesReference> serializedDiffs, ConcurrentMap<Version, BytesReference> serializedStates,
                                       DiscoveryNode node, TimeValue publishTimeout, SendingController sendingController) {
         BytesReference bytes = serializedDiffs.get(node.version());
         assert bytes != null : "failed to find serialized diff for node " + node + " of version [" + node.version() + "]";
@@ -258,7 +297,7 @@ public class PublishClusterStateAction extends AbstractComponent {
                                         final DiscoveryNode node,
                                         final TimeValue publishTimeout,
                                         final SendingController sendingController,
-                                        final boolean sendDiffs, final Map<Version, BytesReference> serializedStates) {
+                                        final boolean sendDiffs, final ConcurrentMap<Version, BytesReference> serializedStates) {
         try {
 
             // -> no need to put a timeout on the options here, because we want the response to eventually be received
@@ -347,6 +386,55 @@ public class PublishClusterStateAction extends AbstractComponent {
         return bStream.bytes();
     }
 
+    interface Serializer {
+        BytesReference serialize() throws IOException;
+    }
+
+    /**
+     * Serializes the cluster state or diff for nodes of a single version exactly once, either on the thread it was forked
+     * to or on the publishing thread, whichever gets to it first.
+     */
+    private static final class SerializeTask implements Runnable {
+
+        private final Version version;
+        private final Serializer serializer;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile BytesReference bytes;
+        private volatile Throwable failure;
+
+        SerializeTask(Version version, Serializer serializer) {
+            this.version = version;
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true) == false) {
+                return;
+            }
+            try {
+                bytes = serializer.serialize();
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void awaitCompletion() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ElasticsearchException("interrupted while serializing cluster_state for publishing to nodes of version [{}]", e, version);
+            }
+            if (failure != null) {
+                throw new ElasticsearchException("failed to serialize cluster_state for publishing to nodes of version [{}]", failure, version);
+            }
+        }
+    }
+
     private Object lastSeenClusterStateMutex = new Object();
     private ClusterState lastSeenClusterState;
 
@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.ObjectArray;
+
+/**
+ * Concurrent hash table that maps _uid values to their {@link VersionValue}. Keys and value references are stored in
+ * {@link BigArrays} pages instead of per-entry map nodes, so that a table holding the updates of a refresh interval costs
+ * little heap and produces little garbage once it is dropped. Values are kept as the instances that were put, so that
+ * lookups do not allocate. Entries can not be removed: the table is meant to be dropped
+ * as a whole once its entries are visible through a refreshed reader.
+ * <p>
+ * The table is split into stripes that are locked independently. Pages are never recycled because in-flight operations
+ * may still access a table after {@link LiveVersionMap} swapped it out.
+ */
+final class VersionHash {
+
+    private static final BigArrays BIG_ARRAYS = BigArrays.NON_RECYCLING_INSTANCE;
+
+    private static final int STRIPE_BITS = 4;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    VersionHash() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /** Returns the version value for this uid, or <code>null</code> if the uid is not in this table. */
+    VersionValue get(BytesRef uid) {
+        final int code = uid.hashCode();
+        return stripe(code).get(uid, code);
+    }
+
+    /** Adds or replaces the version value for this uid. The uid bytes are copied. */
+    void put(BytesRef uid, VersionValue value) {
+        final int code = uid.hashCode();
+        stripe(code).put(uid, code, value);
+    }
+
+    /** Returns the number of uids in this table. */
+    long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /** Returns the number of bytes used by the pages of this table, including unused capacity, and by the stored values. */
+    long ramBytesUsed() {
+        long ramBytesUsed = 0;
+        for (Stripe stripe : stripes) {
+            ramBytesUsed += stripe.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    private Stripe stripe(int code) {
+        // BytesRefHash uses the low bits of the mixed hash to find slots, so pick stripes using the high bits
+        return stripes[BitMixer.mix32(code) >>> (32 - STRIPE_BITS)];
+    }
+
+    private static final class Stripe {
+
+        // allocated on first put, so that empty tables cost nothing
+        private BytesRefHash keys;
+        private ObjectArray<VersionValue> values;
+        private long valuesRamBytesUsed = 0;
+        volatile long ramBytesUsed = 0;
+
+        synchronized VersionValue get(BytesRef uid, int code) {
+            if (keys == null) {
+                return null;
+            }
+            final long id = keys.find(uid, code);
+            return id < 0 ? null : values.get(id);
+        }
+
+        synchronized void put(BytesRef uid, int code, VersionValue value) {
+            if (keys == null) {
+                keys = new BytesRefHash(INITIAL_STRIPE_CAPACITY, BIG_ARRAYS);
+                values = BIG_ARRAYS.newObjectArray(INITIAL_STRIPE_CAPACITY);
+            }
+            long id = keys.add(uid, code);
+            if (id < 0) {
+                id = -1 - id;
+                valuesRamBytesUsed -= values.get(id).ramBytesUsed();
+            } else {
+                values = BIG_ARRAYS.grow(values, id + 1);
+            }
+            values.set(id, value);
+            valuesRamBytesUsed += value.ramBytesUsed();
+            ramBytesUsed = keys.ramBytesUsed() + values.ramBytesUsed() + valuesRamBytesUsed;
+        }
+
+        synchronized long size() {
+            return keys == null ? 0 : keys.size();
+        }
+    }
+}
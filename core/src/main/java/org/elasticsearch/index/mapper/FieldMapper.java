@@ -294,7 +294,7 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
      * mappings were not modified.
      */
     public Mapper parse(ParseContext context) throws IOException {
-        final List<Field> fields = new ArrayList<>(2);
+        final List<Field> fields = context.acquireFields();
         try {
             parseCreateField(context, fields);
             for (Field field : fields) {
@@ -307,6 +307,8 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
             }
         } catch (Exception e) {
             throw new MapperParsingException("failed to parse [" + fieldType().name() + "]", e);
+        } finally {
+            context.releaseFields(fields);
         }
         multiFields.parse(this, context);
         return null;
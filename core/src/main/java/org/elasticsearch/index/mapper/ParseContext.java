@@ -336,6 +336,16 @@ public abstract class ParseContext {
             return in.stringBuilder();
         }
 
+        @Override
+        public List<Field> acquireFields() {
+            return in.acquireFields();
+        }
+
+        @Override
+        public void releaseFields(List<Field> fields) {
+            in.releaseFields(fields);
+        }
+
         @Override
         public void addDynamicMappingsUpdate(Mapper update) {
             in.addDynamicMappingsUpdate(update);
@@ -373,6 +383,8 @@ public abstract class ParseContext {
 
         private StringBuilder stringBuilder = new StringBuilder();
 
+        private List<Field> fields = new ArrayList<>();
+
         private AllEntries allEntries = new AllEntries();
 
         private float docBoost = 1.0f;
@@ -554,6 +566,23 @@ public abstract class ParseContext {
             return this.stringBuilder;
         }
 
+        @Override
+        public List<Field> acquireFields() {
+            if (fields == null) {
+                // already acquired, eg. by a mapper that parses sub fields while building its own fields
+                return new ArrayList<>(2);
+            }
+            List<Field> acquired = fields;
+            fields = null;
+            return acquired;
+        }
+
+        @Override
+        public void releaseFields(List<Field> fields) {
+            fields.clear();
+            this.fields = fields;
+        }
+
         @Override
         public void addDynamicMappingsUpdate(Mapper mapper) {
             assert mapper instanceof RootObjectMapper : mapper;
@@ -769,6 +798,18 @@ public abstract class ParseContext {
      */
     public abstract StringBuilder stringBuilder();
 
+    /**
+     * Returns an empty list that a field mapper can collect the fields it creates for a value into, so that a new list does
+     * not need to be allocated for every value of every document. It must be handed back with {@link #releaseFields(List)}
+     * once the fields have been added to the document.
+     */
+    public abstract List<Field> acquireFields();
+
+    /**
+     * Hands back a list that was returned by {@link #acquireFields()}. The list is cleared.
+     */
+    public abstract void releaseFields(List<Field> fields);
+
     /**
      * Add a dynamic update to the root object mapper.
      */
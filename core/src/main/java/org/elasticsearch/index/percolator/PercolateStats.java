@@ -39,6 +39,8 @@ public class PercolateStats implements Streamable, ToXContent {
     private long current;
     private long memorySizeInBytes = -1;
     private long numQueries;
+    private long numCandidates;
+    private long numMatches;
 
     /**
      * Noop constructor for serialization purposes.
@@ -46,12 +48,15 @@ public class PercolateStats implements Streamable, ToXContent {
     public PercolateStats() {
     }
 
-    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries) {
+    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries,
+                   long numCandidates, long numMatches) {
         this.percolateCount = percolateCount;
         this.percolateTimeInMillis = percolateTimeInMillis;
         this.current = current;
         this.memorySizeInBytes = memorySizeInBytes;
         this.numQueries = numQueries;
+        this.numCandidates = numCandidates;
+        this.numMatches = numMatches;
     }
 
     /**
@@ -89,6 +94,21 @@ public class PercolateStats implements Streamable, ToXContent {
         return numQueries;
     }
 
+    /**
+     * @return The total number of registered queries that were selected based on their extracted terms and verified
+     * against a percolated document.
+     */
+    public long getNumCandidates() {
+        return numCandidates;
+    }
+
+    /**
+     * @return The total number of verified registered queries that matched a percolated document.
+     */
+    public long getNumMatches() {
+        return numMatches;
+    }
+
     /**
      * @return Temporarily returns <code>-1</code>, but this used to return the total size the loaded queries take in
      * memory, but this is disabled now because the size estimation was too expensive cpu wise. This will be enabled
@@ -114,6 +134,8 @@ public class PercolateStats implements Streamable, ToXContent {
         builder.field(Fields.MEMORY_SIZE_IN_BYTES, memorySizeInBytes);
         builder.field(Fields.MEMORY_SIZE, getMemorySize());
         builder.field(Fields.QUERIES, getNumQueries());
+        builder.field(Fields.CANDIDATES, getNumCandidates());
+        builder.field(Fields.MATCHES, getNumMatches());
         builder.endObject();
         return builder;
     }
@@ -127,6 +149,8 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateTimeInMillis += percolate.getTimeInMillis();
         current += percolate.getCurrent();
         numQueries += percolate.getNumQueries();
+        numCandidates += percolate.getNumCandidates();
+        numMatches += percolate.getNumMatches();
     }
 
     static final class Fields {
@@ -138,6 +162,8 @@ public class PercolateStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString QUERIES = new XContentBuilderString("queries");
+        static final XContentBuilderString CANDIDATES = new XContentBuilderString("candidates");
+        static final XContentBuilderString MATCHES = new XContentBuilderString("matches");
     }
 
     public static PercolateStats readPercolateStats(StreamInput in) throws IOException {
@@ -152,6 +178,8 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateTimeInMillis = in.readVLong();
         current = in.readVLong();
         numQueries = in.readVLong();
+        numCandidates = in.readVLong();
+        numMatches = in.readVLong();
     }
 
     @Override
@@ -160,5 +188,7 @@ public class PercolateStats implements Streamable, ToXContent {
         out.writeVLong(percolateTimeInMillis);
         out.writeVLong(current);
         out.writeVLong(numQueries);
+        out.writeVLong(numCandidates);
+        out.writeVLong(numMatches);
     }
 }
@@ -26,6 +26,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.metrics.CounterMetric;
@@ -49,6 +50,7 @@ import org.elasticsearch.percolator.PercolatorService;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
@@ -69,17 +71,34 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
     private final MeanMetric percolateMetric = new MeanMetric();
     private final CounterMetric currentMetric = new CounterMetric();
     private final CounterMetric numberOfQueries = new CounterMetric();
+    private final CounterMetric candidateQueries = new CounterMetric();
+    private final CounterMetric matchedQueries = new CounterMetric();
+    private final QueryTermsIndex queryTermsIndex;
 
     public PercolatorQueriesRegistry(ShardId shardId, IndexSettings indexSettings, QueryShardContext queryShardContext) {
         super(shardId, indexSettings);
         this.queryShardContext = queryShardContext;
         this.mapUnmappedFieldsAsString = indexSettings.getValue(INDEX_MAP_UNMAPPED_FIELDS_AS_STRING_SETTING);
+        // from 3.0.0 on the extracted query terms are indexed with the percolator documents
+        this.queryTermsIndex = indexSettings.getIndexVersionCreated().before(Version.V_3_0_0) ? new QueryTermsIndex() : null;
     }
 
     public ConcurrentMap<BytesRef, Query> getPercolateQueries() {
         return percolateQueries;
     }
 
+    /**
+     * Returns the ids of the registered queries that can possibly match the document held by the specified index reader,
+     * based on the terms extracted from these queries, or <code>null</code> if the extracted terms are indexed with
+     * the percolator queries and can be used to pre-select the queries instead.
+     */
+    public Set<BytesRef> getCandidateQueries(IndexReader reader) throws IOException {
+        if (queryTermsIndex == null) {
+            return null;
+        }
+        return queryTermsIndex.candidates(reader);
+    }
+
     @Override
     public void close() {
         clear();
@@ -87,6 +106,9 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
 
     public void clear() {
         percolateQueries.clear();
+        if (queryTermsIndex != null) {
+            queryTermsIndex.clear();
+        }
     }
 
 
@@ -95,6 +117,9 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
         BytesRef id = new BytesRef(idAsString);
         percolateQueries.put(id, newquery);
         numberOfQueries.inc();
+        if (queryTermsIndex != null) {
+            queryTermsIndex.add(id, newquery);
+        }
 
     }
 
@@ -104,6 +129,9 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
         if (query != null) {
             numberOfQueries.dec();
         }
+        if (queryTermsIndex != null) {
+            queryTermsIndex.remove(id);
+        }
     }
 
     public Query parsePercolatorDocument(String id, BytesReference source) {
@@ -171,6 +199,9 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
             for (Map.Entry<BytesRef, Query> entry : queries.entrySet()) {
                 percolateQueries.put(entry.getKey(), entry.getValue());
                 numberOfQueries.inc();
+                if (queryTermsIndex != null) {
+                    queryTermsIndex.add(entry.getKey(), entry.getValue());
+                }
             }
             loadedQueries = queries.size();
         } catch (Exception e) {
@@ -212,11 +243,21 @@ public final class PercolatorQueriesRegistry extends AbstractIndexShardComponent
         percolateMetric.inc(tookInNanos);
     }
 
+    /**
+     * Records how many registered queries were verified against a percolated document after pre-selection and how many
+     * of them matched.
+     */
+    public void onQueriesVerified(long candidates, long matches) {
+        candidateQueries.inc(candidates);
+        matchedQueries.inc(matches);
+    }
+
     /**
      * @return The current metrics
      */
     public PercolateStats stats() {
-        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count(), -1, numberOfQueries.count());
+        return new PercolateStats(percolateMetric.count(), TimeUnit.NANOSECONDS.toMillis(percolateMetric.sum()), currentMetric.count(), -1, numberOfQueries.count(),
+                candidateQueries.count(), matchedQueries.count());
     }
 
     // Enable when a more efficient manner is found for estimating the size of a Lucene query.
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory inverted index from the terms {@link ExtractQueryTermsService} extracts from the registered percolator
+ * queries to the ids of these queries. Given the terms of the document being percolated it selects the queries that
+ * can possibly match, so that only these need to be verified against the document. Queries from which no terms could
+ * be extracted are always selected.
+ * <p>
+ * Indices created on or after 3.0.0 index the extracted terms along with the percolator queries, so this is only used
+ * for older indices.
+ */
+final class QueryTermsIndex {
+
+    private final ConcurrentMap<Term, Set<BytesRef>> queriesByTerm = ConcurrentCollections.newConcurrentMap();
+    private final Set<BytesRef> unknownQueries = ConcurrentCollections.newConcurrentSet();
+    // guarded by this, only used to remove the postings of a query that is updated or deleted
+    private final Map<BytesRef, Set<Term>> termsByQuery = new HashMap<>();
+
+    synchronized void add(BytesRef id, Query query) {
+        remove(id);
+        final Set<Term> terms;
+        try {
+            terms = ExtractQueryTermsService.extractQueryTerms(query);
+        } catch (ExtractQueryTermsService.UnsupportedQueryException e) {
+            unknownQueries.add(id);
+            return;
+        }
+        termsByQuery.put(id, terms);
+        for (Term term : terms) {
+            queriesByTerm.computeIfAbsent(term, t -> ConcurrentCollections.newConcurrentSet()).add(id);
+        }
+    }
+
+    synchronized void remove(BytesRef id) {
+        unknownQueries.remove(id);
+        final Set<Term> terms = termsByQuery.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (Term term : terms) {
+            Set<BytesRef> ids = queriesByTerm.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    queriesByTerm.remove(term);
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        unknownQueries.clear();
+        termsByQuery.clear();
+        queriesByTerm.clear();
+    }
+
+    /**
+     * Returns the ids of all queries that may match a document of the specified index reader.
+     */
+    Set<BytesRef> candidates(IndexReader reader) throws IOException {
+        final Set<BytesRef> candidates = new HashSet<>(unknownQueries);
+        final Fields fields = MultiFields.getFields(reader);
+        if (fields == null) {
+            return candidates;
+        }
+        for (String field : fields) {
+            Terms terms = fields.terms(field);
+            if (terms == null) {
+                continue;
+            }
+            TermsEnum tenum = terms.iterator();
+            for (BytesRef term = tenum.next(); term != null; term = tenum.next()) {
+                Set<BytesRef> ids = queriesByTerm.get(new Term(field, term));
+                if (ids != null) {
+                    candidates.addAll(ids);
+                }
+            }
+        }
+        return candidates;
+    }
+}
@@ -23,6 +23,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -51,14 +52,36 @@ public class SearchStats implements Streamable, ToXContent {
         private long scrollTimeInMillis;
         private long scrollCurrent;
 
-        Stats() {
+        private long[] queryLatencyHistogram;
+        private long[] fetchLatencyHistogram;
 
+        Stats() {
+            queryLatencyHistogram = new long[HistogramMetric.NUM_BUCKETS];
+            fetchLatencyHistogram = new long[HistogramMetric.NUM_BUCKETS];
         }
 
         public Stats(
                 long queryCount, long queryTimeInMillis, long queryCurrent,
                 long fetchCount, long fetchTimeInMillis, long fetchCurrent,
                 long scrollCount, long scrollTimeInMillis, long scrollCurrent
+        ) {
+            this(
+                    queryCount, queryTimeInMillis, queryCurrent,
+                    fetchCount, fetchTimeInMillis, fetchCurrent,
+                    scrollCount, scrollTimeInMillis, scrollCurrent,
+                    new long[HistogramMetric.NUM_BUCKETS], new long[HistogramMetric.NUM_BUCKETS]
+            );
+        }
+
+        /**
+         * @param queryLatencyHistogram the number of query phases per latency bucket of {@link HistogramMetric}
+         * @param fetchLatencyHistogram the number of fetch phases per latency bucket of {@link HistogramMetric}
+         */
+        public Stats(
+                long queryCount, long queryTimeInMillis, long queryCurrent,
+                long fetchCount, long fetchTimeInMillis, long fetchCurrent,
+                long scrollCount, long scrollTimeInMillis, long scrollCurrent,
+                long[] queryLatencyHistogram, long[] fetchLatencyHistogram
         ) {
             this.queryCount = queryCount;
             this.queryTimeInMillis = queryTimeInMillis;
@@ -71,13 +94,17 @@ public class SearchStats implements Streamable, ToXContent {
             this.scrollCount = scrollCount;
             this.scrollTimeInMillis = scrollTimeInMillis;
             this.scrollCurrent = scrollCurrent;
+
+            this.queryLatencyHistogram = queryLatencyHistogram;
+            this.fetchLatencyHistogram = fetchLatencyHistogram;
         }
 
         public Stats(Stats stats) {
             this(
                     stats.queryCount, stats.queryTimeInMillis, stats.queryCurrent,
                     stats.fetchCount, stats.fetchTimeInMillis, stats.fetchCurrent,
-                    stats.scrollCount, stats.scrollTimeInMillis, stats.scrollCurrent
+                    stats.scrollCount, stats.scrollTimeInMillis, stats.scrollCurrent,
+                    stats.queryLatencyHistogram.clone(), stats.fetchLatencyHistogram.clone()
             );
         }
 
@@ -93,6 +120,16 @@ public class SearchStats implements Streamable, ToXContent {
             scrollCount += stats.scrollCount;
             scrollTimeInMillis += stats.scrollTimeInMillis;
             scrollCurrent += stats.scrollCurrent;
+
+            addHistogram(queryLatencyHistogram, stats.queryLatencyHistogram);
+            addHistogram(fetchLatencyHistogram, stats.fetchLatencyHistogram);
+        }
+
+        private static void addHistogram(long[] histogram, long[] other) {
+            assert histogram.length == other.length;
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other[i];
+            }
         }
 
         public long getQueryCount() {
@@ -143,6 +180,22 @@ public class SearchStats implements Streamable, ToXContent {
             return scrollCurrent;
         }
 
+        /**
+         * The number of query phases per latency bucket, see {@link HistogramMetric#upperBoundInMillis(int)} for the
+         * bounds of the buckets.
+         */
+        public long[] getQueryLatencyHistogram() {
+            return queryLatencyHistogram;
+        }
+
+        /**
+         * The number of fetch phases per latency bucket, see {@link HistogramMetric#upperBoundInMillis(int)} for the
+         * bounds of the buckets.
+         */
+        public long[] getFetchLatencyHistogram() {
+            return fetchLatencyHistogram;
+        }
+
         public static Stats readStats(StreamInput in) throws IOException {
             Stats stats = new Stats();
             stats.readFrom(in);
@@ -162,6 +215,17 @@ public class SearchStats implements Streamable, ToXContent {
             scrollCount = in.readVLong();
             scrollTimeInMillis = in.readVLong();
             scrollCurrent = in.readVLong();
+
+            queryLatencyHistogram = readHistogram(in);
+            fetchLatencyHistogram = readHistogram(in);
+        }
+
+        private static long[] readHistogram(StreamInput in) throws IOException {
+            long[] histogram = new long[in.readVInt()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = in.readVLong();
+            }
+            return histogram;
         }
 
         @Override
@@ -177,6 +241,16 @@ public class SearchStats implements Streamable, ToXContent {
             out.writeVLong(scrollCount);
             out.writeVLong(scrollTimeInMillis);
             out.writeVLong(scrollCurrent);
+
+            writeHistogram(out, queryLatencyHistogram);
+            writeHistogram(out, fetchLatencyHistogram);
+        }
+
+        private static void writeHistogram(StreamOutput out, long[] histogram) throws IOException {
+            out.writeVInt(histogram.length);
+            for (long count : histogram) {
+                out.writeVLong(count);
+            }
         }
 
         @Override
@@ -193,8 +267,25 @@ public class SearchStats implements Streamable, ToXContent {
             builder.timeValueField(Fields.SCROLL_TIME_IN_MILLIS, Fields.SCROLL_TIME, scrollTimeInMillis);
             builder.field(Fields.SCROLL_CURRENT, scrollCurrent);
 
+            histogramToXContent(builder, Fields.QUERY_LATENCY_HISTOGRAM_IN_MILLIS, queryLatencyHistogram);
+            histogramToXContent(builder, Fields.FETCH_LATENCY_HISTOGRAM_IN_MILLIS, fetchLatencyHistogram);
+
             return builder;
         }
+
+        /**
+         * Renders the non empty buckets, keyed by their exclusive upper bound in milliseconds.
+         */
+        private static void histogramToXContent(XContentBuilder builder, XContentBuilderString name, long[] histogram)
+                throws IOException {
+            builder.startObject(name);
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    builder.field(Long.toString(HistogramMetric.upperBoundInMillis(i)), histogram[i]);
+                }
+            }
+            builder.endObject();
+        }
     }
 
     Stats totalStats;
@@ -292,6 +383,10 @@ public class SearchStats implements Streamable, ToXContent {
         static final XContentBuilderString SCROLL_TIME = new XContentBuilderString("scroll_time");
         static final XContentBuilderString SCROLL_TIME_IN_MILLIS = new XContentBuilderString("scroll_time_in_millis");
         static final XContentBuilderString SCROLL_CURRENT = new XContentBuilderString("scroll_current");
+        static final XContentBuilderString QUERY_LATENCY_HISTOGRAM_IN_MILLIS =
+                new XContentBuilderString("query_latency_histogram_in_millis");
+        static final XContentBuilderString FETCH_LATENCY_HISTOGRAM_IN_MILLIS =
+                new XContentBuilderString("fetch_latency_histogram_in_millis");
     }
 
     public static SearchStats readSearchStats(StreamInput in) throws IOException {
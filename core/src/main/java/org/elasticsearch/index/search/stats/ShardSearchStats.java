@@ -21,6 +21,7 @@ package org.elasticsearch.index.search.stats;
 
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
@@ -91,11 +92,13 @@ public final class ShardSearchStats {
 
     public void onQueryPhase(SearchContext searchContext, long tookInNanos) {
         totalStats.queryMetric.inc(tookInNanos);
+        totalStats.queryLatency.inc(tookInNanos);
         totalStats.queryCurrent.dec();
         if (searchContext.groupStats() != null) {
             for (int i = 0; i < searchContext.groupStats().size(); i++) {
                 StatsHolder statsHolder = groupStats(searchContext.groupStats().get(i));
                 statsHolder.queryMetric.inc(tookInNanos);
+                statsHolder.queryLatency.inc(tookInNanos);
                 statsHolder.queryCurrent.dec();
             }
         }
@@ -122,11 +125,13 @@ public final class ShardSearchStats {
 
     public void onFetchPhase(SearchContext searchContext, long tookInNanos) {
         totalStats.fetchMetric.inc(tookInNanos);
+        totalStats.fetchLatency.inc(tookInNanos);
         totalStats.fetchCurrent.dec();
         if (searchContext.groupStats() != null) {
             for (int i = 0; i < searchContext.groupStats().size(); i++) {
                 StatsHolder statsHolder = groupStats(searchContext.groupStats().get(i));
                 statsHolder.fetchMetric.inc(tookInNanos);
+                statsHolder.fetchLatency.inc(tookInNanos);
                 statsHolder.fetchCurrent.dec();
             }
         }
@@ -187,12 +192,15 @@ public final class ShardSearchStats {
         public final CounterMetric queryCurrent = new CounterMetric();
         public final CounterMetric fetchCurrent = new CounterMetric();
         public final CounterMetric scrollCurrent = new CounterMetric();
+        public final HistogramMetric queryLatency = new HistogramMetric();
+        public final HistogramMetric fetchLatency = new HistogramMetric();
 
         public SearchStats.Stats stats() {
             return new SearchStats.Stats(
                     queryMetric.count(), TimeUnit.NANOSECONDS.toMillis(queryMetric.sum()), queryCurrent.count(),
                     fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count(),
-                    scrollMetric.count(), TimeUnit.NANOSECONDS.toMillis(scrollMetric.sum()), scrollCurrent.count()
+                    scrollMetric.count(), TimeUnit.NANOSECONDS.toMillis(scrollMetric.sum()), scrollCurrent.count(),
+                    queryLatency.counts(), fetchLatency.counts()
             );
         }
 
@@ -204,6 +212,8 @@ public final class ShardSearchStats {
             queryMetric.clear();
             fetchMetric.clear();
             scrollMetric.clear();
+            queryLatency.clear();
+            fetchLatency.clear();
         }
     }
 }
@@ -48,6 +48,7 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.ShardId;
@@ -67,6 +68,7 @@ import org.elasticsearch.repositories.blobstore.BlobStoreFormat;
 import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 import org.elasticsearch.repositories.blobstore.ChecksumBlobStoreFormat;
 import org.elasticsearch.repositories.blobstore.LegacyBlobStoreFormat;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.FilterInputStream;
 import java.io.IOException;
@@ -77,6 +79,11 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
@@ -100,6 +107,8 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
     private final ClusterService clusterService;
 
+    private final ThreadPool threadPool;
+
     private RateLimiter snapshotRateLimiter;
 
     private RateLimiter restoreRateLimiter;
@@ -112,6 +121,8 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
     private boolean compress;
 
+    private int maxConcurrentFileTransfers = 1;
+
     private final ParseFieldMatcher parseFieldMatcher;
 
     protected static final String LEGACY_SNAPSHOT_PREFIX = "snapshot-";
@@ -139,12 +150,14 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
     private ChecksumBlobStoreFormat<BlobStoreIndexShardSnapshots> indexShardSnapshotsFormat;
 
     @Inject
-    public BlobStoreIndexShardRepository(Settings settings, RepositoryName repositoryName, IndicesService indicesService, ClusterService clusterService) {
+    public BlobStoreIndexShardRepository(Settings settings, RepositoryName repositoryName, IndicesService indicesService, ClusterService clusterService,
+                                          ThreadPool threadPool) {
         super(settings);
         this.parseFieldMatcher = new ParseFieldMatcher(settings);
         this.repositoryName = repositoryName.name();
         this.indicesService = indicesService;
         this.clusterService = clusterService;
+        this.threadPool = threadPool;
     }
 
     /**
@@ -153,10 +166,11 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
      * @param blobStore blob store
      * @param basePath  base path to blob store
      * @param chunkSize chunk size
+     * @param maxConcurrentFileTransfers number of files of a shard that are uploaded or downloaded concurrently
      */
     public void initialize(BlobStore blobStore, BlobPath basePath, ByteSizeValue chunkSize,
                            RateLimiter snapshotRateLimiter, RateLimiter restoreRateLimiter,
-                           final RateLimiterListener rateLimiterListener, boolean compress) {
+                           final RateLimiterListener rateLimiterListener, boolean compress, int maxConcurrentFileTransfers) {
         this.blobStore = blobStore;
         this.basePath = basePath;
         this.chunkSize = chunkSize;
@@ -166,6 +180,7 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
         this.snapshotThrottleListener = nanos -> rateLimiterListener.onSnapshotPause(nanos);
         this.restoreThrottleListener = nanos -> rateLimiterListener.onRestorePause(nanos);
         this.compress = compress;
+        this.maxConcurrentFileTransfers = maxConcurrentFileTransfers;
         indexShardSnapshotFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_CODEC, SNAPSHOT_NAME_FORMAT, BlobStoreIndexShardSnapshot.PROTO, parseFieldMatcher, isCompress());
         indexShardSnapshotLegacyFormat = new LegacyBlobStoreFormat<>(LEGACY_SNAPSHOT_NAME_FORMAT, BlobStoreIndexShardSnapshot.PROTO, parseFieldMatcher);
         indexShardSnapshotsFormat = new ChecksumBlobStoreFormat<>(SNAPSHOT_INDEX_CODEC, SNAPSHOT_INDEX_NAME_FORMAT, BlobStoreIndexShardSnapshots.PROTO, parseFieldMatcher, isCompress());
@@ -593,12 +608,10 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
                 snapshotStatus.updateStage(IndexShardSnapshotStatus.Stage.STARTED);
 
-                for (FileInfo snapshotFileInfo : filesToSnapshot) {
-                    try {
-                        snapshotFile(snapshotFileInfo);
-                    } catch (IOException e) {
-                        throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
-                    }
+                try {
+                    transferFiles(filesToSnapshot, this::snapshotFile);
+                } catch (IOException e) {
+                    throw new IndexShardSnapshotFailedException(shardId, "Failed to perform snapshot (index files)", e);
                 }
 
                 snapshotStatus.indexVersion(snapshotIndexCommit.getGeneration());
@@ -858,10 +871,10 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
                             index.totalRecoverFiles(), new ByteSizeValue(index.totalRecoverBytes()), index.reusedFileCount(), new ByteSizeValue(index.reusedFileCount()));
                 }
                 try {
-                    for (final FileInfo fileToRecover : filesToRecover) {
+                    transferFiles(filesToRecover, fileToRecover -> {
                         logger.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
                         restoreFile(fileToRecover);
-                    }
+                    });
                 } catch (IOException ex) {
                     throw new IndexShardRestoreFailedException(shardId, "Failed to recover index", ex);
                 }
@@ -952,6 +965,106 @@ public class BlobStoreIndexShardRepository extends AbstractComponent implements
 
     }
 
+    /**
+     * Uploads or downloads the given files, up to <code>max_concurrent_file_transfers</code> of them at the same time. The calling
+     * thread transfers files itself and is helped by workers forked to the snapshot thread pool, so that the transfer never
+     * waits for a pool that is busy with other shards. Once a transfer failed no new files are picked up and the first failure
+     * is rethrown after all the running transfers completed.
+     */
+    // package private for testing
+    void transferFiles(List<FileInfo> files, FileTransfer transfer) throws IOException {
+        final Queue<FileInfo> pendingFiles = new ConcurrentLinkedQueue<>(files);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final int numWorkers = Math.min(maxConcurrentFileTransfers, files.size());
+        final List<FileTransferWorker> forkedWorkers = new ArrayList<>();
+        for (int i = 1; i < numWorkers; i++) {
+            FileTransferWorker worker = new FileTransferWorker(pendingFiles, transfer, failure);
+            forkedWorkers.add(worker);
+            try {
+                threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the files are transferred by the other workers
+            }
+        }
+        new FileTransferWorker(pendingFiles, transfer, failure).run();
+        boolean interrupted = false;
+        for (FileTransferWorker worker : forkedWorkers) {
+            // make sure no transfer outlives the snapshot or restore context
+            while (true) {
+                try {
+                    worker.awaitCompletion();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IOException(t);
+        }
+    }
+
+    @FunctionalInterface
+    interface FileTransfer {
+        void transfer(FileInfo fileInfo) throws IOException;
+    }
+
+    /**
+     * Transfers files from a shared queue until it is empty or a transfer failed. A worker runs at most once: a forked worker
+     * that did not start by the time the calling thread is done is skipped.
+     */
+    private static final class FileTransferWorker implements Runnable {
+        private final Queue<FileInfo> pendingFiles;
+        private final FileTransfer transfer;
+        private final AtomicReference<Throwable> failure;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        FileTransferWorker(Queue<FileInfo> pendingFiles, FileTransfer transfer, AtomicReference<Throwable> failure) {
+            this.pendingFiles = pendingFiles;
+            this.transfer = transfer;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true) == false) {
+                return;
+            }
+            try {
+                FileInfo fileInfo;
+                while (failure.get() == null && (fileInfo = pendingFiles.poll()) != null) {
+                    try {
+                        transfer.transfer(fileInfo);
+                    } catch (Throwable t) {
+                        if (failure.compareAndSet(null, t) == false) {
+                            failure.get().addSuppressed(t);
+                        }
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            if (started.compareAndSet(false, true)) {
+                done.countDown();
+            }
+            done.await();
+        }
+    }
+
     public interface RateLimiterListener {
         void onRestorePause(long nanos);
 
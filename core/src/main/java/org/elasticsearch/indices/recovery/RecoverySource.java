@@ -20,6 +20,7 @@
 package org.elasticsearch.indices.recovery;
 
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -126,7 +127,11 @@ public class RecoverySource extends AbstractComponent implements IndexEventListe
         if (shard.indexSettings().isOnSharedFilesystem()) {
             handler = new SharedFSRecoverySourceHandler(shard, recoveryTarget, request, logger);
         } else {
-            handler = new RecoverySourceHandler(shard, recoveryTarget, request, recoverySettings.getChunkSize().bytesAsInt(), logger);
+            // only targets that buffer chunks received out of order can accept several chunks at once
+            final int maxConcurrentFileChunks = request.targetNode().getVersion().onOrAfter(Version.V_3_0_0) ?
+                    recoverySettings.getMaxConcurrentFileChunks() : 1;
+            handler = new RecoverySourceHandler(shard, recoveryTarget, request, recoverySettings.getChunkSize().bytesAsInt(),
+                    maxConcurrentFileChunks, logger);
         }
         ongoingRecoveries.add(shard, handler);
         try {
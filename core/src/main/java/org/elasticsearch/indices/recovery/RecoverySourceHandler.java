@@ -30,9 +30,11 @@ import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
@@ -53,6 +55,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
@@ -78,6 +82,11 @@ public class RecoverySourceHandler {
     private final StartRecoveryRequest request;
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
+    // the number of file chunks that are sent without waiting for the previous ones to be acknowledged
+    private final int maxConcurrentFileChunks;
+    private final Semaphore fileChunkPermits;
+    // the first file chunk that failed to be written on the target, and why
+    private final AtomicReference<Tuple<StoreFileMetaData, Throwable>> fileChunkFailure = new AtomicReference<>();
 
     protected final RecoveryResponse response;
 
@@ -101,6 +110,17 @@ public class RecoverySourceHandler {
                                  final StartRecoveryRequest request,
                                  final int fileChunkSizeInBytes,
                                  final ESLogger logger) {
+        this(shard, recoveryTarget, request, fileChunkSizeInBytes, 1, logger);
+    }
+
+    public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
+                                 final StartRecoveryRequest request,
+                                 final int fileChunkSizeInBytes,
+                                 final int maxConcurrentFileChunks,
+                                 final ESLogger logger) {
+        if (maxConcurrentFileChunks < 1) {
+            throw new IllegalArgumentException("maxConcurrentFileChunks must be >= 1 but was [" + maxConcurrentFileChunks + "]");
+        }
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.request = request;
@@ -108,6 +128,8 @@ public class RecoverySourceHandler {
         this.indexName = this.request.shardId().getIndex().getName();
         this.shardId = this.request.shardId().id();
         this.chunkSizeInBytes = fileChunkSizeInBytes;
+        this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.fileChunkPermits = new Semaphore(maxConcurrentFileChunks);
         this.response = new RecoveryResponse();
     }
 
@@ -501,13 +523,46 @@ public class RecoverySourceHandler {
         }
 
         private void sendNextChunk(long position, BytesArray content, boolean lastChunk) throws IOException {
-            // Actually send the file chunk to the target node, waiting for it to complete
-            cancellableThreads.executeIO(() ->
-                    recoveryTarget.writeFileChunk(md, position, content, lastChunk, translogView.totalOperations())
-            );
+            if (maxConcurrentFileChunks == 1) {
+                // Actually send the file chunk to the target node, waiting for it to complete
+                cancellableThreads.executeIO(() ->
+                        recoveryTarget.writeFileChunk(md, position, content, lastChunk, translogView.totalOperations())
+                );
+                if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
+                    throw new IndexShardClosedException(request.shardId());
+                }
+                return;
+            }
+            // wait until one of the chunks in flight was acknowledged
+            cancellableThreads.execute(fileChunkPermits::acquire);
+            final Tuple<StoreFileMetaData, Throwable> failure = fileChunkFailure.get();
+            if (failure != null) {
+                fileChunkPermits.release();
+                throw new ElasticsearchException("failed to send file chunk of [{}]", failure.v2(), failure.v1().name());
+            }
             if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
+                fileChunkPermits.release();
                 throw new IndexShardClosedException(request.shardId());
             }
+            try {
+                // the content is backed by the buffer of the output stream, which is reused once this method returns
+                recoveryTarget.writeFileChunk(md, position, content.copyBytesArray(), lastChunk, translogView.totalOperations(),
+                        new ActionListener<Void>() {
+                            @Override
+                            public void onResponse(Void aVoid) {
+                                fileChunkPermits.release();
+                            }
+
+                            @Override
+                            public void onFailure(Throwable e) {
+                                fileChunkFailure.compareAndSet(null, new Tuple<>(md, e));
+                                fileChunkPermits.release();
+                            }
+                        });
+            } catch (Throwable t) {
+                fileChunkPermits.release();
+                throw t;
+            }
         }
     }
 
@@ -522,23 +577,21 @@ public class RecoverySourceHandler {
                     // exceptions during close correctly and doesn't hide the original exception.
                     Streams.copy(new InputStreamIndexInput(indexInput, md.length()), outputStreamFactory.apply(md));
                 } catch (Throwable t) {
-                    final IOException corruptIndexException;
-                    if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(t)) != null) {
-                        if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
-                            logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
-                            failEngine(corruptIndexException);
-                            throw corruptIndexException;
-                        } else { // corruption has happened on the way to replica
-                            RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
-                                    "checksums are ok", null);
-                            exception.addSuppressed(t);
-                            logger.warn("{} Remote file corruption on node {}, recovering {}. local checksum OK",
-                                    corruptIndexException, shardId, request.targetNode(), md);
-                            throw exception;
-                        }
-                    } else {
-                        throw t;
+                    // a chunk of a previous file that was still in flight might have failed first
+                    final Tuple<StoreFileMetaData, Throwable> failure = fileChunkFailure.get();
+                    if (failure != null) {
+                        throw handleSendFailure(store, failure.v1(), failure.v2());
                     }
+                    throw handleSendFailure(store, md, t);
+                }
+            }
+            if (maxConcurrentFileChunks > 1) {
+                // wait for the chunks that are still in flight
+                cancellableThreads.execute(() -> fileChunkPermits.acquire(maxConcurrentFileChunks));
+                fileChunkPermits.release(maxConcurrentFileChunks);
+                final Tuple<StoreFileMetaData, Throwable> failure = fileChunkFailure.get();
+                if (failure != null) {
+                    throw handleSendFailure(store, failure.v1(), failure.v2());
                 }
             }
         } finally {
@@ -546,6 +599,30 @@ public class RecoverySourceHandler {
         }
     }
 
+    /**
+     * Checks whether the failure to send the given file was caused by a corruption, either on this node or on the way to the
+     * target, and returns the exception to rethrow.
+     */
+    private Throwable handleSendFailure(Store store, StoreFileMetaData md, Throwable t) {
+        final IOException corruptIndexException;
+        if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(t)) != null) {
+            if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
+                logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
+                failEngine(corruptIndexException);
+                return corruptIndexException;
+            } else { // corruption has happened on the way to replica
+                RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
+                        "checksums are ok", null);
+                exception.addSuppressed(t);
+                logger.warn("{} Remote file corruption on node {}, recovering {}. local checksum OK",
+                        corruptIndexException, shardId, request.targetNode(), md);
+                return exception;
+            }
+        } else {
+            return t;
+        }
+    }
+
     protected void failEngine(IOException cause) {
         shard.failShard("recovery", cause);
     }
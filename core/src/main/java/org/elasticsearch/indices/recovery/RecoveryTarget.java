@@ -26,6 +26,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.ESLogger;
@@ -48,6 +49,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -85,6 +87,9 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
 
     private final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
 
+    // chunks that were received before the chunks preceding them in the file, keyed by file name
+    private final ConcurrentMap<String, PendingFileChunks> pendingFileChunks = ConcurrentCollections.newConcurrentMap();
+
     public RecoveryTarget(IndexShard indexShard, DiscoveryNode sourceNode, RecoveryTargetService.RecoveryListener listener) {
 
         super("recovery_status");
@@ -282,6 +287,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
             store.deleteQuiet(file);
         }
         legacyChecksums.clear();
+        pendingFileChunks.clear();
     }
 
     @Override
@@ -379,9 +385,38 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     @Override
     public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
                                boolean lastChunk, int totalTranslogOps) throws IOException {
+        state().getTranslog().totalOperations(totalTranslogOps);
+        final String name = fileMetaData.name();
+        final PendingFileChunks chunks = pendingFileChunks.computeIfAbsent(name, k -> new PendingFileChunks());
+        synchronized (chunks) {
+            // the source sends several chunks at once so they may arrive out of order, but they have to be written in order
+            chunks.add(new FileChunk(position, content, lastChunk));
+            FileChunk chunk;
+            while ((chunk = chunks.pollNext()) != null) {
+                innerWriteFileChunk(fileMetaData, chunk.position, chunk.content, chunk.lastChunk);
+                if (chunk.lastChunk) {
+                    pendingFileChunks.remove(name, chunks);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                               boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
+        try {
+            writeFileChunk(fileMetaData, position, content, lastChunk, totalTranslogOps);
+        } catch (Throwable t) {
+            listener.onFailure(t);
+            return;
+        }
+        listener.onResponse(null);
+    }
+
+    private void innerWriteFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                     boolean lastChunk) throws IOException {
         final Store store = store();
         final String name = fileMetaData.name();
-        state().getTranslog().totalOperations(totalTranslogOps);
         final RecoveryState.Index indexState = state().getIndex();
         IndexOutput indexOutput;
         if (position == 0) {
@@ -410,4 +445,41 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
             assert remove == null || remove == indexOutput; // remove maybe null if we got finished
         }
     }
+
+    private static final class FileChunk {
+        final long position;
+        final BytesReference content;
+        final boolean lastChunk;
+
+        FileChunk(long position, BytesReference content, boolean lastChunk) {
+            this.position = position;
+            this.content = content;
+            this.lastChunk = lastChunk;
+        }
+    }
+
+    /**
+     * The chunks of a file that are waiting for the chunks before them to be written.
+     */
+    private static final class PendingFileChunks {
+        private final PriorityQueue<FileChunk> chunks = new PriorityQueue<>((a, b) -> Long.compare(a.position, b.position));
+        private long nextPosition = 0;
+
+        void add(FileChunk chunk) {
+            chunks.add(chunk);
+        }
+
+        /**
+         * Returns the chunk that continues the file where the last returned chunk ended, or <tt>null</tt> if it wasn't received yet.
+         */
+        FileChunk pollNext() {
+            FileChunk chunk = chunks.peek();
+            if (chunk == null || chunk.position != nextPosition) {
+                return null;
+            }
+            chunks.poll();
+            nextPosition += chunk.content.length();
+            return chunk;
+        }
+    }
 }
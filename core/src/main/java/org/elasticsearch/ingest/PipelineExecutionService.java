@@ -27,12 +27,22 @@ import org.elasticsearch.ingest.core.IngestDocument;
 import org.elasticsearch.ingest.core.Pipeline;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class PipelineExecutionService {
 
+    /**
+     * The minimum number of documents of a bulk that are worth executing on a separate thread.
+     */
+    static final int MIN_BULK_ITEMS_PER_CHUNK = 16;
+
     private final PipelineStore store;
     private final ThreadPool threadPool;
 
@@ -58,8 +68,14 @@ public class PipelineExecutionService {
         });
     }
 
+    /**
+     * Executes the pipelines of all index requests in the given bulk. Bulks with enough documents are split into
+     * consecutive chunks that are executed concurrently on the bulk thread pool. Item failures are reported by
+     * their slot in the given requests, in slot order and only once all items have been processed, after which
+     * the completion handler is invoked.
+     */
     public void executeBulkRequest(Iterable<ActionRequest<?>> actionRequests,
-                                   BiConsumer<IndexRequest, Throwable> itemFailureHandler,
+                                   BiConsumer<Integer, Throwable> itemFailureHandler,
                                    Consumer<Throwable> completionHandler) {
         threadPool.executor(ThreadPool.Names.BULK).execute(new AbstractRunnable() {
 
@@ -70,25 +86,129 @@ public class PipelineExecutionService {
 
             @Override
             protected void doRun() throws Exception {
+                List<Integer> slots = new ArrayList<>();
+                List<IndexRequest> indexRequests = new ArrayList<>();
+                int slot = 0;
                 for (ActionRequest actionRequest : actionRequests) {
                     if ((actionRequest instanceof IndexRequest)) {
                         IndexRequest indexRequest = (IndexRequest) actionRequest;
                         if (Strings.hasText(indexRequest.getPipeline())) {
-                            try {
-                                innerExecute(indexRequest, getPipeline(indexRequest.getPipeline()));
-                                //this shouldn't be needed here but we do it for consistency with index api which requires it to prevent double execution
-                                indexRequest.setPipeline(null);
-                            } catch (Throwable e) {
-                                itemFailureHandler.accept(indexRequest, e);
-                            }
+                            slots.add(slot);
+                            indexRequests.add(indexRequest);
                         }
                     }
+                    slot++;
                 }
-                completionHandler.accept(null);
+                new BulkExecution(slots, indexRequests, itemFailureHandler, completionHandler).run();
             }
         });
     }
 
+    /**
+     * Executes the pipelines of a bulk in chunks and completes the bulk once the last chunk is done.
+     */
+    private class BulkExecution {
+
+        private final List<Integer> slots;
+        private final List<IndexRequest> indexRequests;
+        private final Throwable[] failures;
+        private final BiConsumer<Integer, Throwable> itemFailureHandler;
+        private final Consumer<Throwable> completionHandler;
+        private final AtomicInteger pendingChunks = new AtomicInteger();
+
+        BulkExecution(List<Integer> slots, List<IndexRequest> indexRequests, BiConsumer<Integer, Throwable> itemFailureHandler,
+                      Consumer<Throwable> completionHandler) {
+            this.slots = slots;
+            this.indexRequests = indexRequests;
+            this.failures = new Throwable[indexRequests.size()];
+            this.itemFailureHandler = itemFailureHandler;
+            this.completionHandler = completionHandler;
+        }
+
+        void run() {
+            int numItems = indexRequests.size();
+            int numChunks = Math.max(1, Math.min(threadPool.info(ThreadPool.Names.BULK).getMax(), numItems / MIN_BULK_ITEMS_PER_CHUNK));
+            Executor executor = threadPool.executor(ThreadPool.Names.BULK);
+            if (executor instanceof ThreadPoolExecutor) {
+                // only fork chunks to idle bulk threads, queued chunks would take the queue slots of shard bulk requests
+                ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+                int idleThreads = threadPoolExecutor.getQueue().isEmpty() ?
+                        threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount() : 0;
+                numChunks = Math.max(1, Math.min(numChunks, 1 + idleThreads));
+            }
+            int chunkSize = (numItems + numChunks - 1) / numChunks;
+            pendingChunks.set(numChunks);
+            // the first chunk is executed on the current thread, the others are forked to the bulk thread pool
+            for (int chunk = 1; chunk < numChunks; chunk++) {
+                final int from = chunk * chunkSize;
+                final int to = Math.min(numItems, from + chunkSize);
+                executor.execute(new AbstractRunnable() {
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        // items catch their own failures, so this only fails the items that the chunk didn't get to
+                        for (int i = from; i < to; i++) {
+                            if (failures[i] == null && indexRequests.get(i).getPipeline() != null) {
+                                failures[i] = t;
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onRejection(Throwable t) {
+                        // the bulk thread pool got busy in the meantime, executing the chunk on the caller thread rather
+                        // than failing its items mirrors the back pressure of a sequential execution
+                        executeChunk(from, to);
+                    }
+
+                    @Override
+                    protected void doRun() throws Exception {
+                        executeChunk(from, to);
+                    }
+
+                    @Override
+                    public void onAfter() {
+                        // called after the chunk ran, failed or was rejected
+                        onChunkDone();
+                    }
+                });
+            }
+            try {
+                executeChunk(0, Math.min(numItems, chunkSize));
+            } finally {
+                onChunkDone();
+            }
+        }
+
+        private void executeChunk(int from, int to) {
+            for (int i = from; i < to; i++) {
+                IndexRequest indexRequest = indexRequests.get(i);
+                try {
+                    innerExecute(indexRequest, getPipeline(indexRequest.getPipeline()));
+                    //this shouldn't be needed here but we do it for consistency with index api which requires it to prevent double execution
+                    indexRequest.setPipeline(null);
+                } catch (Throwable e) {
+                    failures[i] = e;
+                }
+            }
+        }
+
+        private void onChunkDone() {
+            if (pendingChunks.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            for (int i = 0; i < failures.length; i++) {
+                if (failures[i] != null) {
+                    itemFailureHandler.accept(slots.get(i), failures[i]);
+                }
+            }
+            completionHandler.accept(null);
+        }
+    }
+
     private void innerExecute(IndexRequest indexRequest, Pipeline pipeline) throws Exception {
         String index = indexRequest.index();
         String type = indexRequest.type();
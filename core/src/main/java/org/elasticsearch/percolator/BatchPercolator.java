@@ -0,0 +1,238 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.percolate.PercolateShardResponse;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.fieldvisitor.SingleFieldsVisitor;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.percolator.PercolatorQueriesRegistry;
+import org.elasticsearch.search.highlight.HighlightField;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percolates the documents of several requests that target the same shard in a single pass. The registered queries that
+ * may match any of the documents are selected in a single pass over the percolator documents of the shard, instead of
+ * one pass per document. Along the way, each selected query is checked against the candidate selection of every
+ * document, and it is only verified against the documents that selected it. The verification runs against each
+ * document on its own, exactly like when a single document is percolated, since the rewrite of queries such as fuzzy or
+ * common terms queries depends on the statistics of the index they run on.
+ */
+final class BatchPercolator {
+
+    private BatchPercolator() {
+    }
+
+    /**
+     * Only requests that ask for the ids of the queries matching a single, non nested document are percolated in a batch,
+     * the other features of the percolate api need a context per document.
+     */
+    static boolean canPercolateInBatch(PercolateContext context, ParsedDocument parsedDocument) {
+        return parsedDocument.docs().size() == 1
+                && context.aggregations() == null
+                && context.highlight() == null
+                && context.percolateQuery() == null
+                && context.aliasFilter() == null
+                && context.searcher().getIndexReader().maxDoc() > 0;
+    }
+
+    /**
+     * @param contexts the contexts of the requests to percolate, they must all be on the same shard
+     * @param documents the parsed documents of the requests, in the same order as the contexts
+     * @param queriesRegistry the registered queries of the shard
+     * @return the responses of the requests, in the same order as the contexts
+     */
+    static PercolateShardResponse[] percolate(List<PercolateContext> contexts, List<ParsedDocument> documents,
+                                              PercolatorQueriesRegistry queriesRegistry) throws IOException {
+        assert contexts.size() == documents.size();
+        final IndexReader[] memoryIndices = new IndexReader[contexts.size()];
+        for (int i = 0; i < memoryIndices.length; i++) {
+            PercolateContext context = contexts.get(i);
+            ParsedDocument parsedDocument = documents.get(i);
+            MemoryIndex memoryIndex = MultiDocumentPercolatorIndex.indexDoc(parsedDocument.rootDoc(), new MemoryIndex(true), context,
+                    parsedDocument);
+            memoryIndices[i] = memoryIndex.createSearcher().getIndexReader();
+        }
+        return percolate(contexts, memoryIndices, queriesRegistry);
+    }
+
+    // pkg private for testing, the in-memory index at a position holds the document of the context at the same position
+    static PercolateShardResponse[] percolate(List<PercolateContext> contexts, IndexReader[] memoryIndices,
+                                              PercolatorQueriesRegistry queriesRegistry) throws IOException {
+        assert contexts.size() == memoryIndices.length;
+        try (MultiReader batchReader = new MultiReader(memoryIndices, true)) {
+            final IndexSearcher batchSearcher = new IndexSearcher(batchReader);
+            batchSearcher.setQueryCache(null);
+            final IndexSearcher[] documentSearchers = new IndexSearcher[memoryIndices.length];
+            for (int i = 0; i < memoryIndices.length; i++) {
+                documentSearchers[i] = new IndexSearcher(memoryIndices[i]);
+                documentSearchers[i].setQueryCache(null);
+            }
+            // all contexts are on the same shard, so they all share the same registered queries
+            final PercolateContext first = contexts.get(0);
+            PercolatorQuery.Builder builder = new PercolatorQuery.Builder(batchSearcher, queriesRegistry.getPercolateQueries(),
+                    first.percolatorTypeFilter());
+            PercolatorService.selectCandidateQueries(builder, queriesRegistry, batchReader);
+            // the queries each document selects on its own, checked for every query selected by the batch
+            final Weight[] documentCandidates = new Weight[memoryIndices.length];
+            for (int i = 0; i < memoryIndices.length; i++) {
+                PercolatorQuery.Builder documentBuilder = new PercolatorQuery.Builder(documentSearchers[i],
+                        queriesRegistry.getPercolateQueries(), first.percolatorTypeFilter());
+                PercolatorService.selectCandidateQueries(documentBuilder, queriesRegistry, memoryIndices[i]);
+                documentCandidates[i] = first.searcher().createNormalizedWeight(documentBuilder.buildCandidatesQuery(), false);
+            }
+
+            final BatchCollector collector = new BatchCollector(contexts, documentSearchers, documentCandidates,
+                    queriesRegistry.getPercolateQueries());
+            first.searcher().search(builder.buildCandidatesQuery(), collector);
+            queriesRegistry.onQueriesVerified(collector.candidates, collector.matches);
+
+            final PercolateShardResponse[] responses = new PercolateShardResponse[contexts.size()];
+            for (int i = 0; i < responses.length; i++) {
+                PercolateContext context = contexts.get(i);
+                if (context.isOnlyCount() || context.size() <= 0) {
+                    TopDocs topDocs = new TopDocs(collector.totalHits[i], Lucene.EMPTY_SCORE_DOCS, 0f);
+                    responses[i] = new PercolateShardResponse(topDocs, Collections.emptyMap(), Collections.emptyMap(), context);
+                } else {
+                    List<ScoreDoc> hits = collector.hits.get(i);
+                    float maxScore = hits.isEmpty() ? Float.NaN : 0f;
+                    TopDocs topDocs = new TopDocs(collector.totalHits[i], hits.toArray(new ScoreDoc[hits.size()]), maxScore);
+                    Map<Integer, Map<String, HighlightField>> hls = new HashMap<>(0);
+                    responses[i] = new PercolateShardResponse(topDocs, collector.ids.get(i), hls, context);
+                }
+            }
+            return responses;
+        }
+    }
+
+    /**
+     * Executes the registered query of every candidate percolator document against the in-memory index of each document
+     * that selected it and attributes the matches to the individual documents. The hits of a document are kept in the
+     * order of the percolator documents, since all candidates get the same score.
+     */
+    private static final class BatchCollector extends SimpleCollector {
+
+        private final IndexSearcher[] documentSearchers;
+        private final Weight[] documentCandidates;
+        private final DocIdSetIterator[] documentCandidatesIterators;
+        private final Map<BytesRef, Query> percolatorQueries;
+        private final int[] sizes;
+        private final float[] scores;
+
+        final int[] totalHits;
+        final List<List<ScoreDoc>> hits;
+        final List<Map<Integer, String>> ids;
+        long candidates;
+        long matches;
+
+        private LeafReader reader;
+        private int docBase;
+
+        BatchCollector(List<PercolateContext> contexts, IndexSearcher[] documentSearchers, Weight[] documentCandidates,
+                       Map<BytesRef, Query> percolatorQueries) {
+            this.documentSearchers = documentSearchers;
+            this.documentCandidates = documentCandidates;
+            this.documentCandidatesIterators = new DocIdSetIterator[documentCandidates.length];
+            this.percolatorQueries = percolatorQueries;
+            this.sizes = new int[contexts.size()];
+            this.scores = new float[contexts.size()];
+            this.totalHits = new int[contexts.size()];
+            this.hits = new ArrayList<>(contexts.size());
+            this.ids = new ArrayList<>(contexts.size());
+            for (int i = 0; i < contexts.size(); i++) {
+                PercolateContext context = contexts.get(i);
+                sizes[i] = context.isOnlyCount() ? 0 : Math.max(0, context.size());
+                scores[i] = context.trackScores() ? 0f : PercolatorService.NO_SCORE;
+                hits.add(new ArrayList<>());
+                ids.add(new HashMap<>());
+            }
+        }
+
+        @Override
+        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+            reader = context.reader();
+            docBase = context.docBase;
+            for (int i = 0; i < documentCandidates.length; i++) {
+                Scorer scorer = documentCandidates[i].scorer(context);
+                documentCandidatesIterators[i] = scorer == null ? null : scorer.iterator();
+            }
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+            SingleFieldsVisitor singleFieldsVisitor = new SingleFieldsVisitor(UidFieldMapper.NAME);
+            reader.document(doc, singleFieldsVisitor);
+            String id = singleFieldsVisitor.uid().id();
+            Query percolatorQuery = percolatorQueries.get(new BytesRef(id));
+            if (percolatorQuery == null) {
+                return;
+            }
+            final int shardDoc = docBase + doc;
+            for (int i = 0; i < documentSearchers.length; i++) {
+                DocIdSetIterator selected = documentCandidatesIterators[i];
+                if (selected == null) {
+                    continue;
+                }
+                if (selected.docID() < doc) {
+                    selected.advance(doc);
+                }
+                if (selected.docID() != doc) {
+                    continue;
+                }
+                // counted per document, like when the document is percolated on its own
+                candidates++;
+                if (Lucene.exists(documentSearchers[i], percolatorQuery)) {
+                    matches++;
+                    totalHits[i]++;
+                    if (hits.get(i).size() < sizes[i]) {
+                        hits.get(i).add(new ScoreDoc(shardDoc, scores[i]));
+                        ids.get(i).put(shardDoc, id);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean needsScores() {
+            return false;
+        }
+    }
+}
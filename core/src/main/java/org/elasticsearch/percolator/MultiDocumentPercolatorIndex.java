@@ -102,7 +102,7 @@ class MultiDocumentPercolatorIndex implements PercolatorIndex {
         }
     }
 
-    MemoryIndex indexDoc(ParseContext.Document d, MemoryIndex memoryIndex, PercolateContext context, ParsedDocument parsedDocument) {
+    static MemoryIndex indexDoc(ParseContext.Document d, MemoryIndex memoryIndex, PercolateContext context, ParsedDocument parsedDocument) {
         for (IndexableField field : d.getFields()) {
             Analyzer analyzer = context.analysisService().defaultIndexAnalyzer();
             DocumentMapper documentMapper = context.mapperService().documentMapper(parsedDocument.type());
@@ -236,7 +236,7 @@ public class PercolateContext extends SearchContext {
     }
 
     @Override
-    public SearchLookup lookup() {
+    protected SearchLookup lookupImpl() {
         // we cache this since it's really just a single document lookup - check the init method for details
         assert searchLookup != null : "context is not initialized";
         assert Arrays.equals(searchLookup.doc().getTypes(), getQueryShardContext().getTypes()) : "types mismatch - can't return lookup";
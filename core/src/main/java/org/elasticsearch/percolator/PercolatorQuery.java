@@ -23,6 +23,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermsQuery;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -33,11 +34,15 @@ import org.apache.lucene.search.TwoPhaseIterator;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.index.fieldvisitor.SingleFieldsVisitor;
+import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.percolator.ExtractQueryTermsService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -89,7 +94,27 @@ final class PercolatorQuery extends Query {
             this.queriesMetaDataQuery = ExtractQueryTermsService.createQueryTermsQuery(percolatorIndexSearcher.getIndexReader(), extractedTermsFieldName, unknownQueryFieldname);
         }
 
+        /**
+         * Optionally reduces the number of queries to percolate to the specified query ids, for example selected
+         * from the terms of the document to be percolated when the extracted terms aren't indexed.
+         */
+        void setCandidateQueries(Set<BytesRef> candidateQueryIds) {
+            List<Term> uids = new ArrayList<>(candidateQueryIds.size());
+            for (BytesRef id : candidateQueryIds) {
+                uids.add(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(PercolatorService.TYPE_NAME, id)));
+            }
+            this.queriesMetaDataQuery = new TermsQuery(uids);
+        }
+
         PercolatorQuery build() {
+            return new PercolatorQuery(buildCandidatesQuery(), percolatorIndexSearcher, percolatorQueries, new CounterMetric(), new CounterMetric());
+        }
+
+        /**
+         * @return A query that selects the percolator documents whose queries may match, without verifying the
+         * registered queries themselves
+         */
+        Query buildCandidatesQuery() {
             BooleanQuery.Builder builder = new BooleanQuery.Builder();
             builder.add(percolateTypeQuery, FILTER);
             if (queriesMetaDataQuery != null) {
@@ -98,7 +123,7 @@ final class PercolatorQuery extends Query {
             if (percolateQuery != null){
                 builder.add(percolateQuery, MUST);
             }
-            return new PercolatorQuery(builder.build(), percolatorIndexSearcher, percolatorQueries);
+            return builder.build();
         }
 
     }
@@ -106,11 +131,31 @@ final class PercolatorQuery extends Query {
     private final Query percolatorQueriesQuery;
     private final IndexSearcher percolatorIndexSearcher;
     private final Map<BytesRef, Query> percolatorQueries;
+    // shared with the rewritten query, so that the counts are available on the query that was built
+    private final CounterMetric candidates;
+    private final CounterMetric matches;
 
-    private PercolatorQuery(Query percolatorQueriesQuery, IndexSearcher percolatorIndexSearcher, Map<BytesRef, Query> percolatorQueries) {
+    private PercolatorQuery(Query percolatorQueriesQuery, IndexSearcher percolatorIndexSearcher, Map<BytesRef, Query> percolatorQueries,
+                            CounterMetric candidates, CounterMetric matches) {
         this.percolatorQueriesQuery = percolatorQueriesQuery;
         this.percolatorIndexSearcher = percolatorIndexSearcher;
         this.percolatorQueries = percolatorQueries;
+        this.candidates = candidates;
+        this.matches = matches;
+    }
+
+    /**
+     * @return The number of registered queries that have been verified against the document being percolated
+     */
+    long getCandidateCount() {
+        return candidates.count();
+    }
+
+    /**
+     * @return The number of verified registered queries that matched the document being percolated
+     */
+    long getMatchCount() {
+        return matches.count();
     }
 
     @Override
@@ -121,7 +166,7 @@ final class PercolatorQuery extends Query {
 
         Query rewritten = percolatorQueriesQuery.rewrite(reader);
         if (rewritten != percolatorQueriesQuery) {
-            return new PercolatorQuery(rewritten, percolatorIndexSearcher, percolatorQueries);
+            return new PercolatorQuery(rewritten, percolatorIndexSearcher, percolatorQueries, candidates, matches);
         } else {
             return this;
         }
@@ -216,7 +261,12 @@ final class PercolatorQuery extends Query {
     boolean matchQuery(BytesRef percolatorQueryId) throws IOException {
         Query percolatorQuery = percolatorQueries.get(percolatorQueryId);
         if (percolatorQuery != null) {
-            return Lucene.exists(percolatorIndexSearcher, percolatorQuery);
+            candidates.inc();
+            if (Lucene.exists(percolatorIndexSearcher, percolatorQuery)) {
+                matches.inc();
+                return true;
+            }
+            return false;
         } else {
             return false;
         }
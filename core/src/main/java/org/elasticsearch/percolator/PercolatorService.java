@@ -19,6 +19,7 @@
 package org.elasticsearch.percolator;
 
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.memory.ExtendedMemoryIndex;
@@ -45,6 +46,7 @@ import org.elasticsearch.common.ParseFieldMatcher;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
@@ -60,6 +62,7 @@ import org.elasticsearch.index.percolator.PercolatorFieldMapper;
 import org.elasticsearch.index.percolator.PercolatorQueriesRegistry;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.SearchShardTarget;
@@ -78,10 +81,12 @@ import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -180,6 +185,98 @@ public class PercolatorService extends AbstractComponent implements Releasable {
         percolateQueryRegistry.prePercolate();
         long startTime = System.nanoTime();
 
+        final PercolateContext context = createContext(request, percolateIndexService, indexShard);
+        SearchContext.setCurrent(context);
+        try {
+            ParsedDocument parsedDocument = percolateDocumentParser.parse(request, context, percolateIndexService.mapperService());
+            return percolate(context, parsedDocument, indexShard);
+        } finally {
+            SearchContext.removeCurrent();
+            context.close();
+            percolateQueryRegistry.postPercolate(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Percolates the documents of several requests that target the same shard. The documents of all requests that only
+     * ask for the queries matching a single, non nested document are percolated together, executing every registered
+     * query once against all of them instead of once per document. The remaining requests are percolated one by one.
+     *
+     * @param requests the requests to percolate, all of them must target the same shard
+     * @param responses receives the response of the request at the same position if it succeeded
+     * @param failures receives the failure of the request at the same position if it failed
+     */
+    public void percolate(List<PercolateShardRequest> requests, PercolateShardResponse[] responses, Throwable[] failures) {
+        assert requests.isEmpty() == false;
+        final ShardId shardId = requests.get(0).shardId();
+        final IndexService percolateIndexService;
+        final IndexShard indexShard;
+        try {
+            percolateIndexService = indicesService.indexServiceSafe(shardId.getIndex());
+            indexShard = percolateIndexService.getShard(shardId.id());
+            indexShard.readAllowed(); // check if we can read the shard...
+        } catch (Throwable t) {
+            Arrays.fill(failures, t);
+            return;
+        }
+        final PercolatorQueriesRegistry percolateQueryRegistry = indexShard.percolateRegistry();
+        final List<Integer> batchSlots = new ArrayList<>();
+        final List<PercolateContext> batchContexts = new ArrayList<>();
+        final List<ParsedDocument> batchDocuments = new ArrayList<>();
+        final long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                final PercolateShardRequest request = requests.get(i);
+                assert shardId.equals(request.shardId()) : "expected requests of shard " + shardId + " but got " + request.shardId();
+                percolateQueryRegistry.prePercolate();
+                final long itemStartTime = System.nanoTime();
+                PercolateContext context = null;
+                boolean batched = false;
+                try {
+                    context = createContext(request, percolateIndexService, indexShard);
+                    SearchContext.setCurrent(context);
+                    ParsedDocument parsedDocument = percolateDocumentParser.parse(request, context, percolateIndexService.mapperService());
+                    if (BatchPercolator.canPercolateInBatch(context, parsedDocument)) {
+                        batchSlots.add(i);
+                        batchContexts.add(context);
+                        batchDocuments.add(parsedDocument);
+                        batched = true;
+                    } else {
+                        responses[i] = percolate(context, parsedDocument, indexShard);
+                    }
+                } catch (Throwable t) {
+                    failures[i] = t;
+                } finally {
+                    SearchContext.removeCurrent();
+                    if (batched == false) {
+                        Releasables.close(context);
+                        percolateQueryRegistry.postPercolate(System.nanoTime() - itemStartTime);
+                    }
+                }
+            }
+            if (batchContexts.isEmpty() == false) {
+                try {
+                    PercolateShardResponse[] batchResponses = BatchPercolator.percolate(batchContexts, batchDocuments, percolateQueryRegistry);
+                    for (int i = 0; i < batchSlots.size(); i++) {
+                        responses[batchSlots.get(i)] = batchResponses[i];
+                    }
+                } catch (Throwable t) {
+                    for (int slot : batchSlots) {
+                        failures[slot] = t;
+                    }
+                }
+            }
+        } finally {
+            Releasables.close(batchContexts);
+            // the documents were percolated together, so they share the time it took
+            final long tookInNanos = (System.nanoTime() - startTime) / Math.max(1, batchContexts.size());
+            for (int i = 0; i < batchContexts.size(); i++) {
+                percolateQueryRegistry.postPercolate(tookInNanos);
+            }
+        }
+    }
+
+    private PercolateContext createContext(PercolateShardRequest request, IndexService percolateIndexService, IndexShard indexShard) {
         // TODO: The filteringAliases should be looked up at the coordinating node and serialized with all shard request,
         // just like is done in other apis.
         String[] filteringAliases = indexNameExpressionResolver.filteringAliases(
@@ -191,61 +288,69 @@ public class PercolatorService extends AbstractComponent implements Releasable {
 
         SearchShardTarget searchShardTarget = new SearchShardTarget(clusterService.localNode().id(), request.shardId().getIndex(),
                 request.shardId().id());
-        final PercolateContext context = new PercolateContext(request, searchShardTarget, indexShard, percolateIndexService,
+        return new PercolateContext(request, searchShardTarget, indexShard, percolateIndexService,
                 pageCacheRecycler, bigArrays, scriptService, aliasFilter, parseFieldMatcher, fetchPhase);
-        SearchContext.setCurrent(context);
-        try {
-            ParsedDocument parsedDocument = percolateDocumentParser.parse(request, context, percolateIndexService.mapperService());
-            if (context.searcher().getIndexReader().maxDoc() == 0) {
-                return new PercolateShardResponse(Lucene.EMPTY_TOP_DOCS, Collections.emptyMap(), Collections.emptyMap(), context);
-            }
-            if (context.size() < 0) {
-                context.size(0);
-            }
+    }
 
-            // parse the source either into one MemoryIndex, if it is a single document or index multiple docs if nested
-            PercolatorIndex percolatorIndex;
-            DocumentMapper documentMapper = indexShard.mapperService().documentMapper(request.documentType());
-            boolean isNested = documentMapper != null && documentMapper.hasNestedObjects();
-            if (parsedDocument.docs().size() > 1) {
-                assert isNested;
-                percolatorIndex = multi;
-            } else {
-                percolatorIndex = single;
-            }
-            percolatorIndex.prepare(context, parsedDocument);
-
-            BucketCollector aggregatorCollector = null;
-            if (context.aggregations() != null) {
-                AggregationContext aggregationContext = new AggregationContext(context);
-                context.aggregations().aggregationContext(aggregationContext);
-                Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
-                List<Aggregator> aggregatorCollectors = new ArrayList<>(aggregators.length);
-                for (int i = 0; i < aggregators.length; i++) {
-                    if (!(aggregators[i] instanceof GlobalAggregator)) {
-                        Aggregator aggregator = aggregators[i];
-                        aggregatorCollectors.add(aggregator);
+    private PercolateShardResponse percolate(PercolateContext context, ParsedDocument parsedDocument, IndexShard indexShard) throws IOException {
+        if (context.searcher().getIndexReader().maxDoc() == 0) {
+            return new PercolateShardResponse(Lucene.EMPTY_TOP_DOCS, Collections.emptyMap(), Collections.emptyMap(), context);
+        }
+        if (context.size() < 0) {
+            context.size(0);
+        }
+
+        // parse the source either into one MemoryIndex, if it is a single document or index multiple docs if nested
+        PercolatorIndex percolatorIndex;
+        DocumentMapper documentMapper = indexShard.mapperService().documentMapper(parsedDocument.type());
+        boolean isNested = documentMapper != null && documentMapper.hasNestedObjects();
+        if (parsedDocument.docs().size() > 1) {
+            assert isNested;
+            percolatorIndex = multi;
+        } else {
+            percolatorIndex = single;
+        }
+        percolatorIndex.prepare(context, parsedDocument);
+
+        BucketCollector aggregatorCollector = null;
+        if (context.aggregations() != null) {
+            AggregationContext aggregationContext = new AggregationContext(context);
+            context.aggregations().aggregationContext(aggregationContext);
+            Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+            List<Aggregator> aggregatorCollectors = new ArrayList<>(aggregators.length);
+            for (int i = 0; i < aggregators.length; i++) {
+                if (!(aggregators[i] instanceof GlobalAggregator)) {
+                    Aggregator aggregator = aggregators[i];
+                    aggregatorCollectors.add(aggregator);
                 }
             }
-                context.aggregations().aggregators(aggregators);
-                aggregatorCollector = BucketCollector.wrap(aggregatorCollectors);
-                aggregatorCollector.preCollection();
+            context.aggregations().aggregators(aggregators);
+            aggregatorCollector = BucketCollector.wrap(aggregatorCollectors);
+            aggregatorCollector.preCollection();
+        }
+        PercolatorQueriesRegistry queriesRegistry = indexShard.percolateRegistry();
+        return doPercolate(context, queriesRegistry, aggregationPhase, aggregatorCollector, highlightPhase);
+    }
+
+    /**
+     * Reduces the queries to percolate to the ones that may match the documents in the provided in-memory index.
+     */
+    static void selectCandidateQueries(PercolatorQuery.Builder builder, PercolatorQueriesRegistry queriesRegistry, IndexReader docReader) throws IOException {
+        if (queriesRegistry.indexSettings().getSettings().getAsVersion(IndexMetaData.SETTING_VERSION_CREATED, null).onOrAfter(Version.V_3_0_0)) {
+            builder.extractQueryTermsQuery(PercolatorFieldMapper.EXTRACTED_TERMS_FULL_FIELD_NAME, PercolatorFieldMapper.UNKNOWN_QUERY_FULL_FIELD_NAME);
+        } else {
+            // older indices don't have the extracted terms indexed, the registry keeps them in memory instead
+            Set<BytesRef> candidateQueries = queriesRegistry.getCandidateQueries(docReader);
+            if (candidateQueries != null) {
+                builder.setCandidateQueries(candidateQueries);
             }
-            PercolatorQueriesRegistry queriesRegistry = indexShard.percolateRegistry();
-            return doPercolate(context, queriesRegistry, aggregationPhase, aggregatorCollector, highlightPhase);
-        } finally {
-            SearchContext.removeCurrent();
-            context.close();
-            percolateQueryRegistry.postPercolate(System.nanoTime() - startTime);
         }
     }
 
     // moved the core percolation logic to a pck protected method to make testing easier:
     static PercolateShardResponse doPercolate(PercolateContext context, PercolatorQueriesRegistry queriesRegistry, AggregationPhase aggregationPhase, @Nullable BucketCollector aggregatorCollector, HighlightPhase highlightPhase) throws IOException {
         PercolatorQuery.Builder builder = new PercolatorQuery.Builder(context.docSearcher(), queriesRegistry.getPercolateQueries(), context.percolatorTypeFilter());
-        if (queriesRegistry.indexSettings().getSettings().getAsVersion(IndexMetaData.SETTING_VERSION_CREATED, null).onOrAfter(Version.V_3_0_0)) {
-            builder.extractQueryTermsQuery(PercolatorFieldMapper.EXTRACTED_TERMS_FULL_FIELD_NAME, PercolatorFieldMapper.UNKNOWN_QUERY_FULL_FIELD_NAME);
-        }
+        selectCandidateQueries(builder, queriesRegistry, context.docSearcher().getIndexReader());
         if (context.percolateQuery() != null || context.aliasFilter() != null) {
             BooleanQuery.Builder bq = new BooleanQuery.Builder();
                         if (context.percolateQuery() != null) {
@@ -261,6 +366,7 @@ public class PercolatorService extends AbstractComponent implements Releasable {
         if (context.isOnlyCount() || context.size() == 0) {
             TotalHitCountCollector collector = new TotalHitCountCollector();
             context.searcher().search(percolatorQuery, MultiCollector.wrap(collector, aggregatorCollector));
+            queriesRegistry.onQueriesVerified(percolatorQuery.getCandidateCount(), percolatorQuery.getMatchCount());
             if (aggregatorCollector != null) {
                 aggregatorCollector.postCollection();
                 aggregationPhase.execute(context);
@@ -275,6 +381,7 @@ public class PercolatorService extends AbstractComponent implements Releasable {
             }
             TopScoreDocCollector collector = TopScoreDocCollector.create(size);
             context.searcher().search(percolatorQuery, MultiCollector.wrap(collector, aggregatorCollector));
+            queriesRegistry.onQueriesVerified(percolatorQuery.getCandidateCount(), percolatorQuery.getMatchCount());
             if (aggregatorCollector != null) {
                 aggregatorCollector.postCollection();
                 aggregationPhase.execute(context);
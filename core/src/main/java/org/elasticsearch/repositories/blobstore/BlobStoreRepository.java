@@ -152,6 +152,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
 
     private final RateLimiter restoreRateLimiter;
 
+    private final int maxConcurrentFileTransfers;
+
     private final CounterMetric snapshotRateLimitingTimeInNanos = new CounterMetric();
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
@@ -183,6 +185,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
         this.indexShardRepository = (BlobStoreIndexShardRepository) indexShardRepository;
         snapshotRateLimiter = getRateLimiter(repositorySettings, "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(repositorySettings, "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
+        maxConcurrentFileTransfers = repositorySettings.settings().getAsInt("max_concurrent_file_transfers", 1);
+        if (maxConcurrentFileTransfers < 1) {
+            throw new RepositoryException(repositoryName, "max_concurrent_file_transfers must be >= 1 but was [" + maxConcurrentFileTransfers + "]");
+        }
         readOnly = repositorySettings.settings().getAsBoolean("readonly", false);
     }
 
@@ -192,7 +198,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent<Rep
     @Override
     protected void doStart() {
         this.snapshotsBlobContainer = blobStore().blobContainer(basePath());
-        indexShardRepository.initialize(blobStore(), basePath(), chunkSize(), snapshotRateLimiter, restoreRateLimiter, this, isCompress());
+        indexShardRepository.initialize(blobStore(), basePath(), chunkSize(), snapshotRateLimiter, restoreRateLimiter, this, isCompress(),
+                maxConcurrentFileTransfers);
 
         ParseFieldMatcher parseFieldMatcher = new ParseFieldMatcher(settings);
         globalMetaDataFormat = new ChecksumBlobStoreFormat<>(METADATA_CODEC, METADATA_NAME_FORMAT, MetaData.PROTO, parseFieldMatcher, isCompress());
@@ -191,6 +191,8 @@ public class RestNodesAction extends AbstractCatAction {
         table.addCell("refresh.time", "alias:rti,refreshTime;default:false;text-align:right;desc:time spent in refreshes");
 
         table.addCell("script.compilations", "alias:scrcc,scriptCompilations;default:false;text-align:right;desc:script compilations");
+        table.addCell("script.compilation_time", "alias:scrct,scriptCompilationTime;default:false;text-align:right;desc:time spent compiling scripts");
+        table.addCell("script.cache_hits", "alias:scrch,scriptCacheHits;default:false;text-align:right;desc:compiled scripts found in cache");
         table.addCell("script.cache_evictions", "alias:scrce,scriptCacheEvictions;default:false;text-align:right;desc:script cache evictions");
 
         table.addCell("search.fetch_current", "alias:sfc,searchFetchCurrent;default:false;text-align:right;desc:current fetch phase ops");
@@ -333,6 +335,8 @@ public class RestNodesAction extends AbstractCatAction {
 
             ScriptStats scriptStats = stats == null ? null : stats.getScriptStats();
             table.addCell(scriptStats == null ? null : scriptStats.getCompilations());
+            table.addCell(scriptStats == null ? null : scriptStats.getCompilationTime());
+            table.addCell(scriptStats == null ? null : scriptStats.getCacheHits());
             table.addCell(scriptStats == null ? null : scriptStats.getCacheEvictions());
 
             SearchStats searchStats = indicesStats == null ? null : indicesStats.getSearch();
@@ -21,18 +21,32 @@ package org.elasticsearch.script;
 
 import org.elasticsearch.common.metrics.CounterMetric;
 
+import java.util.concurrent.TimeUnit;
+
 public class ScriptMetrics {
     final CounterMetric compilationsMetric = new CounterMetric();
+    final CounterMetric compilationTimeMetric = new CounterMetric();
+    final CounterMetric cacheHitsMetric = new CounterMetric();
     final CounterMetric cacheEvictionsMetric = new CounterMetric();
 
     public ScriptStats stats() {
-        return new ScriptStats(compilationsMetric.count(), cacheEvictionsMetric.count());
+        return new ScriptStats(compilationsMetric.count(), TimeUnit.NANOSECONDS.toMillis(compilationTimeMetric.count()),
+                cacheHitsMetric.count(), cacheEvictionsMetric.count());
     }
 
     public void onCompilation() {
         compilationsMetric.inc();
     }
 
+    public void onCompilation(long tookInNanos) {
+        compilationsMetric.inc();
+        compilationTimeMetric.inc(tookInNanos);
+    }
+
+    public void onCacheHit() {
+        cacheHitsMetric.inc();
+    }
+
     public void onCacheEviction() {
         cacheEvictionsMetric.inc();
     }
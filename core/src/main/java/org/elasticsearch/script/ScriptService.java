@@ -37,6 +37,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.CacheLoader;
 import org.elasticsearch.common.cache.RemovalListener;
 import org.elasticsearch.common.cache.RemovalNotification;
 import org.elasticsearch.common.collect.Tuple;
@@ -74,6 +75,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -305,20 +307,44 @@ public class ScriptService extends AbstractComponent implements Closeable {
 
         CacheKey cacheKey = new CacheKey(scriptEngineService, type == ScriptType.INLINE ? null : name, code, params);
         CompiledScript compiledScript = cache.get(cacheKey);
+        if (compiledScript != null) {
+            scriptMetrics.onCacheHit();
+            return compiledScript;
+        }
 
-        if (compiledScript == null) {
-            //Either an un-cached inline script or indexed script
-            //If the script type is inline the name will be the same as the code for identification in exceptions
+        //Either an un-cached inline script or indexed script
+        //If the script type is inline the name will be the same as the code for identification in exceptions
+        //Concurrent requests for the same script wait for a single compilation rather than each compiling it
+        final String scriptName = name;
+        final String scriptCode = code;
+        final CacheLoader<CacheKey, CompiledScript> loader = key -> {
+            long start = System.nanoTime();
+            CompiledScript compiled;
             try {
-                compiledScript = new CompiledScript(type, name, lang, scriptEngineService.compile(code, params));
+                compiled = new CompiledScript(type, scriptName, lang, scriptEngineService.compile(scriptCode, params));
             } catch (Exception exception) {
-                throw new ScriptException("Failed to compile " + type + " script [" + name + "] using lang [" + lang + "]", exception);
+                throw new ScriptException("Failed to compile " + type + " script [" + scriptName + "] using lang [" + lang + "]", exception);
             }
-
             //Since the cache key is the script content itself we don't need to
             //invalidate/check the cache if an indexed script changes.
-            scriptMetrics.onCompilation();
-            cache.put(cacheKey, compiledScript);
+            scriptMetrics.onCompilation(System.nanoTime() - start);
+            return compiled;
+        };
+        try {
+            compiledScript = cache.computeIfAbsent(cacheKey, loader);
+            if (compiledScript == null) {
+                //The thread that was compiling the script for us failed, and waiting threads only get null rather than its
+                //failure. Try once more to either compile the script ourselves or get the failure.
+                compiledScript = cache.computeIfAbsent(cacheKey, loader);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScriptException) {
+                throw (ScriptException) e.getCause();
+            }
+            throw new ScriptException("Failed to compile " + type + " script [" + name + "] using lang [" + lang + "]", e.getCause());
+        }
+        if (compiledScript == null) {
+            throw new ScriptException("Failed to compile " + type + " script [" + name + "] using lang [" + lang + "]: concurrent compilations failed");
         }
 
         return compiledScript;
@@ -650,12 +676,19 @@ public class ScriptService extends AbstractComponent implements Closeable {
         final String name;
         final String code;
         final Map<String, String> params;
+        // keys are hashed more than once per lookup, and the code of inline scripts can be long
+        private final int hashCode;
 
         private CacheKey(final ScriptEngineService service, final String name, final String code, final Map<String, String> params) {
             this.lang = service.getTypes().get(0);
             this.name = name;
             this.code = code;
             this.params = params;
+            int result = lang.hashCode();
+            result = 31 * result + (name != null ? name.hashCode() : 0);
+            result = 31 * result + (code != null ? code.hashCode() : 0);
+            result = 31 * result + params.hashCode();
+            this.hashCode = result;
         }
 
         @Override
@@ -665,6 +698,7 @@ public class ScriptService extends AbstractComponent implements Closeable {
 
             CacheKey cacheKey = (CacheKey)o;
 
+            if (hashCode != cacheKey.hashCode) return false;
             if (!lang.equals(cacheKey.lang)) return false;
             if (name != null ? !name.equals(cacheKey.name) : cacheKey.name != null) return false;
             if (code != null ? !code.equals(cacheKey.code) : cacheKey.code != null) return false;
@@ -674,11 +708,7 @@ public class ScriptService extends AbstractComponent implements Closeable {
 
         @Override
         public int hashCode() {
-            int result = lang.hashCode();
-            result = 31 * result + (name != null ? name.hashCode() : 0);
-            result = 31 * result + (code != null ? code.hashCode() : 0);
-            result = 31 * result + params.hashCode();
-            return result;
+            return hashCode;
         }
     }
 
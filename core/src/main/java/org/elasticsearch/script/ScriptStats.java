@@ -22,6 +22,7 @@ package org.elasticsearch.script;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -30,18 +31,28 @@ import java.io.IOException;
 
 public class ScriptStats implements Streamable, ToXContent {
     private long compilations;
+    private long compilationTimeInMillis;
+    private long cacheHits;
     private long cacheEvictions;
 
     public ScriptStats() {
     }
 
     public ScriptStats(long compilations, long cacheEvictions) {
+        this(compilations, 0, 0, cacheEvictions);
+    }
+
+    public ScriptStats(long compilations, long compilationTimeInMillis, long cacheHits, long cacheEvictions) {
         this.compilations = compilations;
+        this.compilationTimeInMillis = compilationTimeInMillis;
+        this.cacheHits = cacheHits;
         this.cacheEvictions = cacheEvictions;
     }
 
     public void add(ScriptStats stats) {
         this.compilations += stats.compilations;
+        this.compilationTimeInMillis += stats.compilationTimeInMillis;
+        this.cacheHits += stats.cacheHits;
         this.cacheEvictions += stats.cacheEvictions;
     }
 
@@ -49,6 +60,21 @@ public class ScriptStats implements Streamable, ToXContent {
         return compilations;
     }
 
+    public long getCompilationTimeInMillis() {
+        return compilationTimeInMillis;
+    }
+
+    public TimeValue getCompilationTime() {
+        return new TimeValue(compilationTimeInMillis);
+    }
+
+    /**
+     * The number of times a compiled script was found in the cache.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
     public long getCacheEvictions() {
         return cacheEvictions;
     }
@@ -56,12 +82,16 @@ public class ScriptStats implements Streamable, ToXContent {
     @Override
     public void readFrom(StreamInput in) throws IOException {
         compilations = in.readVLong();
+        compilationTimeInMillis = in.readVLong();
+        cacheHits = in.readVLong();
         cacheEvictions = in.readVLong();
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(compilations);
+        out.writeVLong(compilationTimeInMillis);
+        out.writeVLong(cacheHits);
         out.writeVLong(cacheEvictions);
     }
 
@@ -69,6 +99,8 @@ public class ScriptStats implements Streamable, ToXContent {
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.SCRIPT_STATS);
         builder.field(Fields.COMPILATIONS, getCompilations());
+        builder.timeValueField(Fields.COMPILATION_TIME_IN_MILLIS, Fields.COMPILATION_TIME, getCompilationTimeInMillis());
+        builder.field(Fields.CACHE_HITS, getCacheHits());
         builder.field(Fields.CACHE_EVICTIONS, getCacheEvictions());
         builder.endObject();
         return builder;
@@ -77,6 +109,9 @@ public class ScriptStats implements Streamable, ToXContent {
     static final class Fields {
         static final XContentBuilderString SCRIPT_STATS = new XContentBuilderString("script");
         static final XContentBuilderString COMPILATIONS = new XContentBuilderString("compilations");
+        static final XContentBuilderString COMPILATION_TIME = new XContentBuilderString("compilation_time");
+        static final XContentBuilderString COMPILATION_TIME_IN_MILLIS = new XContentBuilderString("compilation_time_in_millis");
+        static final XContentBuilderString CACHE_HITS = new XContentBuilderString("cache_hits");
         static final XContentBuilderString CACHE_EVICTIONS = new XContentBuilderString("cache_evictions");
     }
 }
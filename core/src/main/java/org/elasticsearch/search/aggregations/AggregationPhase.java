@@ -18,10 +18,12 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.search.SearchParseElement;
@@ -33,6 +35,7 @@ import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.CollectorResult;
 import org.elasticsearch.search.profile.InternalProfileCollector;
+import org.elasticsearch.search.profile.PhaseProfiler;
 import org.elasticsearch.search.query.QueryPhaseExecutionException;
 
 import java.io.IOException;
@@ -85,10 +88,12 @@ public class AggregationPhase implements SearchPhase {
                 }
                 context.aggregations().aggregators(aggregators);
                 if (!collectors.isEmpty()) {
-                    Collector collector = BucketCollector.wrap(collectors);
-                    ((BucketCollector)collector).preCollection();
+                    BucketCollector bucketCollector = BucketCollector.wrap(collectors);
+                    bucketCollector.preCollection();
+                    Collector collector = bucketCollector;
                     if (context.getProfilers() != null) {
-                        collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
+                        collector = new InternalProfileCollector(profile(collectors, context.getProfilers().getAggregationProfiler()),
+                                bucketCollector, CollectorResult.REASON_AGGREGATION,
                                 // TODO: report on child aggs as well
                                 Collections.emptyList());
                     }
@@ -139,7 +144,8 @@ public class AggregationPhase implements SearchPhase {
                     collector = globalsCollector;
                 } else {
                     InternalProfileCollector profileCollector = new InternalProfileCollector(
-                            globalsCollector, CollectorResult.REASON_AGGREGATION_GLOBAL,
+                            profile(globals, context.getProfilers().getAggregationProfiler()), globalsCollector,
+                            CollectorResult.REASON_AGGREGATION_GLOBAL,
                             // TODO: report on sub collectors
                             Collections.emptyList());
                     collector = profileCollector;
@@ -156,10 +162,15 @@ public class AggregationPhase implements SearchPhase {
         }
 
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        final PhaseProfiler profiler = context.getProfilers() == null ? null : context.getProfilers().getAggregationProfiler();
         for (Aggregator aggregator : context.aggregations().aggregators()) {
             try {
-                aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
+                if (profiler == null) {
+                    aggregator.postCollection();
+                    aggregations.add(aggregator.buildAggregation(0));
+                } else {
+                    aggregations.add(profileBuildAggregation(aggregator, profiler));
+                }
             } catch (IOException e) {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
@@ -187,4 +198,94 @@ public class AggregationPhase implements SearchPhase {
         context.queryCollectors().remove(AggregationPhase.class);
     }
 
+    /**
+     * Wraps the given aggregators into a single collector that records the time each of them spends collecting.
+     */
+    private static BucketCollector profile(List<Aggregator> aggregators, PhaseProfiler profiler) {
+        List<BucketCollector> collectors = new ArrayList<>(aggregators.size());
+        for (Aggregator aggregator : aggregators) {
+            final PhaseProfiler.Timer timer = profiler.getTimer(aggregator.name(), type(aggregator), "collect");
+            collectors.add(new BucketCollector() {
+
+                @Override
+                public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+                    final LeafBucketCollector in;
+                    timer.start();
+                    try {
+                        in = aggregator.getLeafCollector(ctx);
+                    } finally {
+                        timer.stop();
+                    }
+                    if (in == LeafBucketCollector.NO_OP_COLLECTOR) {
+                        return in;
+                    }
+                    return new LeafBucketCollector() {
+
+                        @Override
+                        public void setScorer(Scorer scorer) throws IOException {
+                            in.setScorer(scorer);
+                        }
+
+                        @Override
+                        public void collect(int doc, long bucket) throws IOException {
+                            timer.start();
+                            try {
+                                in.collect(doc, bucket);
+                            } finally {
+                                timer.stop();
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public void preCollection() throws IOException {
+                    aggregator.preCollection();
+                }
+
+                @Override
+                public void postCollection() throws IOException {
+                    aggregator.postCollection();
+                }
+
+                @Override
+                public boolean needsScores() {
+                    return aggregator.needsScores();
+                }
+
+                @Override
+                public String toString() {
+                    return aggregator.toString();
+                }
+            });
+        }
+        return BucketCollector.wrap(collectors);
+    }
+
+    private static InternalAggregation profileBuildAggregation(Aggregator aggregator, PhaseProfiler profiler) throws IOException {
+        PhaseProfiler.Timer timer = profiler.getTimer(aggregator.name(), type(aggregator), "post_collection");
+        timer.start();
+        try {
+            aggregator.postCollection();
+        } finally {
+            timer.stop();
+        }
+        timer = profiler.getTimer(aggregator.name(), type(aggregator), "build_aggregation");
+        timer.start();
+        try {
+            return aggregator.buildAggregation(0);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private static String type(Aggregator aggregator) {
+        Class<?> clazz = aggregator.getClass();
+        // some aggregators are anonymous classes, name them after the class that creates them
+        while (clazz.getSimpleName().isEmpty() && clazz.getEnclosingClass() != null) {
+            clazz = clazz.getEnclosingClass();
+        }
+        return clazz.getSimpleName();
+    }
+
 }
@@ -94,10 +94,16 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
 
         private final BigArrays bigArrays;
         private ScriptService scriptService;
+        private final boolean isFinalReduce;
 
         public ReduceContext(BigArrays bigArrays, ScriptService scriptService) {
+            this(bigArrays, scriptService, true);
+        }
+
+        public ReduceContext(BigArrays bigArrays, ScriptService scriptService, boolean isFinalReduce) {
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
+            this.isFinalReduce = isFinalReduce;
         }
 
         public BigArrays bigArrays() {
@@ -107,6 +113,16 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
         public ScriptService scriptService() {
             return scriptService;
         }
+
+        /**
+         * Returns <code>true</code> iff the current reduce phase is the final reduce phase. Partial reduce phases merge the
+         * results of a subset of the shards and their output is reduced again later on, so they must not drop or truncate
+         * anything the final reduce phase relies on (eg. buckets under <code>min_doc_count</code> or beyond <code>size</code>),
+         * and must not run pipeline aggregations or reduce scripts.
+         */
+        public boolean isFinalReduce() {
+            return isFinalReduce;
+        }
     }
 
 
@@ -148,8 +164,10 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
      */
     public final InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         InternalAggregation aggResult = doReduce(aggregations, reduceContext);
-        for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
-            aggResult = pipelineAggregator.reduce(aggResult, reduceContext);
+        if (reduceContext.isFinalReduce()) {
+            for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
+                aggResult = pipelineAggregator.reduce(aggResult, reduceContext);
+            }
         }
         return aggResult;
     }
@@ -219,7 +219,8 @@ public class InternalGeoHashGrid extends InternalMultiBucketAggregation<Internal
             }
         }
 
-        final int size = (int) Math.min(requiredSize, buckets.size());
+        // only the final reduce truncates to the required size, partial reduces must keep all cells
+        final int size = (int) (reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size());
         BucketPriorityQueue ordered = new BucketPriorityQueue(size);
         for (LongObjectPagedHashMap.Cursor<List<Bucket>> cursor : buckets) {
             List<Bucket> sameCellBuckets = cursor.value;
@@ -19,8 +19,13 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.elasticsearch.action.fieldstats.FieldStats;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
@@ -40,6 +45,11 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 public abstract class AbstractHistogramAggregatorFactory<AF extends AbstractHistogramAggregatorFactory<AF>>
         extends ValuesSourceAggregatorFactory<ValuesSource.Numeric, AF> {
 
+    /**
+     * The maximum number of keys for which the aggregator uses dense bucket ordinals rather than hashing keys.
+     */
+    static final int MAX_DENSE_KEYS = 1 << 16;
+
     protected final long interval;
     protected final long offset;
     protected final InternalOrder order;
@@ -47,6 +57,8 @@ public abstract class AbstractHistogramAggregatorFactory<AF extends AbstractHist
     protected final long minDocCount;
     protected final ExtendedBounds extendedBounds;
     private final InternalHistogram.Factory<?> histogramFactory;
+    private FieldStats<?> fieldStats;
+    private boolean fieldStatsLoaded;
 
     public AbstractHistogramAggregatorFactory(String name, Type type, ValuesSourceConfig<Numeric> config, long interval, long offset,
             InternalOrder order, boolean keyed, long minDocCount, ExtendedBounds extendedBounds,
@@ -104,8 +116,72 @@ public abstract class AbstractHistogramAggregatorFactory<AF extends AbstractHist
             extendedBounds.processAndValidate(name, context.searchContext(), config.parser());
             roundedBounds = extendedBounds.round(rounding);
         }
-        return new HistogramAggregator(name, factories, rounding, order, keyed, minDocCount, roundedBounds, valuesSource,
-                config.formatter(), histogramFactory, context, parent, pipelineAggregators, metaData);
+        // the keys of consecutive buckets are contiguous, so if the range of the keys is known and small enough the aggregator
+        // can compute bucket ordinals from the keys directly: first try the range of the field, then the extended bounds.
+        // Sub-aggregators allocate memory up to the highest ordinal, so they would pay for every key of the range even if the
+        // query only hits a few of them. The same goes for the histogram itself under a parent aggregation, which creates one
+        // histogram per parent bucket, so dense ordinals are only used for top-level histograms.
+        long minDenseKey = 0;
+        long maxDenseKey = -1;
+        if (parent == null && hasContiguousKeys() && factories.countAggregators() == 0) {
+            FieldStats<?> stats = fieldStats();
+            if (stats != null) {
+                minDenseKey = rounding.roundKey(((Number) stats.getMinValue()).longValue());
+                maxDenseKey = rounding.roundKey(((Number) stats.getMaxValue()).longValue());
+            }
+            if (isDense(minDenseKey, maxDenseKey) == false && roundedBounds != null && roundedBounds.min != null
+                    && roundedBounds.max != null) {
+                minDenseKey = rounding.roundKey(roundedBounds.min);
+                maxDenseKey = rounding.roundKey(roundedBounds.max);
+            }
+            if (isDense(minDenseKey, maxDenseKey) == false) {
+                minDenseKey = 0;
+                maxDenseKey = -1;
+            }
+        }
+        return new HistogramAggregator(name, factories, rounding, minDenseKey, maxDenseKey, cacheBucketBoundaries(), order, keyed,
+                minDocCount, roundedBounds, valuesSource, config.formatter(), histogramFactory, context, parent, pipelineAggregators,
+                metaData);
+    }
+
+    private static boolean isDense(long minKey, long maxKey) {
+        return maxKey - minKey >= 0 && maxKey - minKey < MAX_DENSE_KEYS;
+    }
+
+    /**
+     * Whether consecutive buckets of the rounding that this factory creates have consecutive keys.
+     */
+    protected boolean hasContiguousKeys() {
+        return true;
+    }
+
+    /**
+     * Whether the aggregators should remember the boundaries of the buckets they collect rather than rounding every value.
+     */
+    protected boolean cacheBucketBoundaries() {
+        return false;
+    }
+
+    /**
+     * Returns the statistics of the numeric field that this histogram is computed on, or <code>null</code> if they are not available,
+     * eg. because the values come from a script.
+     */
+    private synchronized FieldStats<?> fieldStats() throws IOException {
+        if (fieldStatsLoaded == false) {
+            fieldStatsLoaded = true;
+            if (config.fieldContext() != null && config.script() == null
+                    && config.fieldContext().fieldType() instanceof NumberFieldMapper.NumberFieldType) {
+                IndexReader reader = context.searchContext().searcher().getIndexReader();
+                Terms terms = MultiFields.getTerms(reader, config.fieldContext().field());
+                if (terms != null) {
+                    FieldStats<?> stats = config.fieldContext().fieldType().stats(terms, reader.maxDoc());
+                    if (stats.getMinValue() instanceof Number && stats.getMaxValue() instanceof Number) {
+                        fieldStats = stats;
+                    }
+                }
+            }
+        }
+        return fieldStats;
     }
 
 }
@@ -94,4 +94,16 @@ public class DateHistogramAggregatorFactory extends AbstractHistogramAggregatorF
         return rounding;
     }
 
+    @Override
+    protected boolean hasContiguousKeys() {
+        // keys are the start of the buckets in milliseconds
+        return false;
+    }
+
+    @Override
+    protected boolean cacheBucketBoundaries() {
+        // rounding dates is costly in time zones with transitions, while in UTC or at a fixed offset it is cheap arithmetic
+        return timeZone() != null && timeZone().isFixed() == false;
+    }
+
 }
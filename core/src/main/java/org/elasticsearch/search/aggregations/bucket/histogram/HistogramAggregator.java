@@ -50,6 +50,7 @@ import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -71,15 +72,40 @@ public class HistogramAggregator extends BucketsAggregator {
     private final ExtendedBounds extendedBounds;
     private final InternalHistogram.Factory histogramFactory;
 
+    private final long minDenseKey;
+    private final long maxDenseKey;
+    private final long numDenseKeys;
+    private final BucketBoundaries bucketBoundaries;
     private final LongHash bucketOrds;
 
     public HistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, InternalOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
             ValueFormatter formatter, InternalHistogram.Factory<?> histogramFactory, AggregationContext aggregationContext,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        this(name, factories, rounding, 0, -1, false, order, keyed, minDocCount, extendedBounds, valuesSource, formatter, histogramFactory,
+                aggregationContext, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * Create a histogram aggregator whose keys in <code>[minDenseKey, maxDenseKey]</code> are mapped to bucket ordinals by
+     * subtracting <code>minDenseKey</code> rather than through a hash table. This requires the keys of consecutive buckets of
+     * the rounding to be consecutive. Keys outside of this range are hashed and their buckets get the ordinals that follow
+     * the dense ones. An empty range (<code>maxDenseKey &lt; minDenseKey</code>) disables dense ordinals. If
+     * <code>cacheBucketBoundaries</code> is set, the aggregator rounds each bucket only once and looks the keys of other values
+     * up in the boundaries of the buckets it already saw, which pays off for costly roundings such as time zone aware ones.
+     */
+    public HistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, long minDenseKey, long maxDenseKey,
+            boolean cacheBucketBoundaries, InternalOrder order, boolean keyed, long minDocCount, @Nullable ExtendedBounds extendedBounds,
+            @Nullable ValuesSource.Numeric valuesSource, ValueFormatter formatter, InternalHistogram.Factory<?> histogramFactory,
+            AggregationContext aggregationContext, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
         this.rounding = rounding;
+        this.minDenseKey = minDenseKey;
+        this.maxDenseKey = maxDenseKey;
+        this.numDenseKeys = maxDenseKey < minDenseKey ? 0 : maxDenseKey - minDenseKey + 1;
+        this.bucketBoundaries = cacheBucketBoundaries ? new BucketBoundaries(rounding, BucketBoundaries.MAX_BUCKETS) : null;
         this.order = order;
         this.keyed = keyed;
         this.minDocCount = minDocCount;
@@ -91,6 +117,13 @@ public class HistogramAggregator extends BucketsAggregator {
         bucketOrds = new LongHash(1, aggregationContext.bigArrays());
     }
 
+    /**
+     * Returns the number of keys that are mapped to bucket ordinals without hashing.
+     */
+    long numDenseKeys() {
+        return numDenseKeys;
+    }
+
     @Override
     public boolean needsScores() {
         return (valuesSource != null && valuesSource.needsScores()) || super.needsScores();
@@ -113,17 +146,21 @@ public class HistogramAggregator extends BucketsAggregator {
                 long previousKey = Long.MIN_VALUE;
                 for (int i = 0; i < valuesCount; ++i) {
                     long value = values.valueAt(i);
-                    long key = rounding.roundKey(value);
+                    long key = bucketBoundaries == null ? rounding.roundKey(value) : bucketBoundaries.roundKey(value);
                     assert key >= previousKey;
                     if (key == previousKey) {
                         continue;
                     }
-                    long bucketOrd = bucketOrds.add(key);
-                    if (bucketOrd < 0) { // already seen
-                        bucketOrd = -1 - bucketOrd;
-                        collectExistingBucket(sub, doc, bucketOrd);
+                    if (key >= minDenseKey && key <= maxDenseKey) {
+                        collectBucket(sub, doc, key - minDenseKey);
                     } else {
-                        collectBucket(sub, doc, bucketOrd);
+                        long bucketOrd = bucketOrds.add(key);
+                        if (bucketOrd < 0) { // already seen
+                            bucketOrd = -1 - bucketOrd;
+                            collectExistingBucket(sub, doc, numDenseKeys + bucketOrd);
+                        } else {
+                            collectBucket(sub, doc, numDenseKeys + bucketOrd);
+                        }
                     }
                     previousKey = key;
                 }
@@ -135,8 +172,17 @@ public class HistogramAggregator extends BucketsAggregator {
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
         List<InternalHistogram.Bucket> buckets = new ArrayList<>((int) bucketOrds.size());
+        // dense buckets that were never collected don't exist
+        final long maxDenseOrd = Math.min(numDenseKeys, maxBucketOrd());
+        for (long i = 0; i < maxDenseOrd; i++) {
+            final int docCount = bucketDocCount(i);
+            if (docCount > 0) {
+                buckets.add(histogramFactory.createBucket(rounding.valueForKey(minDenseKey + i), docCount, bucketAggregations(i), keyed, formatter));
+            }
+        }
         for (long i = 0; i < bucketOrds.size(); i++) {
-            buckets.add(histogramFactory.createBucket(rounding.valueForKey(bucketOrds.get(i)), bucketDocCount(i), bucketAggregations(i), keyed, formatter));
+            final long bucketOrd = numDenseKeys + i;
+            buckets.add(histogramFactory.createBucket(rounding.valueForKey(bucketOrds.get(i)), bucketDocCount(bucketOrd), bucketAggregations(bucketOrd), keyed, formatter));
         }
 
         // the contract of the histogram aggregation is that shards must return buckets ordered by key in ascending order
@@ -159,6 +205,73 @@ public class HistogramAggregator extends BucketsAggregator {
         Releasables.close(bucketOrds);
     }
 
+    /**
+     * Remembers the boundaries of the buckets of a rounding that were already seen and resolves the keys of values that fall
+     * within them with a binary search, so that the rounding itself only runs once per bucket. Buckets are added lazily as
+     * values are collected, up to a maximum number of buckets after which the values of new buckets are rounded as usual.
+     */
+    static final class BucketBoundaries {
+
+        static final int MAX_BUCKETS = 10000;
+
+        private final Rounding rounding;
+        private final int maxBuckets;
+        // sorted, non-overlapping buckets: [starts[i], ends[i]) is the range of values of the bucket with key keys[i]
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private long[] keys = new long[16];
+        private int size;
+
+        BucketBoundaries(Rounding rounding, int maxBuckets) {
+            this.rounding = rounding;
+            this.maxBuckets = maxBuckets;
+        }
+
+        long roundKey(long value) {
+            int index = Arrays.binarySearch(starts, 0, size, value);
+            if (index >= 0) {
+                return keys[index];
+            }
+            index = -1 - index;
+            if (index > 0 && value < ends[index - 1]) {
+                return keys[index - 1];
+            }
+            final long key = rounding.roundKey(value);
+            if (size < maxBuckets) {
+                final long start = rounding.valueForKey(key);
+                final long end = rounding.nextRoundingValue(start);
+                // only remember buckets whose values all round to the same key, which may not hold around time zone transitions
+                if (start <= value && value < end && rounding.roundKey(start) == key && rounding.roundKey(end - 1) == key) {
+                    insert(index, start, end, key);
+                }
+            }
+            return key;
+        }
+
+        /** Number of buckets whose boundaries are known. */
+        int size() {
+            return size;
+        }
+
+        private void insert(int index, long start, long end, long key) {
+            assert index == 0 || ends[index - 1] <= start;
+            assert index == size || end <= starts[index];
+            if (size == keys.length) {
+                final int newLength = Math.min(maxBuckets, size * 2);
+                starts = Arrays.copyOf(starts, newLength);
+                ends = Arrays.copyOf(ends, newLength);
+                keys = Arrays.copyOf(keys, newLength);
+            }
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            starts[index] = start;
+            ends[index] = end;
+            keys[index] = key;
+            size++;
+        }
+    }
+
     public static class HistogramAggregatorBuilder extends AbstractBuilder<HistogramAggregatorBuilder> {
         public static final HistogramAggregatorBuilder PROTOTYPE = new HistogramAggregatorBuilder("");
 
@@ -184,6 +184,15 @@ public abstract class InternalSignificantTerms<A extends InternalSignificantTerm
             }
         }
 
+        if (reduceContext.isFinalReduce() == false) {
+            // scores, min_doc_count and size only make sense once all shards have been reduced, so keep every bucket until then
+            List<InternalSignificantTerms.Bucket> reducedBuckets = new ArrayList<>(buckets.size());
+            for (List<Bucket> sameTermBuckets : buckets.values()) {
+                reducedBuckets.add(sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext));
+            }
+            return create(globalSubsetSize, globalSupersetSize, reducedBuckets, this);
+        }
+
         significanceHeuristic.initialize(reduceContext);
         final int size = Math.min(requiredSize, buckets.size());
         BucketSignificancePriorityQueue ordered = new BucketSignificancePriorityQueue(size);
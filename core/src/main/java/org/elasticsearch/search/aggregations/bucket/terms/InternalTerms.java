@@ -117,6 +117,12 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
     protected long docCountError;
     protected boolean showTermDocCountError;
     protected long otherDocCount;
+    /**
+     * Whether this is the output of a partial reduce phase. Its doc count error is already the sum of the errors of the shards
+     * it was reduced from, and the doc count error of its buckets is the part of it that these buckets account for. Partially
+     * reduced terms only live on the coordinating node and are never serialized.
+     */
+    private boolean partiallyReduced = false;
 
     protected InternalTerms() {} // for serialization
 
@@ -188,7 +194,9 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
             }
             otherDocCount += terms.getSumOfOtherDocCounts();
             final long thisAggDocCountError;
-            if (terms.buckets.size() < this.shardSize || InternalOrder.isTermOrder(order)) {
+            if (terms.partiallyReduced) {
+                thisAggDocCountError = terms.docCountError;
+            } else if (terms.buckets.size() < this.shardSize || InternalOrder.isTermOrder(order)) {
                 thisAggDocCountError = 0;
             } else if (InternalOrder.isCountDesc(this.order)) {
                 thisAggDocCountError = terms.buckets.get(terms.buckets.size() - 1).docCount;
@@ -204,7 +212,9 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
             }
             terms.docCountError = thisAggDocCountError;
             for (Bucket bucket : terms.buckets) {
-                bucket.docCountError = thisAggDocCountError;
+                if (terms.partiallyReduced == false) {
+                    bucket.docCountError = thisAggDocCountError;
+                }
                 List<Bucket> bucketList = buckets.get(bucket.getKey());
                 if (bucketList == null) {
                     bucketList = new ArrayList<>();
@@ -214,6 +224,21 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
             }
         }
 
+        if (reduceContext.isFinalReduce() == false) {
+            // keep every bucket, and the doc count error accounted for by each bucket, for the final reduce phase
+            List<InternalTerms.Bucket> reducedBuckets = new ArrayList<>(buckets.size());
+            for (List<Bucket> sameTermBuckets : buckets.values()) {
+                final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
+                if (sumDocCountError == -1) {
+                    b.docCountError = -1;
+                }
+                reducedBuckets.add(b);
+            }
+            A reduced = create(name, reducedBuckets, sumDocCountError, otherDocCount, this);
+            ((InternalTerms) reduced).partiallyReduced = true;
+            return reduced;
+        }
+
         final int size = Math.min(requiredSize, buckets.size());
         BucketPriorityQueue ordered = new BucketPriorityQueue(size, order.comparator(null));
         for (List<Bucket> sameTermBuckets : buckets.values()) {
@@ -240,7 +265,8 @@ public abstract class InternalTerms<A extends InternalTerms, B extends InternalT
         if (sumDocCountError == -1) {
             docCountError = -1;
         } else {
-            docCountError = aggregations.size() == 1 ? 0 : sumDocCountError;
+            final boolean singleShardResult = aggregations.size() == 1 && ((InternalTerms) aggregations.get(0)).partiallyReduced == false;
+            docCountError = singleShardResult ? 0 : sumDocCountError;
         }
         return create(name, Arrays.asList(list), docCountError, otherDocCount, this);
     }
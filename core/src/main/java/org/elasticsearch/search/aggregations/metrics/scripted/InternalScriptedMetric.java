@@ -57,6 +57,8 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
 
     private Script reduceScript;
     private Object aggregation;
+    // true if this is the output of a partial reduce phase, in which case aggregation is the list of the shard aggregations
+    private boolean partiallyReduced = false;
 
     private InternalScriptedMetric() {
     }
@@ -81,9 +83,20 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         List<Object> aggregationObjects = new ArrayList<>();
         for (InternalAggregation aggregation : aggregations) {
             InternalScriptedMetric mapReduceAggregation = (InternalScriptedMetric) aggregation;
-            aggregationObjects.add(mapReduceAggregation.aggregation());
+            if (mapReduceAggregation.partiallyReduced) {
+                aggregationObjects.addAll((List<?>) mapReduceAggregation.aggregation());
+            } else {
+                aggregationObjects.add(mapReduceAggregation.aggregation());
+            }
         }
         InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) aggregations.get(0));
+        if (reduceContext.isFinalReduce() == false) {
+            // the reduce script must see the aggregations of all shards at once, so only collect them here
+            InternalScriptedMetric reduced = new InternalScriptedMetric(firstAggregation.getName(), aggregationObjects,
+                    firstAggregation.reduceScript, pipelineAggregators(), getMetaData());
+            reduced.partiallyReduced = true;
+            return reduced;
+        }
         Object aggregation;
         if (firstAggregation.reduceScript != null) {
             Map<String, Object> vars = new HashMap<>();
@@ -89,6 +89,7 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
     public static final ParseField IGNORE_FAILURE_FIELD = new ParseField("ignore_failure");
     public static final ParseField SORT_FIELD = new ParseField("sort");
     public static final ParseField TRACK_SCORES_FIELD = new ParseField("track_scores");
+    public static final ParseField TRACK_TOTAL_HITS_FIELD = new ParseField("track_total_hits");
     public static final ParseField INDICES_BOOST_FIELD = new ParseField("indices_boost");
     public static final ParseField AGGREGATIONS_FIELD = new ParseField("aggregations", "aggs");
     public static final ParseField HIGHLIGHT_FIELD = new ParseField("highlight");
@@ -141,6 +142,8 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
 
     private boolean trackScores = false;
 
+    private boolean trackTotalHits = true;
+
     private SearchAfterBuilder searchAfterBuilder;
 
     private Float minScore;
@@ -389,6 +392,24 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
         return trackScores;
     }
 
+    /**
+     * Controls if the total number of hits must be counted accurately. When set to <tt>false</tt>, requests that
+     * sort in index order (on <tt>_doc</tt> only) skip the documents before the <tt>search_after</tt> values and stop
+     * collecting once enough hits have been found, in which case the total number of hits is only a lower bound.
+     * Defaults to <tt>true</tt>.
+     */
+    public SearchSourceBuilder trackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+        return this;
+    }
+
+    /**
+     * Indicates whether the total number of hits is counted accurately for this request.
+     */
+    public boolean trackTotalHits() {
+        return trackTotalHits;
+    }
+
 
     /**
      * The sort values that indicates which docs this request should "search after".
@@ -763,6 +784,8 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
                     builder.explain = parser.booleanValue();
                 } else if (context.parseFieldMatcher().match(currentFieldName, TRACK_SCORES_FIELD)) {
                     builder.trackScores = parser.booleanValue();
+                } else if (context.parseFieldMatcher().match(currentFieldName, TRACK_TOTAL_HITS_FIELD)) {
+                    builder.trackTotalHits = parser.booleanValue();
                 } else if (context.parseFieldMatcher().match(currentFieldName, _SOURCE_FIELD)) {
                     builder.fetchSourceContext = FetchSourceContext.parse(parser, context);
                 } else if (context.parseFieldMatcher().match(currentFieldName, FIELDS_FIELD)) {
@@ -1016,6 +1039,10 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
             builder.field(TRACK_SCORES_FIELD.getPreferredName(), true);
         }
 
+        if (trackTotalHits == false) {
+            builder.field(TRACK_TOTAL_HITS_FIELD.getPreferredName(), false);
+        }
+
         if (searchAfterBuilder != null) {
             builder.field(SEARCH_AFTER.getPreferredName(), searchAfterBuilder.getSortValues());
         }
@@ -1236,6 +1263,7 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
         builder.terminateAfter = in.readVInt();
         builder.timeoutInMillis = in.readLong();
         builder.trackScores = in.readBoolean();
+        builder.trackTotalHits = in.readBoolean();
         builder.version = in.readOptionalBoolean();
         if (in.readBoolean()) {
             builder.ext = in.readBytesReference();
@@ -1352,6 +1380,7 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
         out.writeVInt(terminateAfter);
         out.writeLong(timeoutInMillis);
         out.writeBoolean(trackScores);
+        out.writeBoolean(trackTotalHits);
         out.writeOptionalBoolean(version);
         boolean hasExt = ext != null;
         out.writeBoolean(hasExt);
@@ -1372,7 +1401,8 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
     public int hashCode() {
         return Objects.hash(aggregations, explain, fetchSourceContext, fieldDataFields, fieldNames, from,
                 highlightBuilder, indexBoost, innerHitsBuilder, minScore, postQueryBuilder, queryBuilder, rescoreBuilders, scriptFields,
-                size, sorts, searchAfterBuilder, stats, suggestBuilder, terminateAfter, timeoutInMillis, trackScores, version, profile);
+                size, sorts, searchAfterBuilder, stats, suggestBuilder, terminateAfter, timeoutInMillis, trackScores, trackTotalHits,
+                version, profile);
     }
 
     @Override
@@ -1406,6 +1436,7 @@ public final class SearchSourceBuilder extends ToXContentToBytes implements Writ
                 && Objects.equals(terminateAfter, other.terminateAfter)
                 && Objects.equals(timeoutInMillis, other.timeoutInMillis)
                 && Objects.equals(trackScores, other.trackScores)
+                && Objects.equals(trackTotalHits, other.trackTotalHits)
                 && Objects.equals(version, other.version)
                 && Objects.equals(profile, other.profile);
     }
@@ -30,11 +30,14 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.HppcMaps;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
@@ -51,6 +54,7 @@ import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHits;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.profile.InternalProfileShardResults;
+import org.elasticsearch.search.profile.PhaseProfileResult;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.QuerySearchResultProvider;
@@ -61,6 +65,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -84,9 +89,16 @@ public class SearchPhaseController extends AbstractComponent {
 
     public static final ScoreDoc[] EMPTY_DOCS = new ScoreDoc[0];
     public static final String SEARCH_CONTROLLER_OPTIMIZE_SINGLE_SHARD_KEY = "search.controller.optimize_single_shard";
+    /**
+     * The number of shard results whose aggregations are buffered before they are reduced into a partial result, for searches
+     * that target more shards than that.
+     */
+    public static final Setting<Integer> BATCHED_REDUCE_SIZE_SETTING =
+        Setting.intSetting("search.controller.batched_reduce_size", 512, 2, false, Setting.Scope.CLUSTER);
 
     private final BigArrays bigArrays;
     private final boolean optimizeSingleShard;
+    private final int batchedReduceSize;
 
     private ScriptService scriptService;
 
@@ -96,12 +108,26 @@ public class SearchPhaseController extends AbstractComponent {
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.optimizeSingleShard = settings.getAsBoolean(SEARCH_CONTROLLER_OPTIMIZE_SINGLE_SHARD_KEY, true);
+        this.batchedReduceSize = BATCHED_REDUCE_SIZE_SETTING.get(settings);
     }
 
     public boolean optimizeSingleShard() {
         return optimizeSingleShard;
     }
 
+    /**
+     * Returns a consumer that reduces the aggregations of query results in batches while the results of other shards are still
+     * coming in, or <code>null</code> if the results of all shards fit in a single batch and are reduced at once in
+     * {@link #merge}.
+     */
+    @Nullable
+    public QueryResultConsumer newQueryResultConsumer(int numShards) {
+        if (numShards <= batchedReduceSize) {
+            return null;
+        }
+        return new QueryResultConsumer(batchedReduceSize);
+    }
+
     public AggregatedDfs aggregateDfs(AtomicArray<DfsSearchResult> results) {
         ObjectObjectHashMap<Term, TermStatistics> termStatistics = HppcMaps.newNoNullKeysMap();
         ObjectObjectHashMap<String, CollectionStatistics> fieldStatistics = HppcMaps.newNoNullKeysMap();
@@ -299,6 +325,16 @@ public class SearchPhaseController extends AbstractComponent {
 
     public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr,
                                         AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr) {
+        return merge(sortedDocs, queryResultsArr, fetchResultsArr, null);
+    }
+
+    /**
+     * @param queryResultConsumer the consumer that the query results were passed to as they came in, if any. The aggregations
+     *                            are then taken from the consumer rather than from the query results.
+     */
+    public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr,
+                                        AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr,
+                                        @Nullable QueryResultConsumer queryResultConsumer) {
 
         List<? extends AtomicArray.Entry<? extends QuerySearchResultProvider>> queryResults = queryResultsArr.asList();
         List<? extends AtomicArray.Entry<? extends FetchSearchResultProvider>> fetchResults = fetchResultsArr.asList();
@@ -400,7 +436,12 @@ public class SearchPhaseController extends AbstractComponent {
 
         // merge addAggregation
         InternalAggregations aggregations = null;
-        if (!queryResults.isEmpty()) {
+        long partialReduceTime = 0;
+        final long reduceStart = System.nanoTime();
+        if (queryResultConsumer != null) {
+            aggregations = queryResultConsumer.reduce();
+            partialReduceTime = queryResultConsumer.getPartialReduceTime();
+        } else if (!queryResults.isEmpty()) {
             if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
                 List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
                 for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
@@ -410,17 +451,9 @@ public class SearchPhaseController extends AbstractComponent {
             }
         }
 
-        //Collect profile results
-        InternalProfileShardResults shardResults = null;
-        if (!queryResults.isEmpty() && firstResult.profileResults() != null) {
-            Map<String, List<ProfileShardResult>> profileResults = new HashMap<>(queryResults.size());
-            for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
-                String key = entry.value.queryResult().shardTarget().toString();
-                profileResults.put(key, entry.value.queryResult().profileResults());
-            }
-            shardResults = new InternalProfileShardResults(profileResults);
-        }
+        final long reduceTime = System.nanoTime() - reduceStart;
 
+        final long pipelineReduceStart = System.nanoTime();
         if (aggregations != null) {
             List<SiblingPipelineAggregator> pipelineAggregators = firstResult.pipelineAggregators();
             if (pipelineAggregators != null) {
@@ -435,10 +468,116 @@ public class SearchPhaseController extends AbstractComponent {
                 aggregations = new InternalAggregations(newAggs);
             }
         }
+        final long pipelineReduceTime = System.nanoTime() - pipelineReduceStart;
+
+        //Collect profile results
+        InternalProfileShardResults shardResults = null;
+        if (!queryResults.isEmpty() && firstResult.profileResults() != null) {
+            Map<String, List<ProfileShardResult>> profileResults = new HashMap<>(queryResults.size());
+            Map<String, List<PhaseProfileResult>> aggregationProfileResults = new HashMap<>(queryResults.size());
+            Map<String, List<PhaseProfileResult>> fetchProfileResults = new HashMap<>(queryResults.size());
+            for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
+                String key = entry.value.queryResult().shardTarget().toString();
+                profileResults.put(key, entry.value.queryResult().profileResults());
+                if (entry.value.queryResult().aggregationProfileResults() != null) {
+                    aggregationProfileResults.put(key, entry.value.queryResult().aggregationProfileResults());
+                }
+                FetchSearchResultProvider fetchResultProvider = fetchResultsArr.get(entry.index);
+                if (fetchResultProvider != null && fetchResultProvider.fetchResult().profileResults() != null) {
+                    fetchProfileResults.put(key, fetchResultProvider.fetchResult().profileResults());
+                }
+            }
+            List<PhaseProfileResult> reduceProfileResults = new ArrayList<>(1);
+            if (aggregations != null) {
+                Map<String, Long> breakdown = new LinkedHashMap<>();
+                breakdown.put("partial_reduce", partialReduceTime);
+                breakdown.put("reduce", reduceTime);
+                breakdown.put("pipeline_reduce", pipelineReduceTime);
+                reduceProfileResults.add(new PhaseProfileResult("aggregations", "aggregations_reduce", breakdown));
+            }
+            shardResults = new InternalProfileShardResults(profileResults, aggregationProfileResults, fetchProfileResults,
+                    reduceProfileResults);
+        }
 
         InternalSearchHits searchHits = new InternalSearchHits(hits.toArray(new InternalSearchHit[hits.size()]), totalHits, maxScore);
 
         return new InternalSearchResponse(searchHits, aggregations, suggest, shardResults, timedOut, terminatedEarly);
     }
 
+    /**
+     * Buffers the aggregations of query results as they come in, and reduces the buffer into a single partial result whenever
+     * it is full, so that the coordinating node holds the aggregations of at most one batch of shards at a time and reduces
+     * them while waiting for the other shards. A failure of a partial reduce is rethrown by the final {@link #reduce()}.
+     */
+    public final class QueryResultConsumer {
+
+        private final InternalAggregations[] buffer;
+        private int index;
+        private int numReducePhases;
+        private long partialReduceTime;
+        private Throwable failure;
+
+        private QueryResultConsumer(int bufferSize) {
+            this.buffer = new InternalAggregations[bufferSize];
+        }
+
+        /**
+         * Takes the aggregations out of the given query result, reducing the buffered aggregations first if the buffer is full.
+         */
+        public synchronized void consume(QuerySearchResult result) {
+            final InternalAggregations aggregations = result.consumeAggregations();
+            if (aggregations == null || failure != null) {
+                return;
+            }
+            if (index == buffer.length) {
+                final InternalAggregations reduced;
+                final long start = System.nanoTime();
+                try {
+                    reduced = InternalAggregations.reduce(Arrays.asList(buffer), new ReduceContext(bigArrays, scriptService, false));
+                } catch (Throwable t) {
+                    failure = t;
+                    Arrays.fill(buffer, null);
+                    index = 0;
+                    return;
+                } finally {
+                    partialReduceTime += System.nanoTime() - start;
+                }
+                Arrays.fill(buffer, null);
+                numReducePhases++;
+                buffer[0] = reduced;
+                index = 1;
+            }
+            buffer[index++] = aggregations;
+        }
+
+        /**
+         * Runs the final reduce phase over the buffered aggregations.
+         */
+        synchronized InternalAggregations reduce() {
+            if (failure != null) {
+                throw ExceptionsHelper.convertToRuntime(failure);
+            }
+            if (index == 0) {
+                return null;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("final reduce of {} aggregation results after {} partial reduce phases", index, numReducePhases);
+            }
+            return InternalAggregations.reduce(Arrays.asList(buffer).subList(0, index), new ReduceContext(bigArrays, scriptService));
+        }
+
+        /**
+         * Returns the number of partial reduce phases that ran so far.
+         */
+        public synchronized int getNumReducePhases() {
+            return numReducePhases;
+        }
+
+        /**
+         * Returns the time spent in partial reduce phases so far, in nanoseconds.
+         */
+        synchronized long getPartialReduceTime() {
+            return partialReduceTime;
+        }
+    }
 }
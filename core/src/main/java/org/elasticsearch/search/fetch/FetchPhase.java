@@ -20,7 +20,6 @@
 package org.elasticsearch.search.fetch;
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
@@ -53,9 +52,11 @@ import org.elasticsearch.search.internal.InternalSearchHitField;
 import org.elasticsearch.search.internal.InternalSearchHits;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.search.profile.PhaseProfiler;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -141,12 +142,21 @@ public class FetchPhase implements SearchPhase {
                         fieldNamePatterns == null ? Collections.emptyList() : fieldNamePatterns, loadSource);
         }
 
+        final int[] docIdsToLoad = context.docIdsToLoad();
+        final int docIdsToLoadFrom = context.docIdsToLoadFrom();
+        final List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
         InternalSearchHit[] hits = new InternalSearchHit[context.docIdsToLoadSize()];
         FetchSubPhase.HitContext hitContext = new FetchSubPhase.HitContext();
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
-            int docId = context.docIdsToLoad()[context.docIdsToLoadFrom() + index];
-            int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
-            LeafReaderContext subReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+        final PhaseProfiler profiler = context.getProfilers() == null ? null : context.getProfilers().getFetchProfiler();
+        // the hits are loaded in doc id order and put back at their position afterwards, so that each segment is
+        // visited once and its stored fields are read sequentially instead of jumping between segments
+        int readerIndex = 0;
+        for (int index : loadOrder(docIdsToLoad, docIdsToLoadFrom, hits.length)) {
+            int docId = docIdsToLoad[docIdsToLoadFrom + index];
+            while (readerIndex + 1 < leaves.size() && leaves.get(readerIndex + 1).docBase <= docId) {
+                readerIndex++;
+            }
+            LeafReaderContext subReaderContext = leaves.get(readerIndex);
             int subDocId = docId - subReaderContext.docBase;
 
             final InternalSearchHit searchHit;
@@ -165,18 +175,73 @@ public class FetchPhase implements SearchPhase {
             hitContext.reset(searchHit, subReaderContext, subDocId, context.searcher());
             for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
                 if (fetchSubPhase.hitExecutionNeeded(context)) {
-                    fetchSubPhase.hitExecute(context, hitContext);
+                    if (profiler == null) {
+                        fetchSubPhase.hitExecute(context, hitContext);
+                    } else {
+                        PhaseProfiler.Timer timer = getTimer(profiler, fetchSubPhase, "hit_execute");
+                        timer.start();
+                        try {
+                            fetchSubPhase.hitExecute(context, hitContext);
+                        } finally {
+                            timer.stop();
+                        }
+                    }
                 }
             }
         }
 
         for (FetchSubPhase fetchSubPhase : fetchSubPhases) {
             if (fetchSubPhase.hitsExecutionNeeded(context)) {
-                fetchSubPhase.hitsExecute(context, hits);
+                if (profiler == null) {
+                    fetchSubPhase.hitsExecute(context, hits);
+                } else {
+                    PhaseProfiler.Timer timer = getTimer(profiler, fetchSubPhase, "hits_execute");
+                    timer.start();
+                    try {
+                        fetchSubPhase.hitsExecute(context, hits);
+                    } finally {
+                        timer.stop();
+                    }
+                }
             }
         }
 
         context.fetchResult().hits(new InternalSearchHits(hits, context.queryResult().topDocs().totalHits, context.queryResult().topDocs().getMaxScore()));
+        if (profiler != null) {
+            context.fetchResult().profileResults(profiler.getResults());
+        }
+    }
+
+    private static PhaseProfiler.Timer getTimer(PhaseProfiler profiler, FetchSubPhase fetchSubPhase, String timing) {
+        String name = fetchSubPhase.getClass().getSimpleName();
+        return profiler.getTimer(name, "fetch_sub_phase", timing);
+    }
+
+    /**
+     * Returns the positions of the doc ids to load, ordered by doc id.
+     */
+    static int[] loadOrder(int[] docIds, int from, int size) {
+        boolean sorted = true;
+        for (int i = 1; i < size && sorted; i++) {
+            sorted = docIds[from + i - 1] <= docIds[from + i];
+        }
+        final int[] order = new int[size];
+        if (sorted) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        // doc ids are never negative, so the doc id in the high bits determines the order of the packed values
+        final long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) docIds[from + i] << 32) | i;
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
     }
 
     private int findRootDocumentIfNested(SearchContext context, LeafReaderContext subReaderContext, int subDocId) throws IOException {
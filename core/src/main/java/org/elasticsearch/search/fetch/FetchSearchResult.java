@@ -19,13 +19,17 @@
 
 package org.elasticsearch.search.fetch;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.InternalSearchHits;
+import org.elasticsearch.search.profile.PhaseProfileResult;
 import org.elasticsearch.transport.TransportResponse;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.elasticsearch.search.internal.InternalSearchHits.StreamContext;
 
@@ -37,6 +41,7 @@ public class FetchSearchResult extends TransportResponse implements FetchSearchR
     private long id;
     private SearchShardTarget shardTarget;
     private InternalSearchHits hits;
+    private List<PhaseProfileResult> profileResults;
     // client side counter
     private transient int counter;
 
@@ -77,6 +82,20 @@ public class FetchSearchResult extends TransportResponse implements FetchSearchR
         return hits;
     }
 
+    /**
+     * Returns the profiled timings of the fetch sub phases, or null if the search was not profiled
+     */
+    public @Nullable List<PhaseProfileResult> profileResults() {
+        return profileResults;
+    }
+
+    /**
+     * Sets the profiled timings of the fetch sub phases
+     */
+    public void profileResults(List<PhaseProfileResult> profileResults) {
+        this.profileResults = profileResults;
+    }
+
     public FetchSearchResult initCounter() {
         counter = 0;
         return this;
@@ -97,6 +116,9 @@ public class FetchSearchResult extends TransportResponse implements FetchSearchR
         super.readFrom(in);
         id = in.readLong();
         hits = InternalSearchHits.readSearchHits(in, InternalSearchHits.streamContext().streamShardTarget(StreamContext.ShardTargetType.NO_STREAM));
+        if (in.getVersion().onOrAfter(Version.V_3_0_0) && in.readBoolean()) {
+            profileResults = in.readList(PhaseProfileResult::new);
+        }
     }
 
     @Override
@@ -104,5 +126,13 @@ public class FetchSearchResult extends TransportResponse implements FetchSearchR
         super.writeTo(out);
         out.writeLong(id);
         hits.writeTo(out, InternalSearchHits.streamContext().streamShardTarget(StreamContext.ShardTargetType.NO_STREAM));
+        if (out.getVersion().onOrAfter(Version.V_3_0_0)) {
+            if (profileResults == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                out.writeList(profileResults);
+            }
+        }
     }
 }
@@ -20,9 +20,11 @@
 package org.elasticsearch.search.internal;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermContext;
 import org.apache.lucene.search.CollectionStatistics;
+import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -38,6 +40,8 @@ import org.elasticsearch.search.profile.ProfileWeight;
 import org.elasticsearch.search.profile.Profiler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -163,6 +167,42 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return collectionStatistics;
     }
 
+    /**
+     * Collects the matches of the given weight on a subset of the leaves of this searcher. The weight must have been created
+     * by this searcher, which allows to search disjoint slices of the leaves concurrently with a single weight.
+     */
+    public void searchLeaves(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        search(leaves, weight, collector);
+    }
+
+    /**
+     * Partitions the given leaves into at most <code>maxSlices</code> slices of consecutive leaves that hold
+     * roughly the same number of documents.
+     */
+    public static List<List<LeafReaderContext>> slices(List<LeafReaderContext> leaves, int maxSlices) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        final long docsPerSlice = Math.max(1, (totalDocs + maxSlices - 1) / maxSlices);
+        List<List<LeafReaderContext>> slices = new ArrayList<>();
+        List<LeafReaderContext> slice = new ArrayList<>();
+        long sliceDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            slice.add(leaf);
+            sliceDocs += leaf.reader().maxDoc();
+            if (sliceDocs >= docsPerSlice && slices.size() < maxSlices - 1) {
+                slices.add(slice);
+                slice = new ArrayList<>();
+                sliceDocs = 0;
+            }
+        }
+        if (slice.isEmpty() == false) {
+            slices.add(slice);
+        }
+        return slices;
+    }
+
     public DirectoryReader getDirectoryReader() {
         return engineSearcher.getDirectoryReader();
     }
@@ -109,6 +109,7 @@ public abstract class SearchContext implements Releasable {
     }
 
     private boolean nowInMillisUsed;
+    private boolean lookupUsed;
 
     protected abstract void doClose();
 
@@ -299,7 +300,20 @@ public abstract class SearchContext implements Releasable {
 
     public abstract void keepAlive(long keepAlive);
 
-    public abstract SearchLookup lookup();
+    public final SearchLookup lookup() {
+        lookupUsed = true;
+        return lookupImpl();
+    }
+
+    /**
+     * Whether the lookup was used to parse the request, for instance by scripts. The lookup is not thread-safe, so such
+     * requests must not be searched concurrently.
+     */
+    public final boolean lookupUsed() {
+        return lookupUsed;
+    }
+
+    protected abstract SearchLookup lookupImpl();
 
     public abstract DfsSearchResult dfsResult();
 
@@ -57,9 +57,18 @@ public class InternalProfileCollector implements Collector {
     private final List<InternalProfileCollector> children;
 
     public InternalProfileCollector(Collector collector, String reason, List<InternalProfileCollector> children) {
+        this(collector, collector, reason, children);
+    }
+
+    /**
+     * @param namedCollector The collector to name this collector after, when <code>collector</code> wraps it for
+     *                       further profiling
+     */
+    public InternalProfileCollector(Collector collector, Collector namedCollector, String reason,
+                                    List<InternalProfileCollector> children) {
         this.collector = new ProfileCollector(collector);
         this.reason = reason;
-        this.collectorName = deriveCollectorName(collector);
+        this.collectorName = deriveCollectorName(namedCollector);
         this.children = children;
     }
 
@@ -19,6 +19,7 @@ package org.elasticsearch.search.profile;
  * under the License.
  */
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -35,21 +36,42 @@ import java.util.stream.Collectors;
 
 /**
  * A container class to hold all the profile results across all shards.  Internally
- * holds a map of shard ID -&gt; Profiled results
+ * holds a map of shard ID -&gt; Profiled results, the same for the timings of the aggregators
+ * and fetch sub phases of each shard, and the timings of the reduce on the coordinating node
  */
 public final class InternalProfileShardResults implements Writeable<InternalProfileShardResults>, ToXContent{
 
     private Map<String, List<ProfileShardResult>> shardResults;
 
+    private Map<String, List<PhaseProfileResult>> aggregationResults;
+
+    private Map<String, List<PhaseProfileResult>> fetchResults;
+
+    private List<PhaseProfileResult> reduceResults;
+
     public InternalProfileShardResults(Map<String, List<ProfileShardResult>> shardResults) {
-        Map<String, List<ProfileShardResult>> transformed =
-                shardResults.entrySet()
+        this(shardResults, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyList());
+    }
+
+    public InternalProfileShardResults(Map<String, List<ProfileShardResult>> shardResults,
+                                       Map<String, List<PhaseProfileResult>> aggregationResults,
+                                       Map<String, List<PhaseProfileResult>> fetchResults,
+                                       List<PhaseProfileResult> reduceResults) {
+        this.shardResults = unmodifiable(shardResults);
+        this.aggregationResults = unmodifiable(aggregationResults);
+        this.fetchResults = unmodifiable(fetchResults);
+        this.reduceResults = Collections.unmodifiableList(reduceResults);
+    }
+
+    private static <T> Map<String, List<T>> unmodifiable(Map<String, List<T>> results) {
+        Map<String, List<T>> transformed =
+                results.entrySet()
                         .stream()
                         .collect(Collectors.toMap(
                                         Map.Entry::getKey,
                                         e -> Collections.unmodifiableList(e.getValue()))
                         );
-        this.shardResults =  Collections.unmodifiableMap(transformed);
+        return Collections.unmodifiableMap(transformed);
     }
 
     public InternalProfileShardResults(StreamInput in) throws IOException {
@@ -69,12 +91,60 @@ public final class InternalProfileShardResults implements Writeable<InternalProf
             shardResults.put(key, Collections.unmodifiableList(shardResult));
         }
         shardResults = Collections.unmodifiableMap(shardResults);
+
+        if (in.getVersion().onOrAfter(Version.V_3_0_0)) {
+            aggregationResults = readPhaseResults(in);
+            fetchResults = readPhaseResults(in);
+            reduceResults = Collections.unmodifiableList(in.readList(PhaseProfileResult::new));
+        } else {
+            aggregationResults = Collections.emptyMap();
+            fetchResults = Collections.emptyMap();
+            reduceResults = Collections.emptyList();
+        }
+    }
+
+    private static Map<String, List<PhaseProfileResult>> readPhaseResults(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        Map<String, List<PhaseProfileResult>> results = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            results.put(in.readString(), Collections.unmodifiableList(in.readList(PhaseProfileResult::new)));
+        }
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static void writePhaseResults(StreamOutput out, Map<String, List<PhaseProfileResult>> results) throws IOException {
+        out.writeVInt(results.size());
+        for (Map.Entry<String, List<PhaseProfileResult>> entry : results.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeList(entry.getValue());
+        }
     }
 
     public Map<String, List<ProfileShardResult>> getShardResults() {
         return this.shardResults;
     }
 
+    /**
+     * @return the timings of the top level aggregators, per shard ID
+     */
+    public Map<String, List<PhaseProfileResult>> getAggregationResults() {
+        return this.aggregationResults;
+    }
+
+    /**
+     * @return the timings of the fetch sub phases, per shard ID
+     */
+    public Map<String, List<PhaseProfileResult>> getFetchResults() {
+        return this.fetchResults;
+    }
+
+    /**
+     * @return the timings of the reduce on the coordinating node
+     */
+    public List<PhaseProfileResult> getReduceResults() {
+        return this.reduceResults;
+    }
+
     @Override
     public InternalProfileShardResults readFrom(StreamInput in) throws IOException {
         return new InternalProfileShardResults(in);
@@ -91,6 +161,11 @@ public final class InternalProfileShardResults implements Writeable<InternalProf
                 result.writeTo(out);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_3_0_0)) {
+            writePhaseResults(out, aggregationResults);
+            writePhaseResults(out, fetchResults);
+            out.writeList(reduceResults);
+        }
     }
 
     @Override
@@ -104,10 +179,27 @@ public final class InternalProfileShardResults implements Writeable<InternalProf
                 result.toXContent(builder, params);
                 builder.endObject();
             }
-            builder.endArray().endObject();
+            builder.endArray();
+            phaseResultsToXContent("aggregations", aggregationResults.get(entry.getKey()), builder, params);
+            phaseResultsToXContent("fetch", fetchResults.get(entry.getKey()), builder, params);
+            builder.endObject();
         }
 
-        builder.endArray().endObject();
+        builder.endArray();
+        phaseResultsToXContent("reduce", reduceResults, builder, params);
+        builder.endObject();
         return builder;
     }
+
+    private static void phaseResultsToXContent(String name, List<PhaseProfileResult> results, XContentBuilder builder,
+                                               Params params) throws IOException {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        builder.startArray(name);
+        for (PhaseProfileResult result : results) {
+            result.toXContent(builder, params);
+        }
+        builder.endArray();
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The profiled timings of a part of a search phase that is not a query or a collector, such as an aggregator or a fetch
+ * sub phase. See {@link PhaseProfiler} for the class that records them.
+ */
+public final class PhaseProfileResult implements Writeable<PhaseProfileResult>, ToXContent {
+
+    private static final ParseField NAME = new ParseField("name");
+    private static final ParseField TYPE = new ParseField("type");
+    private static final ParseField TIME = new ParseField("time");
+    private static final ParseField BREAKDOWN = new ParseField("breakdown");
+
+    private final String name;
+    private final String type;
+    private final Map<String, Long> timings;
+
+    public PhaseProfileResult(String name, String type, Map<String, Long> timings) {
+        this.name = name;
+        this.type = type;
+        this.timings = timings;
+    }
+
+    public PhaseProfileResult(StreamInput in) throws IOException {
+        this.name = in.readString();
+        this.type = in.readString();
+        int timingsSize = in.readVInt();
+        this.timings = new LinkedHashMap<>(timingsSize);
+        for (int i = 0; i < timingsSize; ++i) {
+            timings.put(in.readString(), in.readLong());
+        }
+    }
+
+    /**
+     * Retrieve the name of the part, e.g. the name of an aggregation
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retrieve the kind of part, e.g. the class of an aggregator
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the timing breakdown for this part
+     */
+    public Map<String, Long> getTimeBreakdown() {
+        return Collections.unmodifiableMap(timings);
+    }
+
+    /**
+     * Returns the total time spent in this part.
+     *
+     * @return  elapsed time in nanoseconds
+     */
+    public long getTime() {
+        long time = 0;
+        for (long timing : timings.values()) {
+            time += timing;
+        }
+        return time;
+    }
+
+    @Override
+    public PhaseProfileResult readFrom(StreamInput in) throws IOException {
+        return new PhaseProfileResult(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(name);
+        out.writeString(type);
+        out.writeVInt(timings.size());
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        return builder.startObject()
+                .field(NAME.getPreferredName(), name)
+                .field(TYPE.getPreferredName(), type)
+                .field(TIME.getPreferredName(), String.format(Locale.US, "%.10gms", (double)(getTime() / 1000000.0)))
+                .field(BREAKDOWN.getPreferredName(), timings)
+                .endObject();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the parts of a search phase that are not profiled as queries or collectors, such as the aggregators of the
+ * query phase or the sub phases of the fetch phase. Each part records the time spent on every kind of work it does,
+ * and the parts are reported in the order they were first timed.
+ */
+public final class PhaseProfiler {
+
+    private final Map<String, Part> parts = new LinkedHashMap<>();
+
+    /**
+     * Get the {@link Timer} for a kind of work of a part, creating it if it did not exist.
+     *
+     * @param name      Identifies the part, e.g. the name of an aggregation
+     * @param type      The kind of part, e.g. the class of an aggregator
+     * @param timing    The kind of work, e.g. collecting documents
+     */
+    public Timer getTimer(String name, String type, String timing) {
+        Part part = parts.computeIfAbsent(name, key -> new Part(type));
+        return part.timers.computeIfAbsent(timing, key -> new Timer());
+    }
+
+    /**
+     * @return the timings of all parts timed so far
+     */
+    public List<PhaseProfileResult> getResults() {
+        List<PhaseProfileResult> results = new ArrayList<>(parts.size());
+        for (Map.Entry<String, Part> part : parts.entrySet()) {
+            Map<String, Long> breakdown = new LinkedHashMap<>();
+            for (Map.Entry<String, Timer> timer : part.getValue().timers.entrySet()) {
+                breakdown.put(timer.getKey(), timer.getValue().getTime());
+            }
+            results.add(new PhaseProfileResult(part.getKey(), part.getValue().type, breakdown));
+        }
+        return results;
+    }
+
+    private static final class Part {
+        private final String type;
+        private final Map<String, Timer> timers = new LinkedHashMap<>();
+
+        private Part(String type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Accumulates the time spent on a kind of work. Timing may be started again before it was stopped, like when the
+     * fetch phase runs again for inner hits, and only the outermost start and stop are recorded.
+     */
+    public static final class Timer {
+
+        private long time;
+        private long start;
+        private int depth;
+
+        /** Begin timing. */
+        public void start() {
+            if (depth++ == 0) {
+                start = System.nanoTime();
+            }
+        }
+
+        /** Halt timing and add the elapsed time to the total, if this stops the outermost timing. */
+        public void stop() {
+            assert depth > 0;
+            if (--depth == 0) {
+                time += Math.max(1, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * @return the total time recorded, in nanoseconds
+         */
+        public long getTime() {
+            return time;
+        }
+    }
+}
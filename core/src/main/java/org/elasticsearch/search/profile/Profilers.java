@@ -30,6 +30,8 @@ public final class Profilers {
 
     private final ContextIndexSearcher searcher;
     private final List<Profiler> profilers;
+    private final PhaseProfiler aggregationProfiler = new PhaseProfiler();
+    private final PhaseProfiler fetchProfiler = new PhaseProfiler();
 
     /** Sole constructor. This {@link Profilers} instance will initially wrap one {@link Profiler}. */
     public Profilers(ContextIndexSearcher searcher) {
@@ -56,4 +58,14 @@ public final class Profilers {
         return Collections.unmodifiableList(profilers);
     }
 
+    /** Get the profiler of the top level aggregators. */
+    public PhaseProfiler getAggregationProfiler() {
+        return aggregationProfiler;
+    }
+
+    /** Get the profiler of the fetch sub phases. */
+    public PhaseProfiler getFetchProfiler() {
+        return fetchProfiler;
+    }
+
 }
@@ -38,18 +38,23 @@ import org.apache.lucene.search.TimeLimitingCollector;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.CollectorResult;
@@ -61,7 +66,9 @@ import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.elasticsearch.search.sort.TrackScoresParseElement;
 import org.elasticsearch.search.suggest.SuggestPhase;
+import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -69,6 +76,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -80,12 +90,14 @@ public class QueryPhase implements SearchPhase {
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private RescorePhase rescorePhase;
+    private final ThreadPool threadPool;
 
     @Inject
-    public QueryPhase(AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase) {
+    public QueryPhase(AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase, ThreadPool threadPool) {
         this.aggregationPhase = aggregationPhase;
         this.suggestPhase = suggestPhase;
         this.rescorePhase = rescorePhase;
+        this.threadPool = threadPool;
     }
 
     @Override
@@ -123,7 +135,9 @@ public class QueryPhase implements SearchPhase {
         // here to make sure it happens during the QUERY phase
         aggregationPhase.preProcess(searchContext);
 
-        boolean rescore = execute(searchContext, searchContext.searcher());
+        final int maxSlices = searchContext.indexShard().indexSettings().getMaxSearchSlices();
+        final Executor sliceExecutor = maxSlices > 1 ? threadPool.executor(ThreadPool.Names.SEARCH_SLICE) : null;
+        boolean rescore = execute(searchContext, searchContext.searcher(), sliceExecutor, maxSlices);
 
         if (rescore) { // only if we do a regular search
             rescorePhase.execute(searchContext);
@@ -134,6 +148,7 @@ public class QueryPhase implements SearchPhase {
         if (searchContext.getProfilers() != null) {
             List<ProfileShardResult> shardResults = Profiler.buildShardResults(searchContext.getProfilers().getProfilers());
             searchContext.queryResult().profileResults(shardResults);
+            searchContext.queryResult().aggregationProfileResults(searchContext.getProfilers().getAggregationProfiler().getResults());
         }
     }
 
@@ -149,12 +164,26 @@ public class QueryPhase implements SearchPhase {
         }
     }
 
+    private static boolean trackTotalHits(SearchContext searchContext) {
+        return searchContext.request().source() == null || searchContext.request().source().trackTotalHits();
+    }
+
     /**
      * In a package-private method so that it can be tested without having to
      * wire everything (mapperService, etc.)
      * @return whether the rescoring phase should be executed
      */
     static boolean execute(SearchContext searchContext, final IndexSearcher searcher) throws QueryPhaseExecutionException {
+        return execute(searchContext, searcher, null, 1);
+    }
+
+    /**
+     * Same as {@link #execute(SearchContext, IndexSearcher)} but partitions the segments of the shard into at most
+     * <code>maxSlices</code> slices that are searched concurrently on the given executor, if the request allows it.
+     * @return whether the rescoring phase should be executed
+     */
+    static boolean execute(SearchContext searchContext, final IndexSearcher searcher, @Nullable Executor sliceExecutor,
+                           int maxSlices) throws QueryPhaseExecutionException {
         QuerySearchResult queryResult = searchContext.queryResult();
         queryResult.searchTimedOut(false);
 
@@ -172,6 +201,7 @@ public class QueryPhase implements SearchPhase {
 
             Collector collector;
             Callable<TopDocs> topDocsCallable;
+            ScoreDoc after = null;
 
             assert query == searcher.rewrite(query); // already rewritten
 
@@ -192,7 +222,6 @@ public class QueryPhase implements SearchPhase {
                 final ScrollContext scrollContext = searchContext.scrollContext();
                 assert (scrollContext != null) == (searchContext.request().scroll() != null);
                 final TopDocsCollector<?> topDocsCollector;
-                ScoreDoc after = null;
                 if (searchContext.request().scroll() != null) {
                     numDocs = Math.min(searchContext.size(), totalNumDocs);
                     after = scrollContext.lastEmittedDoc;
@@ -218,6 +247,23 @@ public class QueryPhase implements SearchPhase {
                     }
                 } else {
                     after = searchContext.searchAfter();
+                    if (trackTotalHits(searchContext) == false && returnsDocsInOrder(query, searchContext.sort())
+                            && searchContext.aggregations() == null && searchContext.queryCollectors().isEmpty()) {
+                        // the total number of hits doesn't need to be accurate, so since we sort in index-order we can
+                        // directly skip to the docs after the search_after doc and stop collecting after ${size} matches.
+                        // Aggregations and other query collectors still need to see all matching docs.
+                        if (after != null) {
+                            final int afterDoc = ((Number) ((FieldDoc) after).fields[0]).intValue();
+                            query = new BooleanQuery.Builder()
+                                .add(query, BooleanClause.Occur.MUST)
+                                .add(new MinDocQuery(afterDoc + 1), BooleanClause.Occur.FILTER)
+                                .build();
+                        }
+                        if (searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+                                || searchContext.terminateAfter() > numDocs) {
+                            searchContext.terminateAfter(numDocs);
+                        }
+                    }
                 }
                 if (totalNumDocs == 0) {
                     // top collectors don't like a size of 0
@@ -383,7 +429,13 @@ public class QueryPhase implements SearchPhase {
                     if (doProfile) {
                         searchContext.getProfilers().getCurrent().setCollector((InternalProfileCollector) collector);
                     }
-                    searcher.search(query, collector);
+                    if (sliceExecutor != null
+                            && canSearchConcurrently(searchContext, searcher, maxSlices, doProfile, terminateAfterSet, timeoutSet)) {
+                        topDocsCallable = searchConcurrently(searchContext, (ContextIndexSearcher) searcher, query, collector,
+                                topDocsCallable, numDocs, after, sliceExecutor, maxSlices);
+                    } else {
+                        searcher.search(query, collector);
+                    }
                 }
             } catch (TimeLimitingCollector.TimeExceededException e) {
                 assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
@@ -411,4 +463,154 @@ public class QueryPhase implements SearchPhase {
             throw new QueryPhaseExecutionException(searchContext, "Failed to execute main query", e);
         }
     }
+
+    private static boolean canSearchConcurrently(SearchContext searchContext, IndexSearcher searcher, int maxSlices,
+                                                 boolean doProfile, boolean terminateAfterSet, boolean timeoutSet) {
+        // profiling, early termination and scrolling rely on a single collector that sees all documents in order
+        if (maxSlices <= 1 || doProfile || terminateAfterSet || timeoutSet || searchContext.scrollContext() != null) {
+            return false;
+        }
+        if (searcher instanceof ContextIndexSearcher == false || searcher.getIndexReader().leaves().size() <= 1) {
+            return false;
+        }
+        // aggregations and other query collectors need to see all documents of the shard, and the search lookup that is
+        // used by scripts is not thread-safe
+        return searchContext.aggregations() == null && searchContext.queryCollectors().isEmpty()
+                && searchContext.lookupUsed() == false;
+    }
+
+    /**
+     * Partitions the leaves of the searcher into slices and searches them concurrently with a single weight. The first
+     * slice is collected by the given collector, the other ones get their own top docs collectors. The
+     * slices are forked to the executor but also picked up by the current thread as soon as it is done with its own slice,
+     * so that a busy or saturated executor never blocks the search.
+     * @return the merged top docs of all slices
+     */
+    private static Callable<TopDocs> searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                                        Collector collector, Callable<TopDocs> topDocsCallable, int numDocs,
+                                                        ScoreDoc after, Executor executor, int maxSlices) throws Exception {
+        final List<List<LeafReaderContext>> leafSlices = ContextIndexSearcher.slices(searcher.getIndexReader().leaves(), maxSlices);
+        final Weight weight = searcher.createNormalizedWeight(query, collector.needsScores());
+        final Weight postFilterWeight = searchContext.parsedPostFilter() == null ? null :
+                searcher.createNormalizedWeight(searchContext.parsedPostFilter().query(), false);
+
+        final List<SliceSearch> slices = new ArrayList<>(leafSlices.size());
+        slices.add(new SliceSearch(searcher, weight, leafSlices.get(0), collector, topDocsCallable));
+        for (int i = 1; i < leafSlices.size(); i++) {
+            slices.add(createSlice(searchContext, searcher, weight, postFilterWeight, leafSlices.get(i), numDocs, after));
+        }
+        for (int i = 1; i < slices.size(); i++) {
+            try {
+                executor.execute(slices.get(i));
+            } catch (EsRejectedExecutionException e) {
+                // the slice is searched by the current thread below
+            }
+        }
+        for (SliceSearch slice : slices) {
+            slice.run();
+        }
+        Throwable failure = null;
+        for (SliceSearch slice : slices) {
+            slice.awaitCompletion();
+            if (slice.failure != null) {
+                failure = ExceptionsHelper.useOrSuppress(failure, slice.failure);
+            }
+        }
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        }
+
+        final TopDocs merged;
+        if (searchContext.size() == 0) {
+            int totalHits = 0;
+            for (SliceSearch slice : slices) {
+                totalHits += slice.topDocs.call().totalHits;
+            }
+            merged = new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0);
+        } else if (searchContext.sort() != null) {
+            final TopFieldDocs[] topDocs = new TopFieldDocs[slices.size()];
+            for (int i = 0; i < topDocs.length; i++) {
+                topDocs[i] = (TopFieldDocs) slices.get(i).topDocs.call();
+            }
+            merged = TopDocs.merge(searchContext.sort(), numDocs, topDocs);
+        } else {
+            final TopDocs[] topDocs = new TopDocs[slices.size()];
+            for (int i = 0; i < topDocs.length; i++) {
+                topDocs[i] = slices.get(i).topDocs.call();
+            }
+            merged = TopDocs.merge(numDocs, topDocs);
+        }
+        return () -> merged;
+    }
+
+    private static SliceSearch createSlice(SearchContext searchContext, ContextIndexSearcher searcher, Weight weight,
+                                           @Nullable Weight postFilterWeight, List<LeafReaderContext> leaves, int numDocs,
+                                           ScoreDoc after) throws IOException {
+        Collector collector;
+        final Callable<TopDocs> topDocsCallable;
+        if (searchContext.size() == 0) {
+            final TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
+            collector = totalHitCountCollector;
+            topDocsCallable = () -> new TopDocs(totalHitCountCollector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+        } else {
+            final TopDocsCollector<?> topDocsCollector;
+            if (searchContext.sort() != null) {
+                topDocsCollector = TopFieldCollector.create(searchContext.sort(), numDocs,
+                        (FieldDoc) after, true, searchContext.trackScores(), searchContext.trackScores());
+            } else {
+                topDocsCollector = TopScoreDocCollector.create(numDocs, after);
+            }
+            collector = topDocsCollector;
+            topDocsCallable = topDocsCollector::topDocs;
+        }
+        if (postFilterWeight != null) {
+            collector = new FilteredCollector(collector, postFilterWeight);
+        }
+        if (searchContext.minimumScore() != null) {
+            collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
+        }
+        return new SliceSearch(searcher, weight, leaves, collector, topDocsCallable);
+    }
+
+    /**
+     * The search of a slice of leaves, which is executed exactly once by whichever thread runs it first.
+     */
+    private static final class SliceSearch implements Runnable {
+        private final ContextIndexSearcher searcher;
+        private final Weight weight;
+        private final List<LeafReaderContext> leaves;
+        private final Collector collector;
+        private final Callable<TopDocs> topDocs;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable failure;
+
+        SliceSearch(ContextIndexSearcher searcher, Weight weight, List<LeafReaderContext> leaves, Collector collector,
+                    Callable<TopDocs> topDocs) {
+            this.searcher = searcher;
+            this.weight = weight;
+            this.leaves = leaves;
+            this.collector = collector;
+            this.topDocs = topDocs;
+        }
+
+        @Override
+        public void run() {
+            if (started.compareAndSet(false, true)) {
+                try {
+                    searcher.searchLeaves(leaves, weight, collector);
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        void awaitCompletion() throws InterruptedException {
+            done.await();
+        }
+    }
 }
@@ -31,11 +31,13 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
+import org.elasticsearch.search.profile.PhaseProfileResult;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.elasticsearch.common.lucene.Lucene.readTopDocs;
@@ -57,6 +59,7 @@ public class QuerySearchResult extends QuerySearchResultProvider {
     private boolean searchTimedOut;
     private Boolean terminatedEarly = null;
     private List<ProfileShardResult> profileShardResults;
+    private List<PhaseProfileResult> aggregationProfileResults;
 
     public QuerySearchResult() {
 
@@ -124,6 +127,16 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         this.aggregations = aggregations;
     }
 
+    /**
+     * Returns the aggregations of this result and removes them from it, so that they can be released as soon as they have been
+     * reduced rather than when the whole search response is built.
+     */
+    public InternalAggregations consumeAggregations() {
+        final InternalAggregations aggregations = this.aggregations;
+        this.aggregations = null;
+        return aggregations;
+    }
+
     /**
      * Returns the profiled results for this search, or potentially null if result was empty
      * @return The profiled results, or null
@@ -140,6 +153,20 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         this.profileShardResults = shardResults;
     }
 
+    /**
+     * Returns the profiled timings of the top level aggregators, or null if the search was not profiled
+     */
+    public @Nullable List<PhaseProfileResult> aggregationProfileResults() {
+        return aggregationProfileResults;
+    }
+
+    /**
+     * Sets the profiled timings of the top level aggregators
+     */
+    public void aggregationProfileResults(List<PhaseProfileResult> aggregationProfileResults) {
+        this.aggregationProfileResults = aggregationProfileResults;
+    }
+
     public List<SiblingPipelineAggregator> pipelineAggregators() {
         return pipelineAggregators;
     }
@@ -219,6 +246,9 @@ public class QuerySearchResult extends QuerySearchResultProvider {
                 ProfileShardResult result = new ProfileShardResult(in);
                 profileShardResults.add(result);
             }
+            if (in.getVersion().onOrAfter(Version.V_3_0_0)) {
+                aggregationProfileResults = in.readList(PhaseProfileResult::new);
+            }
         }
     }
 
@@ -268,6 +298,10 @@ public class QuerySearchResult extends QuerySearchResultProvider {
                 for (ProfileShardResult shardResult : profileShardResults) {
                     shardResult.writeTo(out);
                 }
+                if (out.getVersion().onOrAfter(Version.V_3_0_0)) {
+                    out.writeList(aggregationProfileResults == null ? Collections.<PhaseProfileResult>emptyList()
+                            : aggregationProfileResults);
+                }
             }
         }
     }
@@ -19,17 +19,21 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.unit.TimeValue;
 
 public class TransportRequestOptions {
 
     private final TimeValue timeout;
     private final boolean compress;
+    private final Compressor compressor;
     private final Type type;
 
-    private TransportRequestOptions(TimeValue timeout, boolean compress, Type type) {
+    private TransportRequestOptions(TimeValue timeout, boolean compress, Compressor compressor, Type type) {
         this.timeout = timeout;
         this.compress = compress;
+        this.compressor = compressor;
         this.type = type;
     }
 
@@ -41,6 +45,14 @@ public class TransportRequestOptions {
         return this.compress;
     }
 
+    /**
+     * The compressor to use if the request is compressed, <code>null</code> to use the transport's compressor.
+     */
+    @Nullable
+    public Compressor compressor() {
+        return this.compressor;
+    }
+
     public Type type() {
         return this.type;
     }
@@ -63,12 +75,14 @@ public class TransportRequestOptions {
         return new Builder()
                 .withTimeout(options.timeout)
                 .withCompress(options.compress)
+                .withCompressor(options.compressor)
                 .withType(options.type());
     }
 
     public static class Builder {
         private TimeValue timeout;
         private boolean compress;
+        private Compressor compressor;
         private Type type = Type.REG;
 
         private Builder() {
@@ -88,13 +102,18 @@ public class TransportRequestOptions {
             return this;
         }
 
+        public Builder withCompressor(@Nullable Compressor compressor) {
+            this.compressor = compressor;
+            return this;
+        }
+
         public Builder withType(Type type) {
             this.type = type;
             return this;
         }
 
         public TransportRequestOptions build() {
-            return new TransportRequestOptions(timeout, compress, type);
+            return new TransportRequestOptions(timeout, compress, compressor, type);
         }
     }
 }
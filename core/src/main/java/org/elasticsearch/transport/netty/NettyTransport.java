@@ -23,10 +23,13 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.ReleasablePagedBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
@@ -208,6 +211,7 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     protected final ByteSizeValue maxCumulationBufferCapacity;
     protected final int maxCompositeBufferComponents;
     protected final boolean compress;
+    protected final Compressor compressor;
     protected final ReceiveBufferSizePredictorFactory receiveBufferSizePredictorFactory;
     protected final int workerCount;
     protected final ByteSizeValue receivePredictorMin;
@@ -231,6 +235,7 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     protected final Map<String, ServerBootstrap> serverBootstraps = newConcurrentMap();
     protected final Map<String, List<Channel>> serverChannels = newConcurrentMap();
     protected final ConcurrentMap<String, BoundTransportAddress> profileBoundAddresses = newConcurrentMap();
+    protected final Map<String, Compressor> profileCompressors = newConcurrentMap();
     protected volatile TransportServiceAdapter transportServiceAdapter;
     protected volatile BoundTransportAddress boundAddress;
     protected final KeyedLock<String> connectionLock = new KeyedLock<>();
@@ -258,6 +263,7 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.maxCumulationBufferCapacity = NETTY_MAX_CUMULATION_BUFFER_CAPACITY.get(settings);
         this.maxCompositeBufferComponents = NETTY_MAX_COMPOSITE_BUFFER_COMPONENTS.get(settings);
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
+        this.compressor = Transport.TRANSPORT_TCP_COMPRESS_TYPE.get(settings);
 
         this.connectionsPerNodeRecovery = CONNECTIONS_PER_NODE_RECOVERY.get(settings);
         this.connectionsPerNodeBulk = CONNECTIONS_PER_NODE_BULK.get(settings);
@@ -346,6 +352,10 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
                             .put(profileSettings)
                             .build();
 
+                    String compressType = mergedSettings.get("compress_type");
+                    if (compressType != null) {
+                        profileCompressors.put(name, CompressorFactory.compressorForType(compressType));
+                    }
                     createServerBootstrap(name, mergedSettings);
                     bindServerBootstrap(name, mergedSettings);
                 }
@@ -834,6 +844,27 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         return local;
     }
 
+    /**
+     * Returns the compressor for messages sent on channels of the given profile, falling back to the transport's compressor.
+     */
+    Compressor profileCompressor(String profileName, Version version) {
+        return compressor(profileCompressors.get(profileName), version);
+    }
+
+    /**
+     * Returns the given compressor, or the transport's compressor if <code>null</code>, if the receiving node can read it.
+     * Nodes before 3.0.0 only know about deflate.
+     */
+    Compressor compressor(@Nullable Compressor compressor, Version version) {
+        if (compressor == null) {
+            compressor = this.compressor;
+        }
+        if (compressor instanceof LZ4Compressor && version.before(Version.V_3_0_0)) {
+            return CompressorFactory.compressorForType("deflate");
+        }
+        return compressor;
+    }
+
     @Override
     public void sendRequest(final DiscoveryNode node, final long requestId, final String action, final TransportRequest request,
             TransportRequestOptions options) throws IOException, TransportException {
@@ -856,7 +887,7 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             // the header part is compressed, and the "body" can't be extracted as compressed
             if (options.compress() && (!(request instanceof BytesTransportRequest))) {
                 status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
+                stream = compressor(options.compressor(), node.version()).streamOutput(stream);
             }
 
             // we pick the smallest of the 2, to support both backward and forward compatibility
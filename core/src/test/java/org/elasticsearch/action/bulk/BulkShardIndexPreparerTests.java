@@ -0,0 +1,204 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class BulkShardIndexPreparerTests extends ESSingleNodeTestCase {
+
+    public void testPrepareInParallel() throws Exception {
+        IndexService indexService = createIndex("test", Settings.EMPTY, "type", "field", "type=long");
+        IndexShard indexShard = indexService.getShard(0);
+        BulkItemRequest[] items = createItems();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        final AtomicInteger numHelpers = new AtomicInteger();
+        final Semaphore finishedHelpers = new Semaphore(0);
+        Executor executor = command -> {
+            numHelpers.incrementAndGet();
+            pool.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    finishedHelpers.release();
+                }
+            });
+        };
+        try {
+            BulkShardIndexPreparer preparer = BulkShardIndexPreparer.start(items, indexShard, executor, 4);
+            assertNotNull(preparer);
+            assertThat(numHelpers.get(), greaterThan(0));
+            // let the helpers parse all items before the applying thread asks for them
+            assertTrue(finishedHelpers.tryAcquire(numHelpers.get(), 10, TimeUnit.SECONDS));
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].request() instanceof IndexRequest == false) {
+                    continue;
+                }
+                Engine.Index operation = preparer.operation(i);
+                if (i % 10 == 7) {
+                    assertThat(operation, nullValue());
+                } else {
+                    assertNotNull("item [" + i + "] was not prepared by a helper", operation);
+                    assertEquals(Integer.toString(i), operation.id());
+                    assertNull(operation.parsedDoc().dynamicMappingsUpdate());
+                }
+            }
+            preparer.close();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testPrepareWhileApplying() throws Exception {
+        IndexService indexService = createIndex("test", Settings.EMPTY, "type", "field", "type=long");
+        IndexShard indexShard = indexService.getShard(0);
+        BulkItemRequest[] items = createItems();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BulkShardIndexPreparer preparer = BulkShardIndexPreparer.start(items, indexShard, executor, 4);
+            assertNotNull(preparer);
+            // the applying thread races with the helpers: it gets an operation for the items that a helper prepared and
+            // null for the ones it claimed first
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].request() instanceof IndexRequest == false) {
+                    continue;
+                }
+                Engine.Index operation = preparer.operation(i);
+                if (i % 10 == 7) {
+                    assertThat(operation, nullValue());
+                } else if (operation != null) {
+                    assertEquals(Integer.toString(i), operation.id());
+                    assertNull(operation.parsedDoc().dynamicMappingsUpdate());
+                }
+            }
+            preparer.close();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testHelpersStayBoundedAheadOfApplyingThread() throws Exception {
+        IndexService indexService = createIndex("test", Settings.EMPTY, "type", "field", "type=long");
+        IndexShard indexShard = indexService.getShard(0);
+        BulkItemRequest[] items = createItems();
+        final int maxItemsAhead = 16;
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Semaphore finishedHelpers = new Semaphore(0);
+        try {
+            BulkShardIndexPreparer preparer = new BulkShardIndexPreparer(items, indexShard, maxItemsAhead);
+            for (int i = 0; i < 2; i++) {
+                pool.execute(() -> {
+                    try {
+                        preparer.run();
+                    } finally {
+                        finishedHelpers.release();
+                    }
+                });
+            }
+            // the helpers can't get past the first items while the applying thread doesn't move
+            assertFalse(finishedHelpers.tryAcquire(2, 100, TimeUnit.MILLISECONDS));
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].request() instanceof IndexRequest == false) {
+                    continue;
+                }
+                Engine.Index operation = preparer.operation(i);
+                if (operation != null) {
+                    assertEquals(Integer.toString(i), operation.id());
+                }
+            }
+            // moving the applying thread along released the helpers
+            assertTrue(finishedHelpers.tryAcquire(2, 10, TimeUnit.SECONDS));
+            preparer.close();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    public void testCloseReleasesWaitingHelpers() throws Exception {
+        IndexService indexService = createIndex("test", Settings.EMPTY, "type", "field", "type=long");
+        BulkItemRequest[] items = createItems();
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        final Semaphore finishedHelpers = new Semaphore(0);
+        try {
+            BulkShardIndexPreparer preparer = new BulkShardIndexPreparer(items, indexService.getShard(0), 4);
+            for (int i = 0; i < 2; i++) {
+                pool.execute(() -> {
+                    try {
+                        preparer.run();
+                    } finally {
+                        finishedHelpers.release();
+                    }
+                });
+            }
+            preparer.close();
+            assertTrue(finishedHelpers.tryAcquire(2, 10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static BulkItemRequest[] createItems() {
+        BulkItemRequest[] items = new BulkItemRequest[BulkShardIndexPreparer.MIN_ITEMS_PER_THREAD * 4];
+        for (int i = 0; i < items.length; i++) {
+            if (i % 10 == 5) {
+                items[i] = new BulkItemRequest(i, new UpdateRequest("test", "type", Integer.toString(i)));
+            } else if (i % 10 == 7) {
+                // needs a dynamic mappings update, so it must be left to the applying thread
+                items[i] = new BulkItemRequest(i, new IndexRequest("test", "type", Integer.toString(i)).source("new_field_" + i, "value"));
+            } else {
+                items[i] = new BulkItemRequest(i, new IndexRequest("test", "type", Integer.toString(i)).source("field", i));
+            }
+        }
+        return items;
+    }
+
+    public void testTooFewItems() {
+        IndexService indexService = createIndex("test");
+        BulkItemRequest[] items = new BulkItemRequest[BulkShardIndexPreparer.MIN_ITEMS_PER_THREAD];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("test", "type", Integer.toString(i)).source("field", i));
+        }
+        assertNull(BulkShardIndexPreparer.start(items, indexService.getShard(0), Runnable::run, 4));
+        assertNull(BulkShardIndexPreparer.start(items, indexService.getShard(0), Runnable::run, 1));
+    }
+}
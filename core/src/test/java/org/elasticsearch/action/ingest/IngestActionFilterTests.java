@@ -158,6 +158,8 @@ public class IngestActionFilterTests extends ESTestCase {
         Task task = mock(Task.class);
         ThreadPool threadPool = mock(ThreadPool.class);
         when(threadPool.executor(any())).thenReturn(Runnable::run);
+        when(threadPool.info(ThreadPool.Names.BULK))
+                .thenReturn(new ThreadPool.Info(ThreadPool.Names.BULK, ThreadPool.ThreadPoolType.FIXED, 4));
         PipelineStore store = mock(PipelineStore.class);
 
         Processor processor = new Processor() {
@@ -108,6 +108,21 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
 
     }
 
+    public void testAllocationStats() {
+        AllocationService strategy = createAllocationService(Settings.EMPTY);
+        assertEquals(0, strategy.stats().getTotal());
+
+        ClusterState clusterState = initCluster(strategy);
+        clusterState = addNode(clusterState, strategy);
+        AllocationStats stats = strategy.stats();
+        assertThat(stats.getTotal(), Matchers.greaterThan(0L));
+        long phasesTime = stats.getAllocateUnassignedTime().millis() + stats.getMoveTime().millis() + stats.getRebalanceTime().millis();
+        assertThat(phasesTime, Matchers.lessThanOrEqualTo(stats.getTotalTime().millis()));
+
+        removeNodes(clusterState, strategy);
+        assertThat(strategy.stats().getTotal(), Matchers.greaterThan(stats.getTotal()));
+    }
+
     private ClusterState initCluster(AllocationService strategy) {
         MetaData.Builder metaDataBuilder = MetaData.builder();
         RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
@@ -332,6 +332,67 @@ public class CacheTests extends ESTestCase {
         }
     }
 
+    // same as testPromotion, but promotions are buffered and only applied to the LRU list when the buffers are drained
+    public void testBufferedPromotion() {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new Cache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccess(1);
+        cache.setBufferedPromotions(true);
+        now.set(0);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        now.set(1);
+        Set<Integer> promotedKeys = new HashSet<>();
+        for (int i = 0; i < numberOfEntries; i++) {
+            if (rarely()) {
+                cache.get(i);
+                promotedKeys.add(i);
+            }
+        }
+        now.set(2);
+        cache.refresh();
+        assertEquals(promotedKeys.size(), cache.count());
+        for (int i = 0; i < numberOfEntries; i++) {
+            if (promotedKeys.contains(i)) {
+                assertNotNull(cache.get(i));
+            } else {
+                assertNull(cache.get(i));
+            }
+        }
+    }
+
+    // buffered promotions of entries that are invalidated before the buffers are drained must not resurrect them
+    public void testBufferedPromotionOfInvalidatedEntries() {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().setBufferedPromotions(true).build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        Set<Integer> invalidated = new HashSet<>();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.get(i);
+            if (rarely()) {
+                cache.invalidate(i);
+                invalidated.add(i);
+            }
+        }
+        cache.refresh();
+        assertEquals(numberOfEntries - invalidated.size(), cache.count());
+        int keys = 0;
+        for (Integer key : cache.keys()) {
+            assertFalse(invalidated.contains(key));
+            keys++;
+        }
+        assertEquals(numberOfEntries - invalidated.size(), keys);
+        cache.invalidateAll();
+        assertEquals(0, cache.count());
+        assertFalse(cache.keys().iterator().hasNext());
+    }
 
     // randomly invalidate some cached entries, then check that a lookup for each of those and only those keys is null
     public void testInvalidate() {
@@ -742,4 +803,51 @@ public class CacheTests extends ESTestCase {
         cache.refresh();
         assertEquals(500, cache.count());
     }
+
+    // test that buffered promotions do not corrupt the cache under lots of concurrent hits and modifications
+    public void testBufferedPromotionsTorture() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(1000)
+                        .weigher((k, v) -> 2)
+                        .setBufferedPromotions(true)
+                        .build();
+
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        if (random.nextInt(4) == 0) {
+                            cache.put(key, Integer.toString(j));
+                        } else {
+                            cache.get(key);
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertThat(cache.count() <= 500, is(true));
+        assertEquals(2 * cache.count(), cache.weight());
+        int keys = 0;
+        for (Integer ignored : cache.keys()) {
+            keys++;
+        }
+        assertEquals(cache.count(), keys);
+    }
 }
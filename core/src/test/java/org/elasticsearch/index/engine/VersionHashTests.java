@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class VersionHashTests extends ESTestCase {
+
+    public void testPutAndGet() {
+        VersionHash hash = new VersionHash();
+        assertEquals(0, hash.size());
+        assertEquals(0, hash.ramBytesUsed());
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        int iters = scaledRandomIntBetween(100, 10000);
+        for (int i = 0; i < iters; i++) {
+            BytesRef uid = new BytesRef(randomAsciiOfLengthBetween(1, 20));
+            Translog.Location location = new Translog.Location(randomIntBetween(0, 100), randomIntBetween(0, Integer.MAX_VALUE),
+                randomIntBetween(1, 1 << 20));
+            VersionValue value;
+            if (randomBoolean()) {
+                value = new DeleteVersionValue(randomNonNegativeVersion(), randomIntBetween(0, Integer.MAX_VALUE), location);
+            } else {
+                value = new VersionValue(randomNonNegativeVersion(), location);
+            }
+            hash.put(uid, value);
+            expected.put(uid, value);
+        }
+        assertEquals(expected.size(), hash.size());
+        assertTrue(hash.ramBytesUsed() > 0);
+        for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+            VersionValue expectedValue = entry.getValue();
+            // lookups return the stored instance rather than a copy
+            assertSame(expectedValue, hash.get(entry.getKey()));
+        }
+        long valuesRamBytesUsed = 0;
+        for (VersionValue value : expected.values()) {
+            valuesRamBytesUsed += value.ramBytesUsed();
+        }
+        assertThat(hash.ramBytesUsed(), greaterThanOrEqualTo(valuesRamBytesUsed));
+        assertNull(hash.get(new BytesRef(randomAsciiOfLengthBetween(21, 30))));
+    }
+
+    private static long randomNonNegativeVersion() {
+        return randomIntBetween(0, Integer.MAX_VALUE) * (long) randomIntBetween(1, 1000);
+    }
+}
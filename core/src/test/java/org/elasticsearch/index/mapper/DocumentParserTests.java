@@ -19,12 +19,16 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
+import java.util.List;
+
 // TODO: make this a real unit test
 public class DocumentParserTests extends ESSingleNodeTestCase {
 
@@ -61,4 +65,47 @@ public class DocumentParserTests extends ESSingleNodeTestCase {
         assertNotNull(doc.rootDoc().getField("bar"));
         assertNotNull(doc.rootDoc().getField(UidFieldMapper.NAME));
     }
+
+    public void testFieldsListReuse() throws Exception {
+        DocumentMapperParser mapperParser = createIndex("test").mapperService().documentMapperParser();
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+            .startObject("foo").field("type", "string")
+                .startObject("fields").startObject("raw").field("type", "string").field("index", "not_analyzed").endObject().endObject()
+            .endObject()
+            .startObject("bar").field("type", "integer").endObject()
+            .endObject().endObject().endObject().string();
+        DocumentMapper mapper = mapperParser.parse("type", new CompressedXContent(mapping));
+
+        int numFields = -1;
+        for (int i = 0; i < 3; i++) {
+            BytesReference bytes = XContentFactory.jsonBuilder()
+                .startObject()
+                .field("foo", "quick brown fox")
+                .field("bar", i)
+                .endObject().bytes();
+            ParsedDocument doc = mapper.parse("test", "type", Integer.toString(i), bytes);
+            assertNotNull(doc.rootDoc().getField("foo"));
+            assertNotNull(doc.rootDoc().getField("foo.raw"));
+            assertNotNull(doc.rootDoc().getField("bar"));
+            // no fields leak from one document to the next
+            if (numFields == -1) {
+                numFields = doc.rootDoc().getFields().size();
+            } else {
+                assertEquals(numFields, doc.rootDoc().getFields().size());
+            }
+        }
+
+        ParseContext.InternalParseContext context = new ParseContext.InternalParseContext(null, mapperParser, mapper, new ContentPath(0));
+        List<Field> fields = context.acquireFields();
+        assertTrue(fields.isEmpty());
+        fields.add(new StringField("field", "value", Field.Store.NO));
+        // acquired again while in use, eg. by a mapper parsing sub fields
+        List<Field> nested = context.acquireFields();
+        assertNotSame(fields, nested);
+        assertTrue(nested.isEmpty());
+        context.releaseFields(nested);
+        context.releaseFields(fields);
+        assertTrue(fields.isEmpty());
+        assertSame(fields, context.acquireFields());
+    }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+public class QueryTermsIndexTests extends ESTestCase {
+
+    public void testCandidates() throws Exception {
+        QueryTermsIndex index = new QueryTermsIndex();
+        index.add(new BytesRef("1"), new TermQuery(new Term("field", "brown")));
+        index.add(new BytesRef("2"), new TermQuery(new Term("field", "monkey")));
+        BooleanQuery.Builder bq = new BooleanQuery.Builder();
+        bq.add(new TermQuery(new Term("field", "fox")), BooleanClause.Occur.MUST);
+        bq.add(new TermQuery(new Term("field", "monkey")), BooleanClause.Occur.MUST);
+        index.add(new BytesRef("3"), bq.build());
+        PhraseQuery.Builder pq = new PhraseQuery.Builder();
+        pq.add(new Term("field", "lazy"));
+        pq.add(new Term("field", "dog"));
+        index.add(new BytesRef("4"), pq.build());
+        index.add(new BytesRef("5"), new TermQuery(new Term("other_field", "brown")));
+        // no terms can be extracted from this query, so it is always a candidate
+        index.add(new BytesRef("6"), new WildcardQuery(new Term("field", "c*")));
+
+        // only the longest term of query 3 is extracted, which doesn't occur in the document
+        IndexReader reader = createReader("the quick brown fox jumps over the lazy dog");
+        assertThat(index.candidates(reader), containsInAnyOrder(new BytesRef("1"), new BytesRef("4"), new BytesRef("6")));
+
+        // updating a query removes the terms that were extracted from its previous version
+        index.add(new BytesRef("1"), new TermQuery(new Term("field", "monkey")));
+        index.remove(new BytesRef("6"));
+        assertThat(index.candidates(reader), containsInAnyOrder(new BytesRef("4")));
+
+        index.clear();
+        assertThat(index.candidates(reader), empty());
+    }
+
+    private static IndexReader createReader(String value) {
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", value, new WhitespaceAnalyzer());
+        return memoryIndex.createSearcher().getIndexReader();
+    }
+}
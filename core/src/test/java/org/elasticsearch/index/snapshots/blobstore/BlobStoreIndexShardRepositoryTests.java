@@ -0,0 +1,190 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.snapshots.blobstore;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.repositories.RepositoryName;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class BlobStoreIndexShardRepositoryTests extends ESTestCase {
+
+    public void testTransferFilesConcurrently() throws Exception {
+        final int maxConcurrentFileTransfers = randomIntBetween(2, 4);
+        ThreadPool threadPool = newThreadPool(maxConcurrentFileTransfers);
+        try {
+            BlobStoreIndexShardRepository repository = newRepository(threadPool, maxConcurrentFileTransfers);
+            List<FileInfo> files = randomFiles(randomIntBetween(maxConcurrentFileTransfers, 20));
+            Set<String> transferredFiles = ConcurrentCollections.newConcurrentSet();
+            Set<String> threads = ConcurrentCollections.newConcurrentSet();
+            CountDownLatch allTransfersStarted = new CountDownLatch(maxConcurrentFileTransfers);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            repository.transferFiles(files, fileInfo -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    assertTrue("file transferred twice", transferredFiles.add(fileInfo.name()));
+                    threads.add(Thread.currentThread().getName());
+                    allTransfersStarted.countDown();
+                    // the first transfers only complete once as many files as allowed are transferred at the same time
+                    assertTrue(allTransfersStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+            assertEquals(files.size(), transferredFiles.size());
+            assertEquals(maxConcurrentFileTransfers, maxRunning.get());
+            assertEquals(maxConcurrentFileTransfers, threads.size());
+            assertTrue(threads.contains(Thread.currentThread().getName()));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testFailedTransferFailsAfterRunningTransfersCompleted() throws Exception {
+        final int maxConcurrentFileTransfers = randomIntBetween(2, 4);
+        ThreadPool threadPool = newThreadPool(maxConcurrentFileTransfers);
+        try {
+            BlobStoreIndexShardRepository repository = newRepository(threadPool, maxConcurrentFileTransfers);
+            List<FileInfo> files = randomFiles(randomIntBetween(maxConcurrentFileTransfers, 20));
+            FileInfo failingFile = randomFrom(files);
+            IOException failure = new IOException("boom");
+            AtomicBoolean failed = new AtomicBoolean();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger startedAfterFailure = new AtomicInteger();
+            try {
+                repository.transferFiles(files, fileInfo -> {
+                    running.incrementAndGet();
+                    try {
+                        if (failed.get()) {
+                            startedAfterFailure.incrementAndGet();
+                        }
+                        if (fileInfo == failingFile) {
+                            failed.set(true);
+                            throw failure;
+                        }
+                        Thread.sleep(randomIntBetween(0, 5));
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+                fail("transfer should have failed");
+            } catch (IOException e) {
+                assertSame(failure, e);
+            }
+            // no transfer outlives the snapshot or restore, and at most the files picked up by other workers while the failing
+            // transfer was running are transferred after the failure
+            assertEquals(0, running.get());
+            assertThat(startedAfterFailure.get(), lessThan(maxConcurrentFileTransfers));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testTransferFilesWithBusySnapshotPool() throws Exception {
+        final int maxConcurrentFileTransfers = randomIntBetween(2, 4);
+        ThreadPool threadPool = newThreadPool(1);
+        CountDownLatch releasePool = new CountDownLatch(1);
+        try {
+            // keep the only snapshot thread busy, so that the forked workers are queued and can not help
+            threadPool.executor(ThreadPool.Names.SNAPSHOT).execute(() -> {
+                try {
+                    releasePool.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            BlobStoreIndexShardRepository repository = newRepository(threadPool, maxConcurrentFileTransfers);
+            List<FileInfo> files = randomFiles(randomIntBetween(1, 20));
+            FileInfo failingFile = randomBoolean() ? randomFrom(files) : null;
+            IOException failure = new IOException("boom");
+            Set<String> threads = ConcurrentCollections.newConcurrentSet();
+            List<String> transferredFiles = Collections.synchronizedList(new ArrayList<>());
+            try {
+                repository.transferFiles(files, fileInfo -> {
+                    threads.add(Thread.currentThread().getName());
+                    if (fileInfo == failingFile) {
+                        throw failure;
+                    }
+                    transferredFiles.add(fileInfo.name());
+                });
+                assertNull("transfer should have failed", failingFile);
+                assertEquals(files.size(), transferredFiles.size());
+            } catch (IOException e) {
+                assertNotNull(failingFile);
+                assertSame(failure, e);
+            }
+            // the calling thread transferred all files without waiting for the queued workers
+            assertEquals(Collections.singleton(Thread.currentThread().getName()), threads);
+        } finally {
+            releasePool.countDown();
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    private ThreadPool newThreadPool(int snapshotPoolSize) {
+        return new ThreadPool(Settings.builder().put("node.name", getTestName())
+                .put("threadpool.snapshot.size", snapshotPoolSize).build());
+    }
+
+    private static BlobStoreIndexShardRepository newRepository(ThreadPool threadPool, int maxConcurrentFileTransfers) {
+        BlobStoreIndexShardRepository repository = new BlobStoreIndexShardRepository(Settings.EMPTY,
+                new RepositoryName("fs", "test-repo"), null, null, threadPool);
+        repository.initialize(null, null, new ByteSizeValue(1, ByteSizeUnit.MB), null, null,
+                new BlobStoreIndexShardRepository.RateLimiterListener() {
+                    @Override
+                    public void onRestorePause(long nanos) {
+                    }
+
+                    @Override
+                    public void onSnapshotPause(long nanos) {
+                    }
+                }, false, maxConcurrentFileTransfers);
+        return repository;
+    }
+
+    private static List<FileInfo> randomFiles(int numFiles) {
+        List<FileInfo> files = new ArrayList<>();
+        for (int i = 0; i < numFiles; i++) {
+            files.add(new FileInfo("__" + i, new StoreFileMetaData("_" + i + ".cfs", randomIntBetween(1, 1024)), null));
+        }
+        return files;
+    }
+}
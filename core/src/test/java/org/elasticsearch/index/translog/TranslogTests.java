@@ -780,6 +780,40 @@ public class TranslogTests extends ESTestCase {
         }
     }
 
+    public void testConcurrentSyncUpTo() throws Throwable {
+        final int threadCount = randomIntBetween(2, 8);
+        final int opsPerThread = randomIntBetween(10, 100);
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final int threadId = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int op = 0; op < opsPerThread; op++) {
+                        final Translog.Location location = translog.add(new Translog.Index("test", threadId + "_" + op,
+                            Integer.toString(op).getBytes(Charset.forName("UTF-8"))));
+                        translog.ensureSynced(location);
+                        // once ensureSynced returns the location must be durable, no matter which thread did the fsync
+                        assertFalse("location must have been synced", translog.ensureSynced(location));
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (errors.isEmpty() == false) {
+            throw errors.get(0);
+        }
+        assertFalse(translog.syncNeeded());
+        assertEquals(threadCount * opsPerThread, translog.totalOperations());
+    }
+
     public void testLocationComparison() throws IOException {
         List<Translog.Location> locations = new ArrayList<>();
         int translogOperations = randomIntBetween(10, 100);
@@ -29,32 +29,49 @@ import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.DummyTransportAddress;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.DirectoryService;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.test.CorruptionUtils;
 import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.transport.RemoteTransportException;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class RecoverySourceHandlerTests extends ESTestCase {
     private static final IndexSettings INDEX_SETTINGS = IndexSettingsModule.newIndexSettings("index", Settings.settingsBuilder().put(IndexMetaData.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT).build());
@@ -234,6 +251,247 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(store, targetStore);
     }
 
+    public void testSendFilesWithConcurrentFileChunks() throws Throwable {
+        final int maxConcurrentFileChunks = randomIntBetween(2, 8);
+        Store store = newStore(createTempDir());
+        Store.MetadataSnapshot metadata = writeIndex(store);
+        StoreFileMetaData[] files = toArray(metadata);
+        Store targetStore = newStore(createTempDir());
+        FileChunkTarget target = new FileChunkTarget(targetStore, files.length, maxConcurrentFileChunks);
+        RecoverySourceHandler handler = newConcurrentHandler(target, maxConcurrentFileChunks);
+        handler.sendFiles(store, files, recoveryOutputStreamFactory(handler));
+        // the target acknowledges chunks out of order once the source filled all its slots
+        assertEquals(maxConcurrentFileChunks, target.maxChunksInFlight);
+        Store.MetadataSnapshot targetStoreMetadata = targetStore.getMetadata();
+        Store.RecoveryDiff recoveryDiff = targetStoreMetadata.recoveryDiff(metadata);
+        assertEquals(files.length, recoveryDiff.identical.size());
+        assertEquals(0, recoveryDiff.different.size());
+        assertEquals(0, recoveryDiff.missing.size());
+        IOUtils.close(store, targetStore);
+    }
+
+    public void testFailedFileChunkOfPreviousFileWithConcurrentFileChunks() throws Throwable {
+        final int maxConcurrentFileChunks = randomIntBetween(2, 8);
+        Store store = newStore(createTempDir(), false);
+        StoreFileMetaData[] files = toArray(writeIndex(store));
+        Store targetStore = newStore(createTempDir(), false);
+        final boolean throwCorruptedIndexException = randomBoolean();
+        final Exception failure = throwCorruptedIndexException ? new CorruptIndexException("foo", "bar") : new RuntimeException("boom");
+        FileChunkTarget target = new FileChunkTarget(targetStore, files.length, maxConcurrentFileChunks);
+        // the first chunk fails only once the source moved on to the next file
+        target.failFirstChunk = failure;
+        AtomicBoolean failedEngine = new AtomicBoolean(false);
+        RecoverySourceHandler handler = newConcurrentHandler(target, maxConcurrentFileChunks, failedEngine);
+        try {
+            handler.sendFiles(store, files, recoveryOutputStreamFactory(handler));
+            fail("exception expected");
+        } catch (RemoteTransportException ex) {
+            assertTrue(throwCorruptedIndexException);
+            assertEquals(ex.getMessage(), "[File corruption occurred on recovery but checksums are ok]");
+            assertThat(ex.getSuppressed(), arrayContaining((Throwable) failure));
+        } catch (RuntimeException ex) {
+            assertFalse(throwCorruptedIndexException);
+            assertSame(failure, ex);
+        }
+        assertTrue(target.failedFirstChunk);
+        assertFalse(failedEngine.get());
+        IOUtils.close(store, targetStore);
+    }
+
+    public void testHandleCorruptedIndexWithConcurrentFileChunks() throws Throwable {
+        final int maxConcurrentFileChunks = randomIntBetween(2, 8);
+        Path tempDir = createTempDir();
+        Store store = newStore(tempDir, false);
+        StoreFileMetaData[] files = toArray(writeIndex(store));
+        CorruptionUtils.corruptFile(getRandom(), FileSystemUtils.files(tempDir, (p) ->
+                (p.getFileName().toString().equals("write.lock") ||
+                        p.getFileName().toString().startsWith("extra")) == false));
+        Store targetStore = newStore(createTempDir(), false);
+        FileChunkTarget target = new FileChunkTarget(targetStore, files.length, maxConcurrentFileChunks);
+        AtomicBoolean failedEngine = new AtomicBoolean(false);
+        RecoverySourceHandler handler = newConcurrentHandler(target, maxConcurrentFileChunks, failedEngine);
+        try {
+            handler.sendFiles(store, files, recoveryOutputStreamFactory(handler));
+            fail("corrupted index");
+        } catch (IOException ex) {
+            // the target detects the corruption when it writes the last chunk of the file, possibly after later files were sent
+            assertNotNull(ExceptionsHelper.unwrapCorruption(ex));
+        }
+        assertTrue(failedEngine.get());
+        IOUtils.close(store, targetStore);
+    }
+
+    private RecoverySourceHandler newConcurrentHandler(RecoveryTargetHandler target, int maxConcurrentFileChunks) {
+        return newConcurrentHandler(target, maxConcurrentFileChunks, new AtomicBoolean(false));
+    }
+
+    private RecoverySourceHandler newConcurrentHandler(RecoveryTargetHandler target, int maxConcurrentFileChunks,
+                                                       AtomicBoolean failedEngine) {
+        StartRecoveryRequest request = new StartRecoveryRequest(shardId,
+                new DiscoveryNode("b", DummyTransportAddress.INSTANCE, Version.CURRENT),
+                new DiscoveryNode("b", DummyTransportAddress.INSTANCE, Version.CURRENT),
+            null, RecoveryState.Type.STORE, randomLong());
+        IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.RECOVERING);
+        return new RecoverySourceHandler(shard, target, request, 512, maxConcurrentFileChunks, logger) {
+            @Override
+            protected void failEngine(IOException cause) {
+                assertFalse(failedEngine.get());
+                failedEngine.set(true);
+            }
+        };
+    }
+
+    private Function<StoreFileMetaData, OutputStream> recoveryOutputStreamFactory(RecoverySourceHandler handler) {
+        Translog.View translogView = mock(Translog.View.class);
+        // small chunks so that most files are sent in several chunks
+        return md -> new BufferedOutputStream(handler.new RecoveryOutputStream(md, translogView), randomIntBetween(16, 256));
+    }
+
+    private Store.MetadataSnapshot writeIndex(Store store) throws IOException {
+        RandomIndexWriter writer = new RandomIndexWriter(random(), store.directory(), newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+        return store.getMetadata();
+    }
+
+    private static StoreFileMetaData[] toArray(Store.MetadataSnapshot metadata) {
+        List<StoreFileMetaData> metas = new ArrayList<>();
+        for (StoreFileMetaData md : metadata) {
+            metas.add(md);
+        }
+        return metas.toArray(new StoreFileMetaData[0]);
+    }
+
+    /**
+     * A recovery target that keeps the chunks it received in flight until the source sent as many chunks as it may, and then
+     * acknowledges a random one. Files are written to the target store, and verified, once all their chunks were acknowledged.
+     */
+    private class FileChunkTarget implements RecoveryTargetHandler {
+        private final Store store;
+        private final int numFiles;
+        private final int maxConcurrentFileChunks;
+        private final List<FileChunk> chunksInFlight = new ArrayList<>();
+        private final Map<String, byte[]> contents = new HashMap<>();
+        private final Map<String, Long> receivedBytes = new HashMap<>();
+        private int filesStarted = 0;
+        private int filesSent = 0;
+        int maxChunksInFlight = 0;
+        Exception failFirstChunk;
+        boolean failedFirstChunk = false;
+
+        FileChunkTarget(Store store, int numFiles, int maxConcurrentFileChunks) {
+            this.store = store;
+            this.numFiles = numFiles;
+            this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        }
+
+        @Override
+        public synchronized void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                                boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
+            if (position == 0) {
+                filesStarted++;
+            }
+            if (lastChunk) {
+                filesSent++;
+            }
+            chunksInFlight.add(new FileChunk(fileMetaData, position, content.toBytes(), filesStarted == 1 && position == 0, listener));
+            assertThat(chunksInFlight.size(), lessThanOrEqualTo(maxConcurrentFileChunks));
+            maxChunksInFlight = Math.max(maxChunksInFlight, chunksInFlight.size());
+            while (chunksInFlight.isEmpty() == false && (chunksInFlight.size() == maxConcurrentFileChunks || filesSent == numFiles)) {
+                FileChunk chunk = chunksInFlight.get(randomIntBetween(0, chunksInFlight.size() - 1));
+                if (chunk.firstChunk && failFirstChunk != null && filesStarted == 1) {
+                    // hold the first chunk back until a chunk of the next file was sent
+                    continue;
+                }
+                chunksInFlight.remove(chunk);
+                if (chunk.firstChunk && failFirstChunk != null) {
+                    failedFirstChunk = true;
+                    chunk.listener.onFailure(failFirstChunk);
+                } else {
+                    acknowledge(chunk);
+                }
+            }
+        }
+
+        private void acknowledge(FileChunk chunk) {
+            final StoreFileMetaData md = chunk.md;
+            final byte[] content = contents.computeIfAbsent(md.name(), k -> new byte[Math.toIntExact(md.length())]);
+            System.arraycopy(chunk.content, 0, content, Math.toIntExact(chunk.position), chunk.content.length);
+            final long received = receivedBytes.merge(md.name(), (long) chunk.content.length, Long::sum);
+            if (received == md.length()) {
+                try (IndexOutput output = store.createVerifyingOutput(md.name(), md, IOContext.DEFAULT)) {
+                    output.writeBytes(content, content.length);
+                    Store.verify(output);
+                } catch (Throwable t) {
+                    chunk.listener.onFailure(t);
+                    return;
+                }
+                try {
+                    store.directory().sync(Collections.singleton(md.name())); // sync otherwise MDW will mess with it
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            chunk.listener.onResponse(null);
+        }
+
+        @Override
+        public void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                   boolean lastChunk, int totalTranslogOps) throws IOException {
+            throw new UnsupportedOperationException("chunks must be sent without waiting for the target");
+        }
+
+        @Override
+        public void prepareForTranslogOperations(int totalTranslogOps) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void finalizeRecovery() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void indexTranslogOperations(List<Translog.Operation> operations, int totalTranslogOps) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void receiveFileInfo(List<String> phase1FileNames, List<Long> phase1FileSizes, List<String> phase1ExistingFileNames,
+                                    List<Long> phase1ExistingFileSizes, int totalTranslogOps) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cleanFiles(int totalTranslogOps, Store.MetadataSnapshot sourceMetaData) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class FileChunk {
+        final StoreFileMetaData md;
+        final long position;
+        final byte[] content;
+        final boolean firstChunk;
+        final ActionListener<Void> listener;
+
+        FileChunk(StoreFileMetaData md, long position, byte[] content, boolean firstChunk, ActionListener<Void> listener) {
+            this.md = md;
+            this.position = position;
+            this.content = content;
+            this.firstChunk = firstChunk;
+            this.listener = listener;
+        }
+    }
+
     private Store newStore(Path path) throws IOException {
         return newStore(path, true);
     }
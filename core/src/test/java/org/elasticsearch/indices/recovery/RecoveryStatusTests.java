@@ -18,17 +18,28 @@
  */
 package org.elasticsearch.indices.recovery;
 
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.transport.LocalTransportAddress;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -81,4 +92,139 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         // we must fail the recovery because marking it as done will try to move the shard to POST_RECOVERY, which will fail because it's started
         status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
     }
+
+    public void testWriteFileChunksOutOfOrder() throws IOException {
+        IndexService service = createIndex("foo");
+        RecoveryTarget status = newRecoveryTarget(service.getShardOrNull(0));
+        try {
+            final int numFiles = randomIntBetween(1, 4);
+            final List<StoreFileMetaData> files = new ArrayList<>();
+            final List<byte[]> contents = new ArrayList<>();
+            final List<Chunk> chunks = new ArrayList<>();
+            for (int i = 0; i < numFiles; i++) {
+                final byte[] content = randomFileContent();
+                final StoreFileMetaData md = newFileMetaData("file_" + i, content);
+                status.state().getIndex().addFileDetail(md.name(), md.length(), false);
+                files.add(md);
+                contents.add(content);
+                chunks.addAll(splitIntoChunks(md, content));
+            }
+            // chunks of all files arrive in random order, like when the source has several chunk requests in flight
+            Collections.shuffle(chunks, random());
+            for (Chunk chunk : chunks) {
+                status.writeFileChunk(chunk.md, chunk.position, new BytesArray(chunk.content), chunk.lastChunk, 0);
+            }
+            for (int i = 0; i < numFiles; i++) {
+                final StoreFileMetaData md = files.get(i);
+                assertNull(status.getOpenIndexOutput(md.name()));
+                try (IndexInput input = status.store().directory().openInput(status.getTempNameForFile(md.name()), IOContext.DEFAULT)) {
+                    assertEquals(md.length(), input.length());
+                    final byte[] written = new byte[(int) input.length()];
+                    input.readBytes(written, 0, written.length);
+                    assertArrayEquals(contents.get(i), written);
+                }
+            }
+            assertEquals(status.state().getIndex().totalRecoverBytes(), status.state().getIndex().recoveredBytes());
+        } finally {
+            status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+        }
+    }
+
+    public void testWriteCorruptedFileChunksOutOfOrder() throws IOException {
+        IndexService service = createIndex("foo");
+        RecoveryTarget status = newRecoveryTarget(service.getShardOrNull(0));
+        try {
+            final byte[] content = randomFileContent();
+            final StoreFileMetaData md = newFileMetaData("file_0", content);
+            status.state().getIndex().addFileDetail(md.name(), md.length(), false);
+            // flip a byte after the checksum was computed, the target has to detect it once the chunks are written in order
+            content[randomIntBetween(0, content.length - 9)] ^= 1;
+            final List<Chunk> chunks = splitIntoChunks(md, content);
+            Collections.shuffle(chunks, random());
+            final List<IOException> failures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                try {
+                    status.writeFileChunk(chunk.md, chunk.position, new BytesArray(chunk.content), chunk.lastChunk, 0);
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            }
+            assertFalse(failures.isEmpty());
+            for (IOException failure : failures) {
+                assertTrue(ExceptionsHelper.unwrapCorruption(failure) instanceof CorruptIndexException);
+            }
+        } finally {
+            status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+        }
+    }
+
+    private static RecoveryTarget newRecoveryTarget(IndexShard indexShard) {
+        DiscoveryNode node = new DiscoveryNode("foo", new LocalTransportAddress("bar"), Version.CURRENT);
+        return new RecoveryTarget(indexShard, node, new RecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        });
+    }
+
+    /** Returns the bytes of a file with a lucene header and footer, so that the target can verify its checksum. */
+    private byte[] randomFileContent() throws IOException {
+        try (RAMDirectory dir = new RAMDirectory()) {
+            try (IndexOutput output = dir.createOutput("file", IOContext.DEFAULT)) {
+                CodecUtil.writeHeader(output, "foo", 0);
+                final byte[] bytes = new byte[randomIntBetween(1, 1024)];
+                random().nextBytes(bytes);
+                output.writeBytes(bytes, bytes.length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = dir.openInput("file", IOContext.DEFAULT)) {
+                final byte[] content = new byte[(int) input.length()];
+                input.readBytes(content, 0, content.length);
+                return content;
+            }
+        }
+    }
+
+    private static StoreFileMetaData newFileMetaData(String name, byte[] content) throws IOException {
+        try (RAMDirectory dir = new RAMDirectory()) {
+            try (IndexOutput output = dir.createOutput(name, IOContext.DEFAULT)) {
+                output.writeBytes(content, content.length);
+            }
+            try (IndexInput input = dir.openInput(name, IOContext.DEFAULT)) {
+                final String checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+                return new StoreFileMetaData(name, content.length, checksum, org.apache.lucene.util.Version.LATEST);
+            }
+        }
+    }
+
+    private List<Chunk> splitIntoChunks(StoreFileMetaData md, byte[] content) {
+        final List<Chunk> chunks = new ArrayList<>();
+        int position = 0;
+        while (position < content.length) {
+            final int length = Math.min(content.length - position, randomIntBetween(1, 128));
+            final byte[] bytes = new byte[length];
+            System.arraycopy(content, position, bytes, 0, length);
+            chunks.add(new Chunk(md, position, bytes, position + length == content.length));
+            position += length;
+        }
+        return chunks;
+    }
+
+    private static final class Chunk {
+        final StoreFileMetaData md;
+        final long position;
+        final byte[] content;
+        final boolean lastChunk;
+
+        Chunk(StoreFileMetaData md, long position, byte[] content, boolean lastChunk) {
+            this.md = md;
+            this.position = position;
+            this.content = content;
+            this.lastChunk = lastChunk;
+        }
+    }
 }
@@ -25,7 +25,9 @@ import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.ingest.core.CompoundProcessor;
 import org.elasticsearch.ingest.core.IngestDocument;
 import org.elasticsearch.ingest.core.Pipeline;
@@ -37,13 +39,22 @@ import org.junit.Before;
 import org.mockito.ArgumentMatcher;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -67,6 +78,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         store = mock(PipelineStore.class);
         ThreadPool threadPool = mock(ThreadPool.class);
         when(threadPool.executor(anyString())).thenReturn(Runnable::run);
+        when(threadPool.info(ThreadPool.Names.BULK)).thenReturn(new ThreadPool.Info(ThreadPool.Names.BULK, ThreadPool.ThreadPoolType.FIXED, 4));
         executionService = new PipelineExecutionService(store, threadPool);
     }
 
@@ -96,18 +108,12 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         IndexRequest indexRequest2 = new IndexRequest("_index", "_type", "_id").source(Collections.emptyMap()).setPipeline("does_not_exist");
         bulkRequest.add(indexRequest2);
         @SuppressWarnings("unchecked")
-        BiConsumer<IndexRequest, Throwable> failureHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Throwable> failureHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         Consumer<Throwable> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), failureHandler, completionHandler);
         verify(failureHandler, times(1)).accept(
-            argThat(new CustomTypeSafeMatcher<IndexRequest>("failure handler was not called with the expected arguments") {
-                @Override
-                protected boolean matchesSafely(IndexRequest item) {
-                    return item == indexRequest2;
-                }
-
-            }),
+            eq(1),
             argThat(new CustomTypeSafeMatcher<IllegalArgumentException>("failure handler was not called with the expected arguments") {
                 @Override
                 protected boolean matchesSafely(IllegalArgumentException iae) {
@@ -310,11 +316,11 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         doThrow(error).when(processor).execute(any());
         when(store.get(pipelineId)).thenReturn(new Pipeline(pipelineId, null, processor));
 
-        BiConsumer<IndexRequest, Throwable> requestItemErrorHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Throwable> requestItemErrorHandler = mock(BiConsumer.class);
         Consumer<Throwable> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), requestItemErrorHandler, completionHandler);
 
-        verify(requestItemErrorHandler, times(numIndexRequests)).accept(any(IndexRequest.class), eq(error));
+        verify(requestItemErrorHandler, times(numIndexRequests)).accept(any(Integer.class), eq(error));
         verify(completionHandler, times(1)).accept(null);
     }
 
@@ -332,7 +338,7 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         when(store.get(pipelineId)).thenReturn(new Pipeline(pipelineId, null, new CompoundProcessor()));
 
         @SuppressWarnings("unchecked")
-        BiConsumer<IndexRequest, Throwable> requestItemErrorHandler = mock(BiConsumer.class);
+        BiConsumer<Integer, Throwable> requestItemErrorHandler = mock(BiConsumer.class);
         @SuppressWarnings("unchecked")
         Consumer<Throwable> completionHandler = mock(Consumer.class);
         executionService.executeBulkRequest(bulkRequest.requests(), requestItemErrorHandler, completionHandler);
@@ -341,6 +347,83 @@ public class PipelineExecutionServiceTests extends ESTestCase {
         verify(completionHandler, times(1)).accept(null);
     }
 
+    public void testBulkRequestExecutionInChunks() throws Exception {
+        BulkRequest bulkRequest = new BulkRequest();
+        String pipelineId = "_id";
+
+        int numRequest = scaledRandomIntBetween(PipelineExecutionService.MIN_BULK_ITEMS_PER_CHUNK * 8, 512);
+        for (int i = 0; i < numRequest; i++) {
+            if (rarely()) {
+                bulkRequest.add(new DeleteRequest("_index", "_type", "_id"));
+            } else {
+                IndexRequest indexRequest = new IndexRequest("_index", "_type", String.valueOf(i)).setPipeline(pipelineId);
+                indexRequest.source("field1", "value1");
+                bulkRequest.add(indexRequest);
+            }
+        }
+
+        // fails every document whose slot is a multiple of three
+        Set<String> threads = ConcurrentCollections.newConcurrentSet();
+        when(store.get(pipelineId)).thenReturn(new Pipeline(pipelineId, null, new CompoundProcessor(new Processor() {
+            @Override
+            public void execute(IngestDocument ingestDocument) throws Exception {
+                threads.add(Thread.currentThread().getName());
+                if (Integer.parseInt(ingestDocument.getFieldValue("_id", String.class)) % 3 == 0) {
+                    throw new IllegalArgumentException("failed");
+                }
+                ingestDocument.setFieldValue("field2", "value2");
+            }
+
+            @Override
+            public String getType() {
+                return null;
+            }
+
+            @Override
+            public String getTag() {
+                return null;
+            }
+        })));
+
+        // the bulk thread pool has idle threads, so the chunks are executed concurrently
+        ThreadPool threadPool = new ThreadPool(Settings.builder().put("node.name", getTestName()).put("threadpool.bulk.size", 4).build());
+        List<Integer> failedSlots = new ArrayList<>();
+        AtomicInteger completions = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        try {
+            new PipelineExecutionService(store, threadPool).executeBulkRequest(bulkRequest.requests(),
+                    (slot, t) -> failedSlots.add(slot), t -> {
+                        failure.set(t);
+                        completions.incrementAndGet();
+                        completed.countDown();
+                    });
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+        assertThat(failure.get(), nullValue());
+        assertThat(completions.get(), equalTo(1));
+        assertThat(threads.size(), greaterThan(1));
+
+        List<Integer> expectedFailedSlots = new ArrayList<>();
+        for (int i = 0; i < numRequest; i++) {
+            ActionRequest request = bulkRequest.requests().get(i);
+            if (request instanceof IndexRequest) {
+                IndexRequest indexRequest = (IndexRequest) request;
+                if (i % 3 == 0) {
+                    expectedFailedSlots.add(i);
+                    assertThat(indexRequest.getPipeline(), equalTo(pipelineId));
+                } else {
+                    assertThat(indexRequest.getPipeline(), nullValue());
+                    assertThat(indexRequest.sourceAsMap().get("field2"), equalTo("value2"));
+                }
+            }
+        }
+        // failures are reported in slot order
+        assertThat(failedSlots, equalTo(expectedFailedSlots));
+    }
+
     private IngestDocument eqID(String index, String type, String id, Map<String, Object> source) {
         return argThat(new IngestDocumentMatcher(index, type, id, source));
     }
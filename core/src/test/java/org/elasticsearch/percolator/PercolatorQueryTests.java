@@ -54,7 +54,9 @@ import org.junit.After;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.equalTo;
@@ -142,6 +144,36 @@ public class PercolatorQueryTests extends ESTestCase {
         assertThat(topDocs.scoreDocs[4].doc, equalTo(7));
     }
 
+    public void testCandidateQueries() throws Exception {
+        addPercolatorQuery("1", new TermQuery(new Term("field", "brown")));
+        addPercolatorQuery("2", new TermQuery(new Term("field", "fox")));
+        addPercolatorQuery("3", new TermQuery(new Term("field", "monkey")));
+        addPercolatorQuery("4", new WildcardQuery(new Term("field", "d*")));
+
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        IndexSearcher shardSearcher = newSearcher(directoryReader);
+
+        MemoryIndex memoryIndex = new MemoryIndex();
+        memoryIndex.addField("field", "the quick brown fox jumps over the lazy dog", new WhitespaceAnalyzer());
+        IndexSearcher percolateSearcher = memoryIndex.createSearcher();
+
+        PercolatorQuery.Builder builder = new PercolatorQuery.Builder(
+                percolateSearcher,
+                queries,
+                new MatchAllDocsQuery()
+        );
+        // query 2 would match too, but it isn't a candidate so it must not be verified
+        builder.setCandidateQueries(new HashSet<>(Arrays.asList(new BytesRef("1"), new BytesRef("3"), new BytesRef("4"))));
+        PercolatorQuery percolatorQuery = builder.build();
+        TopDocs topDocs = shardSearcher.search(percolatorQuery, 10);
+        assertThat(topDocs.totalHits, equalTo(2));
+        assertThat(topDocs.scoreDocs[0].doc, equalTo(0));
+        assertThat(topDocs.scoreDocs[1].doc, equalTo(3));
+        assertThat(percolatorQuery.getCandidateCount(), equalTo(3L));
+        assertThat(percolatorQuery.getMatchCount(), equalTo(2L));
+    }
+
     public void testWithScoring() throws Exception {
         addPercolatorQuery("1", new TermQuery(new Term("field", "brown")), "field", "value1");
 
@@ -229,6 +261,7 @@ public class PercolatorQueryTests extends ESTestCase {
         ParseContext.Document document = new ParseContext.Document();
         ExtractQueryTermsService.extractQueryTerms(query, document, EXTRACTED_TERMS_FIELD_NAME, UNKNOWN_QUERY_FIELD_NAME, EXTRACTED_TERMS_FIELD_TYPE);
         document.add(new StoredField(UidFieldMapper.NAME, Uid.createUid(PercolatorService.TYPE_NAME, id)));
+        document.add(new StringField(UidFieldMapper.NAME, Uid.createUid(PercolatorService.TYPE_NAME, id), Field.Store.NO));
         assert extraFields.length % 2 == 0;
         for (int i = 0; i < extraFields.length; i++) {
             document.add(new StringField(extraFields[i], extraFields[++i], Field.Store.NO));
@@ -23,14 +23,17 @@ import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.memory.MemoryIndex;
+import org.apache.lucene.search.FuzzyQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
@@ -39,6 +42,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.percolate.PercolateShardResponse;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexSettings;
@@ -58,8 +62,13 @@ import org.junit.After;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -143,6 +152,128 @@ public class PercolatorServiceTests extends ESTestCase {
         assertThat(topDocs.scoreDocs[1].doc, equalTo(2));
     }
 
+    public void testBatchPercolate() throws Exception {
+        PercolatorQueriesRegistry registry = createRegistry();
+        addPercolatorQuery("1", new TermQuery(new Term("field", "brown")), indexWriter, registry);
+        addPercolatorQuery("2", new TermQuery(new Term("field", "monkey")), indexWriter, registry);
+        addPercolatorQuery("3", new TermQuery(new Term("field", "fox")), indexWriter, registry);
+        addPercolatorQuery("4", new TermQuery(new Term("field", "lazy")), indexWriter, registry);
+
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        IndexSearcher shardSearcher = newSearcher(directoryReader);
+
+        List<PercolateContext> contexts = new ArrayList<>();
+        contexts.add(createContext(shardSearcher, 10, false, false));
+        contexts.add(createContext(shardSearcher, 10, false, true));
+        contexts.add(createContext(shardSearcher, 0, true, false));
+        contexts.add(createContext(shardSearcher, 1, false, false));
+        String[] documents = new String[] {
+                "the quick brown fox", "the monkey", "the quick brown fox jumps over the lazy dog", "the lazy brown dog"
+        };
+        IndexReader[] memoryIndices = new IndexReader[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            MemoryIndex memoryIndex = new MemoryIndex();
+            memoryIndex.addField("field", documents[i], new WhitespaceAnalyzer());
+            memoryIndices[i] = memoryIndex.createSearcher().getIndexReader();
+        }
+
+        PercolateShardResponse[] responses = BatchPercolator.percolate(contexts, memoryIndices, registry);
+        assertThat(responses.length, equalTo(4));
+
+        TopDocs topDocs = responses[0].topDocs();
+        assertThat(topDocs.totalHits, equalTo(2));
+        assertThat(topDocs.scoreDocs.length, equalTo(2));
+        assertThat(topDocs.scoreDocs[0].doc, equalTo(0));
+        assertThat(topDocs.scoreDocs[0].score, equalTo(PercolatorService.NO_SCORE));
+        assertThat(topDocs.scoreDocs[1].doc, equalTo(2));
+        assertThat(responses[0].ids().get(0), equalTo("1"));
+        assertThat(responses[0].ids().get(2), equalTo("3"));
+
+        topDocs = responses[1].topDocs();
+        assertThat(topDocs.totalHits, equalTo(1));
+        assertThat(topDocs.scoreDocs.length, equalTo(1));
+        assertThat(topDocs.scoreDocs[0].doc, equalTo(1));
+        assertThat(topDocs.scoreDocs[0].score, equalTo(0f));
+        assertThat(responses[1].ids().get(1), equalTo("2"));
+
+        topDocs = responses[2].topDocs();
+        assertThat(topDocs.totalHits, equalTo(3));
+        assertThat(topDocs.scoreDocs.length, equalTo(0));
+
+        topDocs = responses[3].topDocs();
+        assertThat(topDocs.totalHits, equalTo(2));
+        assertThat(topDocs.scoreDocs.length, equalTo(1));
+        assertThat(topDocs.scoreDocs[0].doc, equalTo(0));
+        assertThat(responses[3].ids().get(0), equalTo("1"));
+
+        // queries are only verified against the documents that selected them, and counted per document
+        assertThat(registry.stats().getNumCandidates(), equalTo(8L));
+        assertThat(registry.stats().getNumMatches(), equalTo(8L));
+    }
+
+    public void testBatchPercolateMatchesPerDocumentPercolation() throws Exception {
+        PercolatorQueriesRegistry registry = createRegistry();
+        List<Query> queries = new ArrayList<>();
+        // the rewrite of these queries depends on the terms of the index they are executed on: with a single expansion,
+        // "quicz" must match both a document with "quick" and a document with "quicx"
+        queries.add(new FuzzyQuery(new Term("field", "quicz"), 1, 0, 1, false));
+        queries.add(new FuzzyQuery(new Term("field", "lazi"), 1, 0, 1, false));
+        queries.add(new PrefixQuery(new Term("field", "qu")));
+        queries.add(new TermQuery(new Term("field", "fox")));
+        queries.add(new TermQuery(new Term("field", "monkey")));
+        for (int i = 0; i < queries.size(); i++) {
+            addPercolatorQuery(Integer.toString(i), queries.get(i), indexWriter, registry);
+        }
+
+        indexWriter.close();
+        directoryReader = DirectoryReader.open(directory);
+        IndexSearcher shardSearcher = newSearcher(directoryReader);
+
+        String[] documents = new String[] {
+                "the quick brown fox", "the quicx monkey", "the lazy dog", "the lazy quick fox", "a lazx monkey", "nothing"
+        };
+        List<PercolateContext> contexts = new ArrayList<>();
+        IndexReader[] memoryIndices = new IndexReader[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            contexts.add(createContext(shardSearcher, queries.size(), false, false));
+            MemoryIndex memoryIndex = new MemoryIndex();
+            memoryIndex.addField("field", documents[i], new WhitespaceAnalyzer());
+            memoryIndices[i] = memoryIndex.createSearcher().getIndexReader();
+        }
+
+        PercolateShardResponse[] responses = BatchPercolator.percolate(contexts, memoryIndices, registry);
+        assertThat(responses.length, equalTo(documents.length));
+        for (int i = 0; i < documents.length; i++) {
+            // the queries that match the document when it is percolated on its own
+            IndexSearcher documentSearcher = new IndexSearcher(memoryIndices[i]);
+            Set<String> expected = new HashSet<>();
+            for (int j = 0; j < queries.size(); j++) {
+                if (Lucene.exists(documentSearcher, queries.get(j))) {
+                    expected.add(Integer.toString(j));
+                }
+            }
+            assertThat(documents[i], new HashSet<>(responses[i].ids().values()), equalTo(expected));
+            assertThat(documents[i], responses[i].topDocs().totalHits, equalTo(expected.size()));
+        }
+        assertThat(new HashSet<>(responses[0].ids().values()), hasItem("0"));
+        assertThat(new HashSet<>(responses[1].ids().values()), hasItem("0"));
+    }
+
+    PercolateContext createContext(IndexSearcher shardSearcher, int size, boolean onlyCount, boolean trackScores) {
+        PercolateContext context = mock(PercolateContext.class);
+        when(context.shardTarget()).thenReturn(new SearchShardTarget("_id", new Index("_index", "_na_"), 0));
+        when(context.percolatorTypeFilter()).thenReturn(new MatchAllDocsQuery());
+        when(context.size()).thenReturn(size);
+        when(context.isOnlyCount()).thenReturn(onlyCount);
+        when(context.trackScores()).thenReturn(trackScores);
+        IndexShard shard = mock(IndexShard.class);
+        when(shard.shardId()).thenReturn(new ShardId("_index", "_na_", 0));
+        when(context.indexShard()).thenReturn(shard);
+        when(context.searcher()).thenReturn(new ContextIndexSearcher(new Engine.Searcher("test", shardSearcher), shardSearcher.getQueryCache(), shardSearcher.getQueryCachingPolicy()));
+        return context;
+    }
+
     void addPercolatorQuery(String id, Query query, IndexWriter writer, PercolatorQueriesRegistry registry) throws IOException {
         registry.getPercolateQueries().put(new BytesRef(id), query);
         ParseContext.Document document = new ParseContext.Document();
@@ -36,10 +36,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
 
 import static org.elasticsearch.common.settings.Settings.settingsBuilder;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.sameInstance;
 
@@ -379,6 +381,78 @@ public class ScriptServiceTests extends ESTestCase {
         assertEquals(1L, scriptService.stats().getCompilations());
     }
 
+    public void testCacheHitsCountedInStats() throws IOException {
+        buildScriptService(Settings.EMPTY);
+        int numberOfHits = randomIntBetween(0, 16);
+        for (int i = 0; i <= numberOfHits; i++) {
+            scriptService.compile(new Script("1+1", ScriptType.INLINE, "test", null), randomFrom(scriptContexts), Collections.emptyMap());
+        }
+        assertEquals(1L, scriptService.stats().getCompilations());
+        assertEquals(numberOfHits, scriptService.stats().getCacheHits());
+    }
+
+    public void testConcurrentCompilationsOfSameScript() throws Exception {
+        buildScriptService(Settings.EMPTY);
+        Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        CompiledScript[] compiled = new CompiledScript[threads.length];
+        ScriptContext scriptContext = randomFrom(scriptContexts);
+        for (int i = 0; i < threads.length; i++) {
+            final int threadId = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                compiled[threadId] = scriptService.compile(new Script("1+1", ScriptType.INLINE, "test", null), scriptContext,
+                        Collections.emptyMap());
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // the script is compiled once, and all threads get the same compiled script
+        assertEquals(1L, scriptService.stats().getCompilations());
+        for (CompiledScript compiledScript : compiled) {
+            assertThat(compiledScript, sameInstance(compiled[0]));
+        }
+    }
+
+    public void testConcurrentFailingCompilationsOfSameScript() throws Exception {
+        buildScriptService(Settings.EMPTY);
+        Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        Object[] results = new Object[threads.length];
+        ScriptContext scriptContext = randomFrom(scriptContexts);
+        for (int i = 0; i < threads.length; i++) {
+            final int threadId = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                try {
+                    results[threadId] = scriptService.compile(new Script("fail", ScriptType.INLINE, "test", null), scriptContext,
+                            Collections.emptyMap());
+                } catch (Exception e) {
+                    results[threadId] = e;
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // threads that waited for another thread's compilation get a failure as well, rather than no script at all
+        for (Object result : results) {
+            assertThat(result, instanceOf(ScriptException.class));
+        }
+        assertEquals(0L, scriptService.stats().getCompilations());
+    }
+
     public void testFileScriptCountedInCompilationStats() throws IOException {
         buildScriptService(Settings.EMPTY);
         createFileScripts("test");
@@ -455,6 +529,9 @@ public class ScriptServiceTests extends ESTestCase {
 
         @Override
         public Object compile(String script, Map<String, String> params) {
+            if ("fail".equals(script)) {
+                throw new IllegalArgumentException("failed to compile [" + script + "]");
+            }
             return "compiled_" + script;
         }
 
@@ -0,0 +1,214 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.rounding.TimeZoneRounding;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.test.TestSearchContext;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+
+public class HistogramAggregatorTests extends ESSingleNodeTestCase {
+
+    public void testDenseBucketOrds() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        final int numDocs = scaledRandomIntBetween(100, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            final int numValues = randomIntBetween(0, 3);
+            for (int j = 0; j < numValues; j++) {
+                document.add(new SortedNumericDocValuesField("value", randomIntBetween(-500, 1500)));
+            }
+            indexWriter.addDocument(document);
+        }
+        DirectoryReader reader = indexWriter.getReader();
+        indexWriter.close();
+        IndexSearcher searcher = new IndexSearcher(reader);
+
+        IndexService indexService = createIndex("test");
+        AggregationContext context = new AggregationContext(createSearchContext(indexService));
+        long interval = randomIntBetween(1, 200);
+        Rounding rounding = new Rounding.Interval(interval);
+        if (randomBoolean()) {
+            rounding = new Rounding.OffsetRounding(rounding, randomIntBetween(1, 50));
+        }
+        // the dense range may cover all, some or none of the keys
+        long minDenseKey = rounding.roundKey(randomIntBetween(-1000, 1000));
+        long maxDenseKey = minDenseKey + randomIntBetween(-1, 2000 / (int) interval);
+
+        InternalHistogram<?> expected = collect(searcher, context, rounding, 0, -1, false);
+        InternalHistogram<?> actual = collect(searcher, context, rounding, minDenseKey, maxDenseKey, randomBoolean());
+        List<? extends InternalHistogram.Bucket> expectedBuckets = expected.getBuckets();
+        List<? extends InternalHistogram.Bucket> actualBuckets = actual.getBuckets();
+        assertEquals(expectedBuckets.size(), actualBuckets.size());
+        for (int i = 0; i < expectedBuckets.size(); i++) {
+            assertEquals(expectedBuckets.get(i).getKey(), actualBuckets.get(i).getKey());
+            assertEquals(expectedBuckets.get(i).getDocCount(), actualBuckets.get(i).getDocCount());
+        }
+
+        reader.close();
+        directory.close();
+    }
+
+    public void testDenseBucketOrdsOnlyForTopLevelHistograms() throws Exception {
+        IndexService indexService = createIndex("test", Settings.EMPTY, "type", "value", "type=long");
+        final int numDocs = randomIntBetween(1, 20);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("value", randomIntBetween(0, 1000)).get();
+        }
+        client().admin().indices().prepareRefresh("test").get();
+        TestSearchContext searchContext = (TestSearchContext) createSearchContext(indexService);
+        try (Engine.Searcher searcher = indexService.getShard(0).acquireSearcher("test")) {
+            searchContext.setSearcher(searcher);
+            AggregationContext context = new AggregationContext(searchContext);
+            HistogramAggregator.HistogramAggregatorBuilder histogram = new HistogramAggregator.HistogramAggregatorBuilder("histo")
+                    .field("value").interval(randomIntBetween(1, 100));
+
+            // the keys of the field are few enough for dense ordinals at the top level
+            HistogramAggregator topLevel = (HistogramAggregator) histogram.build(context, null).create(null, true);
+            try {
+                assertThat(topLevel.numDenseKeys(), greaterThan(0L));
+            } finally {
+                topLevel.close();
+            }
+
+            // under a multi-bucket parent there is one histogram per parent bucket, each would allocate the whole dense range
+            AggregatorFactory<?> termsFactory = new TermsAggregatorBuilder("terms", ValueType.LONG).field("value").build(context, null);
+            Aggregator terms = termsFactory.create(null, true);
+            try {
+                HistogramAggregator nested = (HistogramAggregator) histogram.build(context, termsFactory).create(terms, true);
+                try {
+                    assertEquals(0L, nested.numDenseKeys());
+                } finally {
+                    nested.close();
+                }
+            } finally {
+                terms.close();
+            }
+        }
+    }
+
+    public void testBucketBoundaries() {
+        DateTimeZone timeZone = randomFrom(DateTimeZone.UTC, DateTimeZone.forID("Europe/Paris"), DateTimeZone.forID("America/New_York"),
+                DateTimeZone.forID("Asia/Kathmandu"), DateTimeZone.forOffsetHours(-3));
+        TimeZoneRounding.Builder builder;
+        if (randomBoolean()) {
+            builder = TimeZoneRounding.builder(randomFrom(DateTimeUnit.HOUR_OF_DAY, DateTimeUnit.DAY_OF_MONTH,
+                    DateTimeUnit.WEEK_OF_WEEKYEAR, DateTimeUnit.MONTH_OF_YEAR, DateTimeUnit.QUARTER));
+        } else {
+            builder = TimeZoneRounding.builder(TimeValue.timeValueHours(randomIntBetween(1, 48)));
+        }
+        if (randomBoolean()) {
+            builder.offset(TimeValue.timeValueHours(randomIntBetween(-6, 6)).millis());
+        }
+        Rounding rounding = builder.timeZone(timeZone).build();
+        final int maxBuckets = randomIntBetween(0, 200);
+        HistogramAggregator.BucketBoundaries boundaries = new HistogramAggregator.BucketBoundaries(rounding, maxBuckets);
+        // roughly 2010-2015, which crosses several DST transitions
+        long min = 1262304000000L + randomIntBetween(0, 100) * 3600000L;
+        long max = min + randomIntBetween(0, 5 * 365) * 86400000L;
+        for (int i = 0; i < 10000; i++) {
+            long value = randomLongBetween(min, max);
+            assertEquals("value [" + value + "]", rounding.roundKey(value), boundaries.roundKey(value));
+            // values of buckets that were already seen are resolved from the boundaries
+            long nearby = value + randomIntBetween(-3600000, 3600000);
+            assertEquals("value [" + nearby + "]", rounding.roundKey(nearby), boundaries.roundKey(nearby));
+        }
+        assertTrue(boundaries.size() <= maxBuckets);
+    }
+
+    private static InternalHistogram<?> collect(IndexSearcher searcher, AggregationContext context, Rounding rounding,
+            long minDenseKey, long maxDenseKey, boolean cacheBucketBoundaries) throws IOException {
+        HistogramAggregator aggregator = new HistogramAggregator("histo", AggregatorFactories.EMPTY, rounding, minDenseKey, maxDenseKey,
+                cacheBucketBoundaries, (InternalOrder) Histogram.Order.KEY_ASC, false, 1, null, new LongValuesSource("value"),
+                ValueFormatter.RAW, InternalHistogram.HISTOGRAM_FACTORY, context, null, Collections.emptyList(), null);
+        try {
+            BucketCollector collector = BucketCollector.wrap(Collections.<Aggregator>singletonList(aggregator));
+            collector.preCollection();
+            searcher.search(new MatchAllDocsQuery(), collector);
+            collector.postCollection();
+            return (InternalHistogram<?>) aggregator.buildAggregation(0);
+        } finally {
+            aggregator.close();
+        }
+    }
+
+    private static class LongValuesSource extends ValuesSource.Numeric {
+
+        private final String field;
+
+        LongValuesSource(String field) {
+            this.field = field;
+        }
+
+        @Override
+        public boolean isFloatingPoint() {
+            return false;
+        }
+
+        @Override
+        public SortedNumericDocValues longValues(LeafReaderContext context) throws IOException {
+            return DocValues.getSortedNumeric(context.reader(), field);
+        }
+
+        @Override
+        public SortedNumericDoubleValues doubleValues(LeafReaderContext context) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedBinaryDocValues bytesValues(LeafReaderContext context) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
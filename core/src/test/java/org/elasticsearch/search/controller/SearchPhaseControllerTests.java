@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.metrics.max.InternalMax;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+
+public class SearchPhaseControllerTests extends ESTestCase {
+
+    private SearchPhaseController newController(int batchedReduceSize) {
+        Settings settings = Settings.builder()
+            .put(SearchPhaseController.BATCHED_REDUCE_SIZE_SETTING.getKey(), batchedReduceSize)
+            .build();
+        return new SearchPhaseController(settings, BigArrays.NON_RECYCLING_INSTANCE, null);
+    }
+
+    public void testNoConsumerForSingleBatch() {
+        int batchedReduceSize = randomIntBetween(2, 10);
+        SearchPhaseController controller = newController(batchedReduceSize);
+        assertNull(controller.newQueryResultConsumer(randomIntBetween(1, batchedReduceSize)));
+        assertNotNull(controller.newQueryResultConsumer(batchedReduceSize + 1));
+    }
+
+    public void testBatchedReduce() {
+        int batchedReduceSize = randomIntBetween(2, 10);
+        int numShards = randomIntBetween(batchedReduceSize + 1, 10 * batchedReduceSize);
+        SearchPhaseController.QueryResultConsumer consumer = newController(batchedReduceSize).newQueryResultConsumer(numShards);
+        double max = Double.NEGATIVE_INFINITY;
+        for (int shard = 0; shard < numShards; shard++) {
+            double value = randomDouble();
+            max = Math.max(max, value);
+            QuerySearchResult result = new QuerySearchResult(shard, new SearchShardTarget("node", new Index("test", "_na_"), shard));
+            result.aggregations(new InternalAggregations(Collections.singletonList(
+                new InternalMax("max", value, ValueFormatter.RAW, Collections.emptyList(), Collections.emptyMap()))));
+            consumer.consume(result);
+            // the aggregations are released by the shard result as soon as they are consumed
+            assertNull(result.aggregations());
+        }
+        // each partial reduce frees up all but one slot of the buffer
+        int expectedReducePhases = (numShards - batchedReduceSize + batchedReduceSize - 2) / (batchedReduceSize - 1);
+        assertEquals(expectedReducePhases, consumer.getNumReducePhases());
+        InternalAggregations reduced = consumer.reduce();
+        InternalAggregation reducedMax = reduced.get("max");
+        assertEquals(max, ((InternalMax) reducedMax).getValue(), 0d);
+    }
+
+    public void testEmptyResults() {
+        SearchPhaseController.QueryResultConsumer consumer = newController(2).newQueryResultConsumer(3);
+        for (int shard = 0; shard < 3; shard++) {
+            consumer.consume(new QuerySearchResult(shard, new SearchShardTarget("node", new Index("test", "_na_"), shard)));
+        }
+        assertNull(consumer.reduce());
+        assertEquals(0, consumer.getNumReducePhases());
+    }
+}
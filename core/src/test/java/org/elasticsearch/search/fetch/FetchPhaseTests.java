@@ -0,0 +1,59 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class FetchPhaseTests extends ESTestCase {
+
+    public void testLoadOrder() {
+        int[] docIds = new int[] {-1, 7, 3, 12, 0, 3, -1};
+        int[] order = FetchPhase.loadOrder(docIds, 1, 5);
+        assertArrayEquals(new int[] {3, 1, 4, 0, 2}, order);
+    }
+
+    public void testLoadOrderAlreadySorted() {
+        int[] docIds = new int[] {1, 2, 2, 5, 8};
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, FetchPhase.loadOrder(docIds, 0, docIds.length));
+        assertThat(FetchPhase.loadOrder(docIds, 0, 0).length, equalTo(0));
+    }
+
+    public void testRandomLoadOrder() {
+        int size = randomIntBetween(0, 1000);
+        int from = randomIntBetween(0, 10);
+        int[] docIds = new int[from + size];
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = randomIntBetween(0, Integer.MAX_VALUE);
+        }
+        int[] order = FetchPhase.loadOrder(docIds, from, size);
+        assertThat(order.length, equalTo(size));
+        boolean[] seen = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            assertFalse(seen[order[i]]);
+            seen[order[i]] = true;
+            if (i > 0) {
+                assertThat(docIds[from + order[i]], greaterThanOrEqualTo(docIds[from + order[i - 1]]));
+            }
+        }
+    }
+}
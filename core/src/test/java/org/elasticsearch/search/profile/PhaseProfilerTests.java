@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class PhaseProfilerTests extends ESTestCase {
+
+    public void testNestedTimingIsRecordedOnce() {
+        PhaseProfiler profiler = new PhaseProfiler();
+        PhaseProfiler.Timer timer = profiler.getTimer("fetch", "fetch_sub_phase", "hit_execute");
+        timer.start();
+        timer.start();
+        timer.stop();
+        assertThat(timer.getTime(), equalTo(0L));
+        timer.stop();
+        long time = timer.getTime();
+        assertThat(time, greaterThan(0L));
+        timer.start();
+        timer.stop();
+        assertThat(timer.getTime(), greaterThan(time));
+    }
+
+    public void testResultsKeepTimingOrder() {
+        PhaseProfiler profiler = new PhaseProfiler();
+        for (String timing : Arrays.asList("collect", "post_collection", "build_aggregation")) {
+            PhaseProfiler.Timer timer = profiler.getTimer("terms", "TermsAggregator", timing);
+            timer.start();
+            timer.stop();
+        }
+        assertSame(profiler.getTimer("terms", "TermsAggregator", "collect"), profiler.getTimer("terms", "TermsAggregator", "collect"));
+        PhaseProfiler.Timer timer = profiler.getTimer("max", "MaxAggregator", "collect");
+        timer.start();
+        timer.stop();
+
+        List<PhaseProfileResult> results = profiler.getResults();
+        assertEquals(2, results.size());
+        assertEquals("terms", results.get(0).getName());
+        assertEquals("TermsAggregator", results.get(0).getType());
+        assertEquals(Arrays.asList("collect", "post_collection", "build_aggregation"),
+                Arrays.asList(results.get(0).getTimeBreakdown().keySet().toArray()));
+        long sum = 0;
+        for (long time : results.get(0).getTimeBreakdown().values()) {
+            sum += time;
+        }
+        assertEquals(sum, results.get(0).getTime());
+        assertEquals("max", results.get(1).getName());
+    }
+
+    public void testSerialization() throws Exception {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        timings.put("hits_execute", (long) randomIntBetween(1, Integer.MAX_VALUE));
+        timings.put("hit_execute", (long) randomIntBetween(1, Integer.MAX_VALUE));
+        PhaseProfileResult result = new PhaseProfileResult("HighlightPhase", "fetch_sub_phase", timings);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        result.writeTo(out);
+        StreamInput in = StreamInput.wrap(out.bytes());
+        PhaseProfileResult read = new PhaseProfileResult(in);
+        assertEquals(result.getName(), read.getName());
+        assertEquals(result.getType(), read.getType());
+        assertEquals(result.getTimeBreakdown(), read.getTimeBreakdown());
+        assertEquals(Arrays.asList(timings.keySet().toArray()), Arrays.asList(read.getTimeBreakdown().keySet().toArray()));
+    }
+}
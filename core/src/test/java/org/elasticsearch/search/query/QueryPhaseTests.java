@@ -21,8 +21,11 @@ package org.elasticsearch.search.query;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
@@ -33,20 +36,49 @@ import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.TestSearchContext;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class QueryPhaseTests extends ESTestCase {
 
@@ -165,4 +197,289 @@ public class QueryPhaseTests extends ESTestCase {
         assertTrue(collected.get());
     }
 
+    public void testConcurrentSliceSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(2, 10);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; ++j) {
+                Document doc = new Document();
+                if (randomBoolean()) {
+                    doc.add(new StringField("foo", "bar", Store.NO));
+                }
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertEquals(numSegments, reader.leaves().size());
+
+        final int maxSlices = randomIntBetween(2, numSegments + 1);
+        List<List<LeafReaderContext>> slices = ContextIndexSearcher.slices(reader.leaves(), maxSlices);
+        assertTrue(slices.size() <= maxSlices);
+        List<LeafReaderContext> leaves = new ArrayList<>();
+        for (List<LeafReaderContext> slice : slices) {
+            assertFalse(slice.isEmpty());
+            leaves.addAll(slice);
+        }
+        assertEquals(reader.leaves(), leaves);
+
+        // the count of this query can't be optimized away so it has to be collected
+        Query query = new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+            .build();
+        TestSearchContext context = new TestSearchContext(null) {
+            @Override
+            public long timeoutInMillis() {
+                // a timeout disables the concurrent search of the slices
+                return SearchService.NO_TIMEOUT.millis();
+            }
+        };
+        context.parsedQuery(new ParsedQuery(query));
+        context.setSize(0);
+
+        final Set<List<LeafReaderContext>> searchedSlices = ConcurrentCollections.newConcurrentSet();
+        ContextIndexSearcher contextSearcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy()) {
+            @Override
+            protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                searchedSlices.add(leaves);
+                super.search(leaves, weight, collector);
+            }
+        };
+        // a tiny queue makes sure that rejected slices are searched by the calling thread
+        ExecutorService executor = EsExecutors.newFixed(getTestName(), 1, 1, EsExecutors.daemonThreadFactory("test"),
+                new ThreadContext(Settings.EMPTY));
+        try {
+            QueryPhase.execute(context, contextSearcher, executor, maxSlices);
+            assertEquals(new IndexSearcher(reader).count(query), context.queryResult().topDocs().totalHits);
+            assertEquals(slices.size(), searchedSlices.size());
+
+            searchedSlices.clear();
+            context.parsedPostFilter(new ParsedQuery(new MatchNoDocsQuery()));
+            QueryPhase.execute(context, contextSearcher, executor, maxSlices);
+            assertEquals(0, context.queryResult().topDocs().totalHits);
+            assertEquals(slices.size(), searchedSlices.size());
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    public void testConcurrentSliceSearchSortedWithAggregationsOrScripts() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(2, 10);
+        for (int i = 0; i < numSegments; ++i) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; ++j) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 100)));
+                if (randomBoolean()) {
+                    doc.add(new StringField("foo", "bar", Store.NO));
+                }
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        final IndexReader reader = DirectoryReader.open(dir);
+        final int maxSlices = randomIntBetween(2, numSegments + 1);
+        final int numSlices = ContextIndexSearcher.slices(reader.leaves(), maxSlices).size();
+
+        final Sort sort = new Sort(new SortField("rank", SortField.Type.LONG, randomBoolean()), SortField.FIELD_DOC);
+        TestSearchContext context = new TestSearchContext(null) {
+            @Override
+            public long timeoutInMillis() {
+                return SearchService.NO_TIMEOUT.millis();
+            }
+
+            @Override
+            public Sort sort() {
+                return sort;
+            }
+        };
+        context.parsedQuery(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+        context.setSize(randomIntBetween(1, 20));
+        QueryPhase.execute(context, new IndexSearcher(reader));
+        final TopDocs expected = context.queryResult().topDocs();
+
+        final Set<List<LeafReaderContext>> searchedSlices = ConcurrentCollections.newConcurrentSet();
+        ContextIndexSearcher contextSearcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy()) {
+            @Override
+            protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                searchedSlices.add(leaves);
+                super.search(leaves, weight, collector);
+            }
+        };
+        ExecutorService executor = EsExecutors.newFixed(getTestName(), 2, 10, EsExecutors.daemonThreadFactory("test"),
+                new ThreadContext(Settings.EMPTY));
+        try {
+            QueryPhase.execute(context, contextSearcher, executor, maxSlices);
+            assertSameTopDocs(expected, context.queryResult().topDocs());
+            assertEquals(numSlices, searchedSlices.size());
+
+            // aggregations see all documents of the shard in a single collector
+            searchedSlices.clear();
+            TotalHitCountCollector aggregationCollector = new TotalHitCountCollector();
+            context.aggregations(new SearchContextAggregations(AggregatorFactories.EMPTY));
+            context.queryCollectors().put(AggregationPhase.class, aggregationCollector);
+            QueryPhase.execute(context, contextSearcher, executor, maxSlices);
+            assertSameTopDocs(expected, context.queryResult().topDocs());
+            assertEquals(expected.totalHits, aggregationCollector.getTotalHits());
+            assertEquals(Collections.singleton(reader.leaves()), searchedSlices);
+            context.aggregations(null);
+            context.queryCollectors().clear();
+
+            // the search lookup that scripts use is not thread-safe
+            searchedSlices.clear();
+            context.lookup();
+            QueryPhase.execute(context, contextSearcher, executor, maxSlices);
+            assertSameTopDocs(expected, context.queryResult().topDocs());
+            assertEquals(Collections.singleton(reader.leaves()), searchedSlices);
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    private static void assertSameTopDocs(TopDocs expected, TopDocs actual) {
+        assertEquals(expected.totalHits, actual.totalHits);
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        }
+    }
+
+    public void testIndexOrderSearchAfterWithoutTotalHits() throws Exception {
+        Directory dir = newDirectory();
+        RandomIndexWriter w = new RandomIndexWriter(getRandom(), dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numDocs = scaledRandomIntBetween(100, 200);
+        for (int i = 0; i < numDocs; ++i) {
+            w.addDocument(new Document());
+        }
+        final IndexReader reader = w.getReader();
+        final int size = randomIntBetween(1, 20);
+        final int afterDoc = randomIntBetween(0, numDocs - 1);
+
+        for (boolean trackTotalHits : new boolean[] {true, false}) {
+            final ShardSearchRequest request = mock(ShardSearchRequest.class);
+            when(request.source()).thenReturn(new SearchSourceBuilder().trackTotalHits(trackTotalHits));
+            TestSearchContext context = new TestSearchContext(null) {
+                @Override
+                public ShardSearchRequest request() {
+                    return request;
+                }
+
+                @Override
+                public Sort sort() {
+                    return Sort.INDEXORDER;
+                }
+
+                @Override
+                public FieldDoc searchAfter() {
+                    return new FieldDoc(Integer.MAX_VALUE, Float.NaN, new Object[] {afterDoc});
+                }
+            };
+            context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            context.setSize(size);
+
+            final AtomicInteger collected = new AtomicInteger();
+            IndexSearcher contextSearcher = new IndexSearcher(reader) {
+                protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+                    super.search(leaves, weight, new FilterCollector(collector) {
+                        @Override
+                        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                            return new FilterLeafCollector(super.getLeafCollector(context)) {
+                                @Override
+                                public void collect(int doc) throws IOException {
+                                    collected.incrementAndGet();
+                                    super.collect(doc);
+                                }
+                            };
+                        }
+                    });
+                }
+            };
+            QueryPhase.execute(context, contextSearcher);
+
+            TopDocs topDocs = context.queryResult().topDocs();
+            int expectedHits = Math.min(size, numDocs - afterDoc - 1);
+            assertEquals(expectedHits, topDocs.scoreDocs.length);
+            for (int i = 0; i < expectedHits; i++) {
+                assertEquals(afterDoc + 1 + i, topDocs.scoreDocs[i].doc);
+            }
+            if (trackTotalHits) {
+                assertEquals(numDocs, topDocs.totalHits);
+                assertEquals(numDocs, collected.get());
+            } else {
+                // only the documents after the search_after doc are visited, up to the requested size
+                assertEquals(expectedHits, topDocs.totalHits);
+                assertEquals(expectedHits, collected.get());
+            }
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
+
+    public void testIndexOrderSearchAfterWithoutTotalHitsWithAggregations() throws Exception {
+        Directory dir = newDirectory();
+        RandomIndexWriter w = new RandomIndexWriter(getRandom(), dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numDocs = scaledRandomIntBetween(100, 200);
+        for (int i = 0; i < numDocs; ++i) {
+            w.addDocument(new Document());
+        }
+        final IndexReader reader = w.getReader();
+        final int size = randomIntBetween(1, 20);
+        final int afterDoc = randomIntBetween(0, numDocs - 1);
+
+        final ShardSearchRequest request = mock(ShardSearchRequest.class);
+        when(request.source()).thenReturn(new SearchSourceBuilder().trackTotalHits(false));
+        TestSearchContext context = new TestSearchContext(null) {
+            @Override
+            public ShardSearchRequest request() {
+                return request;
+            }
+
+            @Override
+            public Sort sort() {
+                return Sort.INDEXORDER;
+            }
+
+            @Override
+            public FieldDoc searchAfter() {
+                return new FieldDoc(Integer.MAX_VALUE, Float.NaN, new Object[] {afterDoc});
+            }
+        };
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(size);
+        TotalHitCountCollector aggregationCollector = new TotalHitCountCollector();
+        context.aggregations(new SearchContextAggregations(AggregatorFactories.EMPTY));
+        context.queryCollectors().put(AggregationPhase.class, aggregationCollector);
+
+        QueryPhase.execute(context, new IndexSearcher(reader));
+
+        // aggregations are computed on all matching documents, so the shortcut is not taken
+        assertEquals(numDocs, aggregationCollector.getTotalHits());
+        assertNull(context.queryResult().terminatedEarly());
+        TopDocs topDocs = context.queryResult().topDocs();
+        assertEquals(numDocs, topDocs.totalHits);
+        int expectedHits = Math.min(size, numDocs - afterDoc - 1);
+        assertEquals(expectedHits, topDocs.scoreDocs.length);
+        for (int i = 0; i < expectedHits; i++) {
+            assertEquals(afterDoc + 1 + i, topDocs.scoreDocs[i].doc);
+        }
+        reader.close();
+        w.close();
+        dir.close();
+    }
 }
@@ -19,12 +19,16 @@
 
 package org.elasticsearch.search.stats;
 
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.metrics.HistogramMetric;
 import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.search.stats.SearchStats.Stats;
 import org.elasticsearch.test.ESTestCase;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class SearchStatsUnitTests extends ESTestCase {
     // https://github.com/elasticsearch/elasticsearch/issues/7644
@@ -52,6 +56,42 @@ public class SearchStatsUnitTests extends ESTestCase {
         assertStats(groupStats1.get("group1"), 3);
     }
 
+    public void testLatencyHistogram() throws Exception {
+        HistogramMetric metric = new HistogramMetric();
+        metric.inc(TimeUnit.MICROSECONDS.toNanos(200));
+        metric.inc(TimeUnit.MILLISECONDS.toNanos(1));
+        metric.inc(TimeUnit.MILLISECONDS.toNanos(3));
+        metric.inc(TimeUnit.MILLISECONDS.toNanos(4));
+        metric.inc(TimeUnit.MILLISECONDS.toNanos(7));
+        metric.inc(TimeUnit.DAYS.toNanos(100));
+        long[] counts = metric.counts();
+        assertEquals(HistogramMetric.NUM_BUCKETS, counts.length);
+        assertEquals(1, counts[0]);
+        assertEquals(2, HistogramMetric.upperBoundInMillis(1));
+        assertEquals(1, counts[1]);
+        assertEquals(4, HistogramMetric.upperBoundInMillis(2));
+        assertEquals(1, counts[2]);
+        assertEquals(8, HistogramMetric.upperBoundInMillis(3));
+        assertEquals(2, counts[3]);
+        assertEquals(1, counts[HistogramMetric.NUM_BUCKETS - 1]);
+
+        Stats stats = new Stats(1, 1, 1, 1, 1, 1, 1, 1, 1, counts, new long[HistogramMetric.NUM_BUCKETS]);
+        Stats copy = new Stats(stats);
+        copy.add(stats);
+        assertEquals(4, copy.getQueryLatencyHistogram()[3]);
+        // the copy doesn't share the histogram of the original
+        assertEquals(2, stats.getQueryLatencyHistogram()[3]);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        copy.writeTo(out);
+        Stats read = Stats.readStats(StreamInput.wrap(out.bytes()));
+        assertArrayEquals(copy.getQueryLatencyHistogram(), read.getQueryLatencyHistogram());
+        assertArrayEquals(copy.getFetchLatencyHistogram(), read.getFetchLatencyHistogram());
+
+        metric.clear();
+        assertArrayEquals(new long[HistogramMetric.NUM_BUCKETS], metric.counts());
+    }
+
     private void assertStats(Stats stats, long equalTo) {
         assertEquals(equalTo, stats.getQueryCount());
         assertEquals(equalTo, stats.getQueryTimeInMillis());
@@ -19,6 +19,8 @@
 
 package org.elasticsearch.ingest.grok;
 
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.jcodings.specific.UTF8Encoding;
 import org.joni.Matcher;
 import org.joni.NameEntry;
@@ -29,8 +31,10 @@ import org.joni.Syntax;
 import org.joni.exception.ValueException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -57,6 +61,11 @@ final class Grok {
     private final boolean namedCaptures;
     private final Regex compiledExpression;
     private final String expression;
+    private final String[] requiredLiterals;
+
+    private final MeanMetric matchTime = new MeanMetric();
+    private final MeanMetric missTime = new MeanMetric();
+    private final CounterMetric prefilterMisses = new CounterMetric();
 
 
     public Grok(Map<String, String> patternBank, String grokPattern) {
@@ -71,6 +80,63 @@ final class Grok {
         this.expression = toRegex(grokPattern);
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
         this.compiledExpression = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE);
+        this.requiredLiterals = requiredLiterals(grokPattern);
+    }
+
+    /**
+     * Extracts the literal parts of a grok pattern that every matching text must contain. This is only
+     * possible if the parts between the <code>%{...}</code> references are plain (possibly escaped) text,
+     * as soon as any of them uses alternations, quantifiers, groups or character classes the literals
+     * can no longer be relied on and an empty array is returned.
+     */
+    static String[] requiredLiterals(String grokPattern) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < grokPattern.length()) {
+            char c = grokPattern.charAt(i);
+            if (c == '%' && i + 1 < grokPattern.length() && grokPattern.charAt(i + 1) == '{') {
+                int end = grokPattern.indexOf('}', i);
+                if (end == -1) {
+                    return new String[0];
+                }
+                if (literal.length() > 0) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                }
+                i = end + 1;
+            } else if (c == '\\') {
+                if (i + 1 == grokPattern.length() || Character.isLetterOrDigit(grokPattern.charAt(i + 1))) {
+                    // character classes like \d or \s and back references
+                    return new String[0];
+                }
+                literal.append(grokPattern.charAt(i + 1));
+                i += 2;
+            } else if (".^$*+?()[]{}|".indexOf(c) != -1) {
+                return new String[0];
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+        }
+        return literals.toArray(new String[literals.size()]);
+    }
+
+    /**
+     * Returns <code>false</code> if the text is missing any of the literals that the pattern requires, in
+     * which case the text can't match and running the regex can be skipped.
+     */
+    private boolean mayMatch(String text) {
+        for (String literal : requiredLiterals) {
+            if (text.indexOf(literal) == -1) {
+                prefilterMisses.inc();
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -124,16 +190,22 @@ final class Grok {
     }
 
     public boolean match(String text) {
-        Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
-        int result = matcher.search(0, text.length(), Option.DEFAULT);
-        return (result != -1);
+        if (mayMatch(text) == false) {
+            return false;
+        }
+        byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
+        Matcher matcher = compiledExpression.matcher(textAsBytes);
+        return search(matcher, textAsBytes) != -1;
     }
 
     public Map<String, Object> captures(String text) {
+        if (mayMatch(text) == false) {
+            return null;
+        }
         byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
         Map<String, Object> fields = new HashMap<>();
         Matcher matcher = compiledExpression.matcher(textAsBytes);
-        int result = matcher.search(0, textAsBytes.length, Option.DEFAULT);
+        int result = search(matcher, textAsBytes);
         if (result != -1 && compiledExpression.numberOfNames() > 0) {
             Region region = matcher.getEagerRegion();
             for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
@@ -154,5 +226,42 @@ final class Grok {
         }
         return null;
     }
-}
 
+    private int search(Matcher matcher, byte[] textAsBytes) {
+        long start = System.nanoTime();
+        int result = matcher.search(0, textAsBytes.length, Option.DEFAULT);
+        long took = System.nanoTime() - start;
+        if (result != -1) {
+            matchTime.inc(took);
+        } else {
+            missTime.inc(took);
+        }
+        return result;
+    }
+
+    String[] getRequiredLiterals() {
+        return requiredLiterals;
+    }
+
+    /**
+     * Returns the number of texts this pattern matched and the total time spent matching them.
+     */
+    MeanMetric getMatchTime() {
+        return matchTime;
+    }
+
+    /**
+     * Returns the number of texts the regex was run on without matching and the total time spent on them,
+     * texts that were already rejected by the literal prefilter are not included.
+     */
+    MeanMetric getMissTime() {
+        return missTime;
+    }
+
+    /**
+     * Returns the number of texts that were rejected without running the regex.
+     */
+    long getPrefilterMisses() {
+        return prefilterMisses.count();
+    }
+}
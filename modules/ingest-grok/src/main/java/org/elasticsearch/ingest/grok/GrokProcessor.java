@@ -19,13 +19,18 @@
 
 package org.elasticsearch.ingest.grok;
 
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.ingest.core.AbstractProcessor;
 import org.elasticsearch.ingest.core.AbstractProcessorFactory;
 import org.elasticsearch.ingest.core.ConfigurationUtils;
 import org.elasticsearch.ingest.core.IngestDocument;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 public final class GrokProcessor extends AbstractProcessor {
 
@@ -66,7 +71,15 @@ public final class GrokProcessor extends AbstractProcessor {
 
     public final static class Factory extends AbstractProcessorFactory<GrokProcessor> {
 
+        /**
+         * The maximum number of distinct compiled grok expressions that are kept around for reuse.
+         */
+        static final int MAX_COMPILED_EXPRESSIONS = 1000;
+
         private final Map<String, String> builtinPatterns;
+        // pipelines that use the same pattern with the same custom pattern definitions share the compiled expression
+        private final Cache<Tuple<String, Map<String, String>>, Grok> compiledExpressions =
+            CacheBuilder.<Tuple<String, Map<String, String>>, Grok>builder().setMaximumWeight(MAX_COMPILED_EXPRESSIONS).build();
 
         public Factory(Map<String, String> builtinPatterns) {
             this.builtinPatterns = builtinPatterns;
@@ -77,15 +90,28 @@ public final class GrokProcessor extends AbstractProcessor {
             String matchField = ConfigurationUtils.readStringProperty(TYPE, processorTag, config, "field");
             String matchPattern = ConfigurationUtils.readStringProperty(TYPE, processorTag, config, "pattern");
             Map<String, String> customPatternBank = ConfigurationUtils.readOptionalMap(TYPE, processorTag, config, "pattern_definitions");
-            Map<String, String> patternBank = new HashMap<>(builtinPatterns);
-            if (customPatternBank != null) {
-                patternBank.putAll(customPatternBank);
+            if (customPatternBank == null) {
+                customPatternBank = Collections.emptyMap();
             }
-
-            Grok grok = new Grok(patternBank, matchPattern);
+            Grok grok = getOrCompile(matchPattern, customPatternBank);
             return new GrokProcessor(processorTag, grok, matchField);
         }
 
+        private Grok getOrCompile(String matchPattern, Map<String, String> customPatternBank) {
+            try {
+                return compiledExpressions.computeIfAbsent(new Tuple<>(matchPattern, customPatternBank), key -> {
+                    Map<String, String> patternBank = new HashMap<>(builtinPatterns);
+                    patternBank.putAll(customPatternBank);
+                    return new Grok(patternBank, matchPattern);
+                });
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalArgumentException("failed to compile grok pattern [" + matchPattern + "]", e.getCause());
+            }
+        }
+
     }
 
 }
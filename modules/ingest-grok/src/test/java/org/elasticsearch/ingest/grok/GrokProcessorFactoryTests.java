@@ -28,7 +28,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class GrokProcessorFactoryTests extends ESTestCase {
 
@@ -84,4 +86,29 @@ public class GrokProcessorFactoryTests extends ESTestCase {
         assertThat(processor.getGrok(), notNullValue());
         assertThat(processor.getGrok().match("foo!"), equalTo(true));
     }
+
+    public void testSharesCompiledExpressions() throws Exception {
+        GrokProcessor.Factory factory = new GrokProcessor.Factory(Collections.singletonMap("MY_PATTERN", "foo"));
+        GrokProcessor first = factory.create(config("%{MY_PATTERN:name}!", null));
+        GrokProcessor second = factory.create(config("%{MY_PATTERN:name}!", null));
+        assertThat(second.getGrok(), sameInstance(first.getGrok()));
+
+        GrokProcessor otherPattern = factory.create(config("%{MY_PATTERN:name}?", null));
+        assertThat(otherPattern.getGrok(), not(sameInstance(first.getGrok())));
+
+        GrokProcessor customDefinitions = factory.create(config("%{MY_PATTERN:name}!", Collections.singletonMap("MY_PATTERN", "bar")));
+        assertThat(customDefinitions.getGrok(), not(sameInstance(first.getGrok())));
+        assertThat(customDefinitions.getGrok().match("bar!"), equalTo(true));
+        assertThat(first.getGrok().match("bar!"), equalTo(false));
+    }
+
+    private static Map<String, Object> config(String pattern, Map<String, String> patternDefinitions) {
+        Map<String, Object> config = new HashMap<>();
+        config.put("field", "_field");
+        config.put("pattern", pattern);
+        if (patternDefinitions != null) {
+            config.put("pattern_definitions", patternDefinitions);
+        }
+        return config;
+    }
 }
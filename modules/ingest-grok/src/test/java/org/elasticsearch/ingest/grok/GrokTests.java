@@ -282,4 +282,34 @@ public class GrokTests extends ESTestCase {
         Grok grok = new Grok(bank, "%{MONTHDAY:greatday}");
         assertThat(grok.captures("nomatch"), nullValue());
     }
+
+    public void testRequiredLiterals() {
+        assertThat(Grok.requiredLiterals("%{IP:client} %{WORD:method} - %{WORD}"), equalTo(new String[] {" ", " - "}));
+        assertThat(Grok.requiredLiterals("\\[%{WORD}\\]: done"), equalTo(new String[] {"[", "]: done"}));
+        assertThat(Grok.requiredLiterals("%{WORD}"), equalTo(new String[0]));
+        // as soon as the pattern isn't a plain sequence the literals can't be relied on
+        assertThat(Grok.requiredLiterals("%{WORD} foo|bar"), equalTo(new String[0]));
+        assertThat(Grok.requiredLiterals("%{WORD}? foo"), equalTo(new String[0]));
+        assertThat(Grok.requiredLiterals("(?<foo>\\w+) bar"), equalTo(new String[0]));
+        assertThat(Grok.requiredLiterals("\\d+ bar"), equalTo(new String[0]));
+    }
+
+    public void testPrefilter() {
+        Grok grok = new Grok(basePatterns, "%{WORD:verb} \\[%{NUMBER:took}ms\\]");
+        assertThat(grok.captures("GET 17ms"), nullValue());
+        assertThat(grok.getPrefilterMisses(), equalTo(1L));
+        assertThat(grok.getMissTime().count(), equalTo(0L));
+
+        // contains the literals but doesn't match
+        assertThat(grok.captures("GET [ms]"), nullValue());
+        assertThat(grok.getPrefilterMisses(), equalTo(1L));
+        assertThat(grok.getMissTime().count(), equalTo(1L));
+
+        Map<String, Object> matches = grok.captures("GET [17ms]");
+        assertThat(matches.get("verb"), equalTo("GET"));
+        assertThat(matches.get("took"), equalTo("17"));
+        assertThat(grok.getMatchTime().count(), equalTo(1L));
+        assertThat(grok.match("GET [17ms]"), is(true));
+        assertThat(grok.getMatchTime().count(), equalTo(2L));
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.ingest.geoip;
+
+import com.maxmind.geoip2.DatabaseReader;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+
+import java.net.InetAddress;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * A node level cache of geoip lookup responses, keyed by the database and the looked up address. Ingested
+ * log lines tend to come from a small set of client addresses so most lookups can skip the database.
+ */
+public final class GeoIpCache {
+
+    public static final Setting<Integer> CACHE_SIZE_SETTING =
+        Setting.intSetting("ingest.geoip.cache_size", 1000, 0, false, Setting.Scope.CLUSTER);
+
+    private final Cache<CacheKey, Object> cache;
+    private final CounterMetric lookups = new CounterMetric();
+    private final CounterMetric misses = new CounterMetric();
+
+    public GeoIpCache(int maxSize) {
+        if (maxSize > 0) {
+            this.cache = CacheBuilder.<CacheKey, Object>builder().setMaximumWeight(maxSize).build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Returns the cached response for the given address and database or retrieves and caches it. Exceptions
+     * thrown by the retrieve function, like lookups of unknown addresses, are rethrown and not cached.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T putIfAbsent(InetAddress ip, DatabaseReader databaseReader, Function<InetAddress, T> retrieveFunction) {
+        lookups.inc();
+        if (cache == null) {
+            misses.inc();
+            return retrieveFunction.apply(ip);
+        }
+        final Object response;
+        try {
+            response = cache.computeIfAbsent(new CacheKey(ip, databaseReader), key -> {
+                misses.inc();
+                return retrieveFunction.apply(ip);
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        if (response == null) {
+            // a concurrent lookup of the same address failed, look it up again to get the failure
+            misses.inc();
+            return retrieveFunction.apply(ip);
+        }
+        return (T) response;
+    }
+
+    long count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    long getHits() {
+        return lookups.count() - misses.count();
+    }
+
+    long getMisses() {
+        return misses.count();
+    }
+
+    /**
+     * Database readers are loaded once per node, so they are compared by identity.
+     */
+    private static final class CacheKey {
+
+        private final InetAddress ip;
+        private final DatabaseReader databaseReader;
+
+        private CacheKey(InetAddress ip, DatabaseReader databaseReader) {
+            this.ip = ip;
+            this.databaseReader = databaseReader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return ip.equals(other.ip) && databaseReader == other.databaseReader;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ip, System.identityHashCode(databaseReader));
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.ingest.geoip;
 
 import com.maxmind.geoip2.DatabaseReader;
+import org.elasticsearch.common.settings.SettingsModule;
 import org.elasticsearch.node.NodeModule;
 import org.elasticsearch.plugins.Plugin;
 
@@ -47,10 +48,16 @@ public class IngestGeoIpPlugin extends Plugin {
         return "Ingest processor that adds information about the geographical location of ip addresses";
     }
 
+    public void onModule(SettingsModule settingsModule) {
+        settingsModule.registerSetting(GeoIpCache.CACHE_SIZE_SETTING);
+    }
+
     public void onModule(NodeModule nodeModule) throws IOException {
         Path geoIpConfigDirectory = nodeModule.getNode().getEnvironment().configFile().resolve("ingest-geoip");
         Map<String, DatabaseReader> databaseReaders = loadDatabaseReaders(geoIpConfigDirectory);
-        nodeModule.registerProcessor(GeoIpProcessor.TYPE, (templateService, registry) -> new GeoIpProcessor.Factory(databaseReaders));
+        GeoIpCache cache = new GeoIpCache(GeoIpCache.CACHE_SIZE_SETTING.get(nodeModule.getNode().settings()));
+        nodeModule.registerProcessor(GeoIpProcessor.TYPE,
+                (templateService, registry) -> new GeoIpProcessor.Factory(databaseReaders, cache));
     }
 
     public static Map<String, DatabaseReader> loadDatabaseReaders(Path geoIpConfigDirectory) throws IOException {
@@ -0,0 +1,438 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.painless;
+
+import org.elasticsearch.painless.Definition.Field;
+import org.elasticsearch.painless.Definition.Method;
+import org.elasticsearch.painless.Definition.Transform;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Painless invokedynamic bootstrap for the dynamic (def) field loads, field stores and method calls.
+ * <p>
+ * Each call site starts out unlinked and resolves the target through the {@link Definition} the first time it
+ * sees a receiver class. The resolved {@link MethodHandle} is then installed in front of the current target,
+ * guarded by the receiver class (and by the classes of arguments that need a {@link Transform}), so the next
+ * invocation with the same classes skips the lookups in {@link Def} entirely. Once a call site has seen
+ * {@link #MAX_DEPTH} different classes, or calls it could not cache, it is considered megamorphic and calls
+ * straight into the generic implementations in {@link Def}. Linking is serialized per call site, but the call
+ * itself always runs outside of the call site's lock.
+ * <p>
+ * A call site always belongs to a single compiled script, and so to a single {@link Definition}, which is why
+ * the definition passed along with the call is not part of the guard. It is typed as {@link Object} in the call
+ * site signatures since {@link Definition} is not accessible from the class loader the scripts are defined in.
+ */
+public final class DefBootstrap {
+
+    /** Invokedynamic name of a dynamic method call with signature {@code (Object owner, Object definition, Object...)Object}. */
+    public static final String METHOD_CALL = "methodCall";
+    /** Invokedynamic name of a dynamic field load with signature {@code (Object owner, Object definition)Object}. */
+    public static final String FIELD_LOAD = "fieldLoad";
+    /** Invokedynamic name of a dynamic field store with signature {@code (Object owner, Object value, Object definition)void}. */
+    public static final String FIELD_STORE = "fieldStore";
+
+    /** The maximum number of receiver classes cached, and calls not cached, per call site before it turns megamorphic. */
+    public static final int MAX_DEPTH = 5;
+
+    private DefBootstrap() {}
+
+    /**
+     * The invokedynamic bootstrap method.
+     * @param lookup The lookup of the compiled script, unused since all targets come from the {@link Definition}.
+     * @param operation One of {@link #METHOD_CALL}, {@link #FIELD_LOAD} or {@link #FIELD_STORE}.
+     * @param type The call site type.
+     * @param name The name of the field or method.
+     * @param typesafe For every argument (the stored value for a field store) whether it is already of the
+     *                 expected type, {@code 't'}, or may need a transform, {@code 'f'}.
+     */
+    public static CallSite bootstrap(final Lookup lookup, final String operation, final MethodType type,
+                                     final String name, final String typesafe) {
+        switch (operation) {
+            case METHOD_CALL:
+            case FIELD_LOAD:
+            case FIELD_STORE:
+                return new PIC(operation, type, name, typesafe);
+            default:
+                throw new IllegalArgumentException("Unknown dynamic operation [" + operation + "].");
+        }
+    }
+
+    /**
+     * A polymorphic inline cache for a single dynamic call site.
+     */
+    static final class PIC extends MutableCallSite {
+        private final String operation;
+        private final String name;
+        private final boolean[] typesafe;
+        private final MethodHandle generic;
+
+        private int depth;
+        private int misses;
+
+        PIC(final String operation, final MethodType type, final String name, final String typesafe) {
+            super(type);
+
+            this.operation = operation;
+            this.name = name;
+            this.typesafe = new boolean[typesafe.length()];
+
+            for (int index = 0; index < typesafe.length(); ++index) {
+                this.typesafe[index] = typesafe.charAt(index) == 't';
+            }
+
+            generic = generic(operation, type, name, this.typesafe);
+            setTarget(FALLBACK.bindTo(this).asCollector(Object[].class, type.parameterCount()).asType(type));
+        }
+
+        /**
+         * Returns the number of classes linked into this call site so far.
+         */
+        synchronized int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Links the classes of the current call into this call site and then executes the call.
+         */
+        Object fallback(final Object[] args) throws Throwable {
+            return relink(args).invokeWithArguments(args);
+        }
+
+        /**
+         * Links the classes of the current call into this call site and returns the handle to execute the call with.
+         */
+        private synchronized MethodHandle relink(final Object[] args) throws Throwable {
+            if (depth + misses >= MAX_DEPTH) {
+                setTarget(generic);
+
+                return generic;
+            }
+
+            final Class<?>[] guard = new Class<?>[args.length];
+            final MethodHandle target = link(args, guard);
+
+            if (target == null) {
+                // the call cannot be cached (most likely it fails), the generic implementation has the final say, and
+                // a call site that keeps missing turns megamorphic rather than coming back here every time
+                if (depth + ++misses >= MAX_DEPTH) {
+                    setTarget(generic);
+                }
+
+                return generic;
+            }
+
+            ++depth;
+            setTarget(MethodHandles.guardWithTest(guard(type(), guard), target, getTarget()));
+
+            return target;
+        }
+
+        private MethodHandle link(final Object[] args, final Class<?>[] guard) throws Throwable {
+            final Object owner = args[0];
+
+            if (owner == null) {
+                return null;
+            }
+
+            guard[0] = owner.getClass();
+
+            switch (operation) {
+                case METHOD_CALL:
+                    return linkMethodCall(owner, (Definition)args[1], args, guard);
+                case FIELD_LOAD:
+                    return linkFieldLoad(owner, (Definition)args[1]);
+                case FIELD_STORE:
+                    return linkFieldStore(owner, args[1], (Definition)args[2], guard);
+                default:
+                    throw new IllegalStateException("Unknown dynamic operation [" + operation + "].");
+            }
+        }
+
+        private MethodHandle linkMethodCall(final Object owner, final Definition definition,
+                                            final Object[] args, final Class<?>[] guard) throws Throwable {
+            final Method method = Def.getMethod(owner, name, definition);
+            final int arity = args.length - 2;
+
+            if (method == null || method.arguments.size() != arity) {
+                return null;
+            }
+
+            final MethodHandle[] filters = new MethodHandle[arity];
+
+            for (int argument = 0; argument < arity; ++argument) {
+                if (!typesafe[argument]) {
+                    final Object value = args[argument + 2];
+
+                    if (value == null) {
+                        return null;
+                    }
+
+                    guard[argument + 2] = value.getClass();
+
+                    final Transform transform = Def.getTransform(value.getClass(), method.arguments.get(argument).clazz, definition);
+
+                    if (transform != null) {
+                        filters[argument] = transform.method.handle.asType(MethodType.genericMethodType(1));
+                    }
+                }
+            }
+
+            MethodHandle target = method.handle.asType(MethodType.genericMethodType(arity + 1));
+            target = MethodHandles.filterArguments(target, 1, filters);
+            target = MethodHandles.dropArguments(target, 1, Object.class);
+            target = target.asType(type());
+
+            return MethodHandles.catchException(target, Throwable.class, MethodHandles.insertArguments(METHOD_CALL_ERROR, 0, name));
+        }
+
+        private MethodHandle linkFieldLoad(final Object owner, final Definition definition) throws Throwable {
+            if (owner.getClass().isArray() && "length".equals(name)) {
+                return MethodHandles.dropArguments(ARRAY_LENGTH, 1, Object.class).asType(type());
+            }
+
+            final Field field = Def.getField(owner, name, definition);
+            final MethodHandle handle;
+
+            if (field == null) {
+                final String get = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                final Method method = Def.getMethod(owner, get, definition);
+
+                if (method != null) {
+                    handle = method.handle;
+                } else if (owner instanceof Map) {
+                    return MethodHandles.dropArguments(MAP_GET.bindTo(name), 1, Object.class).asType(type());
+                } else if (owner instanceof List) {
+                    final int index;
+
+                    try {
+                        index = Integer.parseInt(name);
+                    } catch (final NumberFormatException exception) {
+                        return null;
+                    }
+
+                    return MethodHandles.dropArguments(MethodHandles.insertArguments(LIST_GET, 0, index), 1, Object.class).asType(type());
+                } else {
+                    return null;
+                }
+            } else {
+                handle = field.getter;
+            }
+
+            if (handle == null) {
+                return null;
+            }
+
+            final MethodHandle target = MethodHandles.dropArguments(handle.asType(MethodType.genericMethodType(1)), 1, Object.class);
+
+            return MethodHandles.catchException(target.asType(type()), Throwable.class,
+                MethodHandles.insertArguments(FIELD_LOAD_ERROR, 0, name));
+        }
+
+        private MethodHandle linkFieldStore(final Object owner, final Object value, final Definition definition,
+                                            final Class<?>[] guard) throws Throwable {
+            final Field field = Def.getField(owner, name, definition);
+            MethodHandle handle = null;
+
+            if (field == null) {
+                final String set = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                final Method method = Def.getMethod(owner, set, definition);
+
+                if (method != null) {
+                    handle = method.handle;
+                }
+            } else {
+                handle = field.setter;
+            }
+
+            if (handle != null) {
+                MethodHandle target = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+                if (!typesafe[0]) {
+                    if (value == null) {
+                        return null;
+                    }
+
+                    guard[1] = value.getClass();
+
+                    final Transform transform = Def.getTransform(value.getClass(), handle.type().parameterType(1), definition);
+
+                    if (transform != null) {
+                        target = MethodHandles.filterArguments(target, 1, transform.method.handle.asType(MethodType.genericMethodType(1)));
+                    }
+                }
+
+                target = MethodHandles.dropArguments(target, 2, Object.class);
+
+                return MethodHandles.catchException(target.asType(type()), Throwable.class,
+                    MethodHandles.insertArguments(FIELD_STORE_ERROR, 0, name));
+            } else if (owner instanceof Map) {
+                return MethodHandles.dropArguments(MAP_PUT.bindTo(name), 2, Object.class).asType(type());
+            } else if (owner instanceof List) {
+                final int index;
+
+                try {
+                    index = Integer.parseInt(name);
+                } catch (final NumberFormatException exception) {
+                    return null;
+                }
+
+                return MethodHandles.dropArguments(MethodHandles.insertArguments(LIST_SET, 0, index), 2, Object.class).asType(type());
+            }
+
+            return null;
+        }
+    }
+
+    private static MethodHandle generic(final String operation, final MethodType type, final String name, final boolean[] typesafe) {
+        switch (operation) {
+            case METHOD_CALL:
+                return MethodHandles.insertArguments(MethodHandles.insertArguments(DEF_METHOD_CALL, 4, (Object)typesafe), 1, name)
+                    .asCollector(Object[].class, type.parameterCount() - 2).asType(type);
+            case FIELD_LOAD:
+                return MethodHandles.insertArguments(DEF_FIELD_LOAD, 1, name).asType(type);
+            case FIELD_STORE:
+                return MethodHandles.insertArguments(MethodHandles.insertArguments(DEF_FIELD_STORE, 4, typesafe[0]), 2, name)
+                    .asType(type);
+            default:
+                throw new IllegalStateException("Unknown dynamic operation [" + operation + "].");
+        }
+    }
+
+    /**
+     * Builds a test that checks every argument with a non null class in {@code classes} is exactly of that class.
+     */
+    private static MethodHandle guard(final MethodType type, final Class<?>[] classes) {
+        final MethodType test = type.changeReturnType(boolean.class);
+        final MethodHandle fail = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, test.parameterList());
+        MethodHandle guard = MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, test.parameterList());
+
+        for (int index = classes.length - 1; index >= 0; --index) {
+            if (classes[index] != null) {
+                MethodHandle check = CHECK_CLASS.bindTo(classes[index]);
+                check = MethodHandles.dropArguments(check, 0, test.parameterList().subList(0, index));
+                check = MethodHandles.dropArguments(check, index + 1, test.parameterList().subList(index + 1, test.parameterCount()));
+                guard = MethodHandles.guardWithTest(check.asType(test), guard, fail);
+            }
+        }
+
+        return guard;
+    }
+
+    static boolean checkClass(final Class<?> clazz, final Object value) {
+        return value != null && value.getClass() == clazz;
+    }
+
+    static Object arrayLength(final Object array) {
+        return Array.getLength(array);
+    }
+
+    @SuppressWarnings("rawtypes")
+    static Object mapGet(final String name, final Object owner) {
+        return ((Map)owner).get(name);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static void mapPut(final String name, final Object owner, final Object value) {
+        ((Map)owner).put(name, value);
+    }
+
+    @SuppressWarnings("rawtypes")
+    static Object listGet(final int index, final Object owner) {
+        return ((List)owner).get(index);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static void listSet(final int index, final Object owner, final Object value) {
+        ((List)owner).set(index, value);
+    }
+
+    static Object methodCallError(final String name, final Throwable throwable, final Object owner) {
+        throw new IllegalArgumentException("Error invoking method [" + name + "] " +
+                "with owner class [" + owner.getClass().getCanonicalName() + "].", throwable);
+    }
+
+    static Object fieldLoadError(final String name, final Throwable throwable, final Object owner) {
+        throw new IllegalArgumentException("Error loading value from " +
+                "field [" + name + "] with owner class [" + owner.getClass() + "].", throwable);
+    }
+
+    static void fieldStoreError(final String name, final Throwable throwable, final Object owner, final Object value) {
+        throw new IllegalArgumentException("Error storing value [" + value + "] " +
+                "in field [" + name + "] with owner class [" + owner.getClass() + "].", throwable);
+    }
+
+    private static final MethodHandle FALLBACK;
+    private static final MethodHandle CHECK_CLASS;
+    private static final MethodHandle ARRAY_LENGTH;
+    private static final MethodHandle MAP_GET;
+    private static final MethodHandle MAP_PUT;
+    private static final MethodHandle LIST_GET;
+    private static final MethodHandle LIST_SET;
+    private static final MethodHandle METHOD_CALL_ERROR;
+    private static final MethodHandle FIELD_LOAD_ERROR;
+    private static final MethodHandle FIELD_STORE_ERROR;
+    private static final MethodHandle DEF_METHOD_CALL;
+    private static final MethodHandle DEF_FIELD_LOAD;
+    private static final MethodHandle DEF_FIELD_STORE;
+
+    static {
+        final Lookup lookup = MethodHandles.lookup();
+
+        try {
+            FALLBACK = lookup.findVirtual(PIC.class, "fallback",
+                MethodType.methodType(Object.class, Object[].class));
+            CHECK_CLASS = lookup.findStatic(DefBootstrap.class, "checkClass",
+                MethodType.methodType(boolean.class, Class.class, Object.class));
+            ARRAY_LENGTH = lookup.findStatic(DefBootstrap.class, "arrayLength",
+                MethodType.methodType(Object.class, Object.class));
+            MAP_GET = lookup.findStatic(DefBootstrap.class, "mapGet",
+                MethodType.methodType(Object.class, String.class, Object.class));
+            MAP_PUT = lookup.findStatic(DefBootstrap.class, "mapPut",
+                MethodType.methodType(void.class, String.class, Object.class, Object.class));
+            LIST_GET = lookup.findStatic(DefBootstrap.class, "listGet",
+                MethodType.methodType(Object.class, int.class, Object.class));
+            LIST_SET = lookup.findStatic(DefBootstrap.class, "listSet",
+                MethodType.methodType(void.class, int.class, Object.class, Object.class));
+            METHOD_CALL_ERROR = lookup.findStatic(DefBootstrap.class, "methodCallError",
+                MethodType.methodType(Object.class, String.class, Throwable.class, Object.class));
+            FIELD_LOAD_ERROR = lookup.findStatic(DefBootstrap.class, "fieldLoadError",
+                MethodType.methodType(Object.class, String.class, Throwable.class, Object.class));
+            FIELD_STORE_ERROR = lookup.findStatic(DefBootstrap.class, "fieldStoreError",
+                MethodType.methodType(void.class, String.class, Throwable.class, Object.class, Object.class));
+            DEF_METHOD_CALL = lookup.findStatic(Def.class, "methodCall",
+                MethodType.methodType(Object.class, Object.class, String.class, Definition.class, Object[].class, boolean[].class));
+            DEF_FIELD_LOAD = lookup.findStatic(Def.class, "fieldLoad",
+                MethodType.methodType(Object.class, Object.class, String.class, Definition.class));
+            DEF_FIELD_STORE = lookup.findStatic(Def.class, "fieldStore",
+                MethodType.methodType(void.class, Object.class, Object.class, String.class, Definition.class, boolean.class));
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -84,10 +84,13 @@ import org.elasticsearch.painless.PainlessParser.UnaryContext;
 import org.elasticsearch.painless.PainlessParser.WhileContext;
 import org.elasticsearch.script.ScoreAccessor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -143,16 +146,19 @@ class Writer extends PainlessParserBaseVisitor<Void> {
     private final static org.objectweb.asm.Type SCORE_ACCESSOR_TYPE = org.objectweb.asm.Type.getType(ScoreAccessor.class);
     private final static org.objectweb.asm.commons.Method SCORE_ACCESSOR_FLOAT = getAsmMethod(float.class, "floatValue");
 
-    private final static org.objectweb.asm.commons.Method DEF_METHOD_CALL = getAsmMethod(
-        Object.class, "methodCall", Object.class, String.class, Definition.class, Object[].class, boolean[].class);
     private final static org.objectweb.asm.commons.Method DEF_ARRAY_STORE = getAsmMethod(
         void.class, "arrayStore", Object.class, Object.class, Object.class, Definition.class, boolean.class, boolean.class);
     private final static org.objectweb.asm.commons.Method DEF_ARRAY_LOAD = getAsmMethod(
         Object.class, "arrayLoad", Object.class, Object.class, Definition.class, boolean.class);
-    private final static org.objectweb.asm.commons.Method DEF_FIELD_STORE = getAsmMethod(
-        void.class, "fieldStore", Object.class, Object.class, String.class, Definition.class, boolean.class);
-    private final static org.objectweb.asm.commons.Method DEF_FIELD_LOAD = getAsmMethod(
-        Object.class, "fieldLoad", Object.class, String.class, Definition.class);
+
+    private final static Handle DEF_BOOTSTRAP_HANDLE = new Handle(Opcodes.H_INVOKESTATIC,
+        org.objectweb.asm.Type.getInternalName(DefBootstrap.class), "bootstrap", MethodType.methodType(CallSite.class,
+            MethodHandles.Lookup.class, String.class, MethodType.class, String.class, String.class).toMethodDescriptorString());
+    // the definition is passed as an Object since Definition is not visible from the class loader of the script
+    private final static String DEF_FIELD_STORE_DESCRIPTOR =
+        MethodType.methodType(void.class, Object.class, Object.class, Object.class).toMethodDescriptorString();
+    private final static String DEF_FIELD_LOAD_DESCRIPTOR =
+        MethodType.methodType(Object.class, Object.class, Object.class).toMethodDescriptorString();
 
     private final static org.objectweb.asm.commons.Method DEF_NOT_CALL = getAsmMethod(Object.class, "not", Object.class);
     private final static org.objectweb.asm.commons.Method DEF_NEG_CALL = getAsmMethod(Object.class, "neg", Object.class);
@@ -2119,16 +2125,14 @@ class Writer extends PainlessParserBaseVisitor<Void> {
             final Metadata.ExternalMetadata parentemd = metadata.getExternalMetadata(sourceemd.parent);
             final Metadata.ExpressionMetadata expremd = metadata.getExpressionMetadata(parentemd.storeExpr);
 
-            execute.push(name);
             execute.loadThis();
             execute.getField(CLASS_TYPE, "definition", DEFINITION_TYPE);
-            execute.push(parentemd.token == 0 && expremd.typesafe);
-            execute.invokeStatic(definition.defobjType.type, DEF_FIELD_STORE);
+            execute.invokeDynamic(DefBootstrap.FIELD_STORE, DEF_FIELD_STORE_DESCRIPTOR, DEF_BOOTSTRAP_HANDLE,
+                name, parentemd.token == 0 && expremd.typesafe ? "t" : "f");
         } else {
-            execute.push(name);
             execute.loadThis();
             execute.getField(CLASS_TYPE, "definition", DEFINITION_TYPE);
-            execute.invokeStatic(definition.defobjType.type, DEF_FIELD_LOAD);
+            execute.invokeDynamic(DefBootstrap.FIELD_LOAD, DEF_FIELD_LOAD_DESCRIPTOR, DEF_BOOTSTRAP_HANDLE, name, "");
         }
     }
 
@@ -2270,31 +2274,24 @@ class Writer extends PainlessParserBaseVisitor<Void> {
                 execute.checkCast(target.rtn.type);
             }
         } else {
-            execute.push((String)sourceenmd.target);
             execute.loadThis();
             execute.getField(CLASS_TYPE, "definition", DEFINITION_TYPE);
 
-            execute.push(arguments.size());
-            execute.newArray(definition.defType.type);
-
-            for (int argument = 0; argument < arguments.size(); ++argument) {
-                execute.dup();
-                execute.push(argument);
-                visit(arguments.get(argument));
-                execute.arrayStore(definition.defType.type);
-            }
+            final Class<?>[] parameters = new Class<?>[arguments.size() + 2];
+            final StringBuilder typesafe = new StringBuilder(arguments.size());
 
-            execute.push(arguments.size());
-            execute.newArray(definition.booleanType.type);
+            parameters[0] = definition.defType.clazz;
+            parameters[1] = Object.class;
 
             for (int argument = 0; argument < arguments.size(); ++argument) {
-                execute.dup();
-                execute.push(argument);
-                execute.push(metadata.getExpressionMetadata(arguments.get(argument)).typesafe);
-                execute.arrayStore(definition.booleanType.type);
+                visit(arguments.get(argument));
+                parameters[argument + 2] = definition.defType.clazz;
+                typesafe.append(metadata.getExpressionMetadata(arguments.get(argument)).typesafe ? 't' : 'f');
             }
 
-            execute.invokeStatic(definition.defobjType.type, DEF_METHOD_CALL);
+            execute.invokeDynamic(DefBootstrap.METHOD_CALL,
+                MethodType.methodType(definition.defType.clazz, parameters).toMethodDescriptorString(), DEF_BOOTSTRAP_HANDLE,
+                (String)sourceenmd.target, typesafe.toString());
         }
     }
 
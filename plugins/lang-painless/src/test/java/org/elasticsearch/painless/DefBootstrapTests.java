@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.painless;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class DefBootstrapTests extends ScriptTestCase {
+    private final Definition definition = new Definition(new Definition());
+
+    public void testOneType() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.METHOD_CALL,
+            MethodType.methodType(Object.class, Object.class, Object.class), "size", "");
+        final MethodHandle handle = site.dynamicInvoker();
+        assertDepthEquals(site, 0);
+
+        assertEquals(2, handle.invoke(Arrays.asList("1", "2"), definition));
+        assertDepthEquals(site, 1);
+        assertEquals(1, handle.invoke(Arrays.asList("x"), definition));
+        assertDepthEquals(site, 1);
+    }
+
+    public void testTwoTypes() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.METHOD_CALL,
+            MethodType.methodType(Object.class, Object.class, Object.class), "size", "");
+        final MethodHandle handle = site.dynamicInvoker();
+
+        assertEquals(1, handle.invoke(Collections.singletonMap("a", "b"), definition));
+        assertDepthEquals(site, 1);
+        assertEquals(2, handle.invoke(Arrays.asList("1", "2"), definition));
+        assertDepthEquals(site, 2);
+        assertEquals(0, handle.invoke(Collections.emptyMap(), definition));
+        assertDepthEquals(site, 3);
+        assertEquals(3, handle.invoke(Arrays.asList("a", "b", "c"), definition));
+        assertEquals(1, handle.invoke(Collections.singletonMap("c", "d"), definition));
+        assertDepthEquals(site, 3);
+    }
+
+    public void testTooManyTypes() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.METHOD_CALL,
+            MethodType.methodType(Object.class, Object.class, Object.class), "size", "");
+        final MethodHandle handle = site.dynamicInvoker();
+        final List<Object> receivers = Arrays.asList(new ArrayList<>(Arrays.asList(1)), new LinkedList<>(Arrays.asList(1, 2)),
+            new HashSet<>(Arrays.asList(1, 2, 3)), new HashMap<>(Collections.singletonMap(1, 2)), Arrays.asList(1, 2),
+            Collections.singletonList(1), Collections.emptyList());
+        final int[] sizes = new int[] {1, 2, 3, 1, 2, 1, 0};
+
+        for (int round = 0; round < 3; ++round) {
+            for (int receiver = 0; receiver < receivers.size(); ++receiver) {
+                assertEquals(sizes[receiver], handle.invoke(receivers.get(receiver), definition));
+            }
+        }
+
+        assertDepthEquals(site, DefBootstrap.MAX_DEPTH);
+    }
+
+    public void testUntypedArguments() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.METHOD_CALL,
+            MethodType.methodType(Object.class, Object.class, Object.class, Object.class), "get", "f");
+        final MethodHandle handle = site.dynamicInvoker();
+        final List<String> list = Arrays.asList("a", "b", "c");
+
+        assertEquals("b", handle.invoke(list, definition, 1));
+        assertDepthEquals(site, 1);
+        assertEquals("c", handle.invoke(list, definition, 2));
+        assertDepthEquals(site, 1);
+        // a null argument can not be guarded by its class, so it always takes the generic path
+        try {
+            handle.invoke(list, definition, null);
+            fail("should have hit IAE");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("Error invoking method [get]"));
+        }
+        assertDepthEquals(site, 1);
+    }
+
+    public void testFieldLoadAndStore() throws Throwable {
+        final CallSite store = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.FIELD_STORE,
+            MethodType.methodType(void.class, Object.class, Object.class, Object.class), "foo", "t");
+        final CallSite load = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.FIELD_LOAD,
+            MethodType.methodType(Object.class, Object.class, Object.class), "foo", "");
+        final Map<String, Object> map = new HashMap<>();
+
+        store.dynamicInvoker().invoke(map, 5, definition);
+        assertEquals(5, map.get("foo"));
+        assertEquals(5, load.dynamicInvoker().invoke(map, definition));
+        assertDepthEquals(store, 1);
+        assertDepthEquals(load, 1);
+
+        final CallSite length = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.FIELD_LOAD,
+            MethodType.methodType(Object.class, Object.class, Object.class), "length", "");
+        assertEquals(3, length.dynamicInvoker().invoke(new int[3], definition));
+        assertEquals(2, length.dynamicInvoker().invoke(new String[2], definition));
+        assertDepthEquals(length, 2);
+    }
+
+    public void testErrorsAreNotCached() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.FIELD_LOAD,
+            MethodType.methodType(Object.class, Object.class, Object.class), "bogus", "");
+        try {
+            site.dynamicInvoker().invoke(Arrays.asList(1), definition);
+            fail("should have hit IAE");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("Illegal list shortcut value [bogus]."));
+        }
+        assertDepthEquals(site, 0);
+    }
+
+    public void testMissesTurnMegamorphic() throws Throwable {
+        final CallSite site = DefBootstrap.bootstrap(MethodHandles.publicLookup(), DefBootstrap.FIELD_LOAD,
+            MethodType.methodType(Object.class, Object.class, Object.class), "bogus", "");
+        for (int miss = 0; miss < DefBootstrap.MAX_DEPTH; ++miss) {
+            try {
+                site.dynamicInvoker().invoke(Arrays.asList(1), definition);
+                fail("should have hit IAE");
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage().contains("Illegal list shortcut value [bogus]."));
+            }
+        }
+        // the call site gave up on caching, so a receiver that could be cached takes the generic path as well
+        assertNull(site.dynamicInvoker().invoke(Collections.emptyMap(), definition));
+        assertDepthEquals(site, 0);
+    }
+
+    public void testPolymorphicScript() {
+        final List<Object> receivers = Arrays.asList(Arrays.asList(1), Collections.singletonMap("a", 1),
+            new HashSet<>(Arrays.asList(1, 2)), new ArrayList<>(Arrays.asList(1, 2)), new LinkedList<>(), Collections.singleton(1),
+            new HashMap<>(Collections.singletonMap(1, 1)));
+        assertEquals(8, exec("def x = input.get(\"x\"); def total = 0; " +
+            "for (int i = 0; i < x.size(); ++i) { total += x.get(i).size(); } return total;", Collections.singletonMap("x", receivers)));
+    }
+
+    private static void assertDepthEquals(final CallSite site, final int expected) {
+        assertEquals(expected, ((DefBootstrap.PIC) site).getDepth());
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.ingest.core.CompoundProcessor;
 import org.elasticsearch.ingest.core.IngestDocument;
 import org.elasticsearch.ingest.core.Pipeline;
 import org.elasticsearch.ingest.core.Processor;
+import org.elasticsearch.ingest.geoip.GeoIpCache;
 import org.elasticsearch.ingest.geoip.GeoIpProcessor;
 import org.elasticsearch.ingest.geoip.IngestGeoIpPlugin;
 import org.elasticsearch.ingest.grok.GrokProcessor;
@@ -89,7 +90,7 @@ public class CombineProcessorsTests extends ESTestCase {
         Processor processor4 = new DateProcessor.Factory().create(config);
         config = new HashMap<>();
         config.put("source_field", "clientip");
-        Processor processor5 = new GeoIpProcessor.Factory(databaseReaders).create(config);
+        Processor processor5 = new GeoIpProcessor.Factory(databaseReaders, new GeoIpCache(1000)).create(config);
 
         Pipeline pipeline = new Pipeline("_id", "_description", new CompoundProcessor(processor1, processor2, processor3, processor4, processor5));
 
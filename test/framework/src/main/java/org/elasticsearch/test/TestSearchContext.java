@@ -528,7 +528,7 @@ public class TestSearchContext extends SearchContext {
     }
 
     @Override
-    public SearchLookup lookup() {
+    protected SearchLookup lookupImpl() {
         return new SearchLookup(mapperService(), fieldData(), null);
     }
 